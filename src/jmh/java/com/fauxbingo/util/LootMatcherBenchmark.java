@@ -0,0 +1,159 @@
+package com.fauxbingo.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@link LootMatcher#matchesAny} against {@link CompiledBingoList#matches} for boards of different
+ * sizes and shapes. Run with {@code ./gradlew jmh}, the gc profiler reports allocation rate alongside ops/s.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LootMatcherBenchmark
+{
+	private static final String[] PREFIXES = {
+		"Dragon", "Rune", "Adamant", "Mithril", "Black", "Steel", "Iron", "Bronze", "Granite", "Obsidian",
+		"Ancient", "Armadyl", "Bandos", "Zamorak", "Saradomin", "Guthix", "Crystal", "Infernal", "Twisted", "Elder",
+		"Ancestral", "Masori", "Torva", "Virtus", "Inquisitor's"
+	};
+
+	private static final String[] NOUNS = {
+		"platebody", "platelegs", "full helm", "kiteshield", "scimitar", "longsword", "dagger", "warhammer", "battleaxe",
+		"halberd", "spear", "boots", "gloves", "chainbody", "sq shield", "med helm", "pickaxe", "axe", "harpoon",
+		"bones", "hide", "bolts", "arrows", "darts", "javelin", "knife", "crossbow", "shortbow", "longbow",
+		"robe top", "robe bottom", "hat", "cape", "amulet", "ring", "bracelet", "shard", "sigil", "tiara", "mace"
+	};
+
+	@Param({"10", "100", "1000"})
+	public int boardSize;
+
+	@Param({"PLAIN", "WILDCARD_HEAVY"})
+	public String boardShape;
+
+	private List<String> board;
+	private CompiledBingoList compiled;
+
+	private String exactHit;
+	private String pluralHit;
+	private String possessiveHit;
+	private String fuzzyMiss;
+	private String plainMiss;
+
+	@Setup
+	public void setup()
+	{
+		board = new ArrayList<>(boardSize);
+		boolean wildcards = "WILDCARD_HEAVY".equals(boardShape);
+		for (int i = 0; board.size() < boardSize - 2; i++)
+		{
+			String prefix = PREFIXES[i % PREFIXES.length];
+			String noun = NOUNS[(i / PREFIXES.length) % NOUNS.length];
+			if (wildcards && i % 3 == 0)
+			{
+				board.add(prefix + " *");
+			}
+			else if (wildcards && i % 3 == 1)
+			{
+				board.add("*" + noun);
+			}
+			else
+			{
+				board.add(prefix + " " + noun);
+			}
+		}
+		// Entries the hit queries are aimed at, placed last so a linear scan has to walk the whole board
+		board.add("Zulrah scales");
+		board.add("Soul rune");
+		compiled = CompiledBingoList.of(board);
+
+		exactHit = "Soul rune";
+		pluralHit = "Soul runes";
+		// Only an exact hit once the possessive is stripped, so it measures that path rather than the fuzzy fallback
+		possessiveHit = "Zulrah's scales";
+		// Long enough for fuzzy comparison but more than one edit away from every entry
+		fuzzyMiss = "Soul ruin xx";
+		plainMiss = "Yew logs";
+	}
+
+	@Benchmark
+	public boolean lootMatcherExactHit()
+	{
+		return LootMatcher.matchesAny(exactHit, board);
+	}
+
+	@Benchmark
+	public boolean lootMatcherPluralHit()
+	{
+		return LootMatcher.matchesAny(pluralHit, board);
+	}
+
+	@Benchmark
+	public boolean lootMatcherPossessiveHit()
+	{
+		return LootMatcher.matchesAny(possessiveHit, board);
+	}
+
+	@Benchmark
+	public boolean lootMatcherFuzzyMiss()
+	{
+		return LootMatcher.matchesAny(fuzzyMiss, board);
+	}
+
+	@Benchmark
+	public boolean lootMatcherPlainMiss()
+	{
+		return LootMatcher.matchesAny(plainMiss, board);
+	}
+
+	@Benchmark
+	public boolean compiledExactHit()
+	{
+		return compiled.matches(exactHit);
+	}
+
+	@Benchmark
+	public boolean compiledPluralHit()
+	{
+		return compiled.matches(pluralHit);
+	}
+
+	@Benchmark
+	public boolean compiledPossessiveHit()
+	{
+		return compiled.matches(possessiveHit);
+	}
+
+	@Benchmark
+	public boolean compiledFuzzyMiss()
+	{
+		return compiled.matches(fuzzyMiss);
+	}
+
+	@Benchmark
+	public boolean compiledPlainMiss()
+	{
+		return compiled.matches(plainMiss);
+	}
+
+	@Benchmark
+	public CompiledBingoList compileBoard()
+	{
+		return CompiledBingoList.of(board);
+	}
+}
@@ -0,0 +1,134 @@
+package com.fauxbingo;
+
+import com.fauxbingo.handlers.ChatMessageFilter;
+import com.fauxbingo.handlers.ChatMessageHandler;
+import com.fauxbingo.util.AhoCorasick;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Getter;
+import net.runelite.api.ChatMessageType;
+import net.runelite.api.events.ChatMessage;
+
+/**
+ * Routing step compiled from the filters of the registered chat handlers.
+ * A message is first checked against a per-type mask of interested handlers, and only if some of them need
+ * literal matching are all their prefixes and substrings searched for in one pass over the message.
+ * Handlers are identified by their index in the router's handler array, which limits a router to 64 handlers.
+ * Routing reuses one match accumulator so it allocates nothing, which relies on chat messages only being routed on the
+ * client thread.
+ */
+final class ChatMessageRouter
+{
+	static final int MAX_HANDLERS = Long.SIZE;
+
+	private static final ChatMessageType[] TYPES = ChatMessageType.values();
+
+	@Getter
+	private final RegisteredHandler[] handlers;
+
+	// Handlers accepting each message type, indexed by type ordinal
+	private final long[] typeMasks = new long[TYPES.length];
+	// Handlers that accept any message of an accepted type, without literal matching
+	private final long unconditionalMask;
+	private final AhoCorasick literals;
+	private final long[] literalHandlers;
+	private final boolean[] literalIsPrefix;
+	private final LiteralHits hits = new LiteralHits();
+
+	private ChatMessageRouter(RegisteredHandler[] handlers)
+	{
+		this.handlers = handlers;
+		long unconditional = 0;
+		List<String> patterns = new ArrayList<>();
+		List<Long> patternHandlers = new ArrayList<>();
+		List<Boolean> patternIsPrefix = new ArrayList<>();
+
+		for (int i = 0; i < handlers.length; i++)
+		{
+			long bit = 1L << i;
+			Object handler = handlers[i].handler;
+			ChatMessageFilter filter = handler instanceof ChatMessageHandler ? ((ChatMessageHandler) handler).getFilter() : null;
+
+			for (ChatMessageType type : TYPES)
+			{
+				if (filter == null || filter.acceptsType(type))
+				{
+					typeMasks[type.ordinal()] |= bit;
+				}
+			}
+
+			if (filter == null || !filter.hasLiterals())
+			{
+				unconditional |= bit;
+				continue;
+			}
+
+			for (String prefix : filter.getPrefixes())
+			{
+				patterns.add(prefix);
+				patternHandlers.add(bit);
+				patternIsPrefix.add(true);
+			}
+			for (String substring : filter.getSubstrings())
+			{
+				patterns.add(substring);
+				patternHandlers.add(bit);
+				patternIsPrefix.add(false);
+			}
+		}
+
+		unconditionalMask = unconditional;
+		literals = patterns.isEmpty() ? null : new AhoCorasick(patterns);
+		literalHandlers = new long[patterns.size()];
+		literalIsPrefix = new boolean[patterns.size()];
+		for (int i = 0; i < patterns.size(); i++)
+		{
+			literalHandlers[i] = patternHandlers.get(i);
+			literalIsPrefix[i] = patternIsPrefix.get(i);
+		}
+	}
+
+	/**
+	 * @return a router for the handlers, or null if there are too many handlers to route
+	 */
+	static ChatMessageRouter of(RegisteredHandler[] handlers)
+	{
+		return handlers.length > MAX_HANDLERS ? null : new ChatMessageRouter(handlers);
+	}
+
+	/**
+	 * @return bit mask of the indexes in {@link #getHandlers()} of the handlers that should receive the message
+	 */
+	long route(ChatMessage message)
+	{
+		long candidates = message.getType() == null ? 0 : typeMasks[message.getType().ordinal()];
+		if (candidates == 0)
+		{
+			return 0;
+		}
+
+		long accepted = candidates & unconditionalMask;
+		if (accepted == candidates || literals == null || message.getMessage() == null)
+		{
+			return accepted;
+		}
+
+		hits.handlers = 0;
+		literals.scan(message.getMessage(), hits);
+		return accepted | (candidates & hits.handlers);
+	}
+
+	private final class LiteralHits implements AhoCorasick.MatchListener
+	{
+		private long handlers;
+
+		@Override
+		public void onMatch(int pattern, int start)
+		{
+			if (start == 0 || !literalIsPrefix[pattern])
+			{
+				handlers |= literalHandlers[pattern];
+			}
+		}
+	}
+}
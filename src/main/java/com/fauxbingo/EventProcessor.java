@@ -1,63 +1,183 @@
 package com.fauxbingo;
 
 import com.fauxbingo.handlers.EventHandler;
+import com.fauxbingo.util.LatencyHistogram;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.events.ChatMessage;
 
 /**
  * Central event processing engine that manages and delegates events to registered handlers.
+ * Handlers are held in an immutable dispatch table that is rebuilt on every (un)registration and published
+ * through a volatile field, so dispatch takes no lock and allocates nothing, and registration is safe from any thread.
+ * Chat messages are additionally routed through a {@link ChatMessageRouter} compiled from the handlers' filters,
+ * so only handlers interested in a message are called.
+ * Every handler invocation is timed into a per-handler {@link LatencyHistogram}, see {@link #getHandlerMetrics()}.
  */
 @Slf4j
 public class EventProcessor
 {
-	private final Map<Class<?>, List<EventHandler<?>>> handlers = new HashMap<>();
+	private static final RegisteredHandler[] NO_HANDLERS = new RegisteredHandler[0];
 
-	public <T> void registerHandler(EventHandler<T> handler)
+	private volatile Map<Class<?>, RegisteredHandler[]> dispatchTable = Collections.emptyMap();
+	private volatile ChatMessageRouter chatMessageRouter;
+
+	public synchronized <T> void registerHandler(EventHandler<T> handler)
 	{
 		Class<T> eventType = handler.getEventType();
-		handlers.computeIfAbsent(eventType, k -> new ArrayList<>()).add(handler);
+		RegisteredHandler[] current = dispatchTable.getOrDefault(eventType, NO_HANDLERS);
+		RegisteredHandler[] updated = Arrays.copyOf(current, current.length + 1);
+		updated[current.length] = new RegisteredHandler(handler);
+		publish(eventType, updated);
 		log.debug("Registered handler {} for event type {}", handler.getClass().getSimpleName(), eventType.getSimpleName());
 	}
 
-	public <T> void unregisterHandler(EventHandler<T> handler)
+	public synchronized <T> void unregisterHandler(EventHandler<T> handler)
 	{
 		Class<T> eventType = handler.getEventType();
-		List<EventHandler<?>> handlerList = handlers.get(eventType);
-		if (handlerList != null)
+		RegisteredHandler[] current = dispatchTable.get(eventType);
+		if (current == null)
 		{
-			handlerList.remove(handler);
-			log.debug("Unregistered handler {} for event type {}", handler.getClass().getSimpleName(), eventType.getSimpleName());
+			return;
+		}
+
+		for (int i = 0; i < current.length; i++)
+		{
+			if (current[i].handler == handler)
+			{
+				RegisteredHandler[] updated = new RegisteredHandler[current.length - 1];
+				System.arraycopy(current, 0, updated, 0, i);
+				System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+				publish(eventType, updated);
+				log.debug("Unregistered handler {} for event type {}", handler.getClass().getSimpleName(), eventType.getSimpleName());
+				return;
+			}
 		}
 	}
 
-	@SuppressWarnings("unchecked")
+	private void publish(Class<?> eventType, RegisteredHandler[] eventHandlers)
+	{
+		Map<Class<?>, RegisteredHandler[]> table = new HashMap<>(dispatchTable);
+		if (eventHandlers.length == 0)
+		{
+			table.remove(eventType);
+		}
+		else
+		{
+			table.put(eventType, eventHandlers);
+		}
+		if (eventType == ChatMessage.class)
+		{
+			chatMessageRouter = ChatMessageRouter.of(eventHandlers);
+		}
+		dispatchTable = Collections.unmodifiableMap(table);
+	}
+
 	public <T> void processEvent(T event)
 	{
-		List<EventHandler<?>> handlerList = handlers.get(event.getClass());
-		if (handlerList != null && !handlerList.isEmpty())
+		if (event instanceof ChatMessage)
 		{
-			for (EventHandler<?> handler : handlerList)
+			ChatMessageRouter router = chatMessageRouter;
+			if (router != null)
 			{
-				try
+				// The router carries its own snapshot of the handlers its mask indexes into
+				RegisteredHandler[] chatHandlers = router.getHandlers();
+				for (long routed = router.route((ChatMessage) event); routed != 0; routed &= routed - 1)
 				{
-					((EventHandler<T>) handler).handle(event);
-				}
-				catch (Exception e)
-				{
-					log.error("Error in handler {} processing event {}", 
-						handler.getClass().getSimpleName(), 
-						event.getClass().getSimpleName(), e);
+					dispatch(chatHandlers[Long.numberOfTrailingZeros(routed)], event);
 				}
+				return;
 			}
 		}
+
+		RegisteredHandler[] eventHandlers = dispatchTable.get(event.getClass());
+		if (eventHandlers == null)
+		{
+			return;
+		}
+
+		for (RegisteredHandler handler : eventHandlers)
+		{
+			dispatch(handler, event);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> void dispatch(RegisteredHandler registered, T event)
+	{
+		long start = System.nanoTime();
+		try
+		{
+			((EventHandler<T>) registered.handler).handle(event);
+		}
+		catch (Exception e)
+		{
+			log.error("Error in handler {} processing event {}",
+				registered.name,
+				event.getClass().getSimpleName(), e);
+		}
+		finally
+		{
+			registered.latency.record(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * @return latency metrics of every registered handler, most total time first
+	 */
+	public List<HandlerMetrics> getHandlerMetrics()
+	{
+		List<HandlerMetrics> metrics = new ArrayList<>();
+		for (RegisteredHandler[] eventHandlers : dispatchTable.values())
+		{
+			for (RegisteredHandler registered : eventHandlers)
+			{
+				LatencyHistogram latency = registered.latency;
+				metrics.add(new HandlerMetrics(
+					registered.name,
+					latency.getCount(),
+					latency.getTotal(),
+					latency.getMean(),
+					latency.getValueAtPercentile(50),
+					latency.getValueAtPercentile(99),
+					latency.getMax()));
+			}
+		}
+		metrics.sort(Comparator.comparingLong(HandlerMetrics::getTotalNanos).reversed());
+		return metrics;
+	}
+
+	public void logHandlerMetrics()
+	{
+		for (HandlerMetrics metrics : getHandlerMetrics())
+		{
+			if (metrics.getInvocations() == 0)
+			{
+				continue;
+			}
+
+			log.info("{}: {} calls, {} ms total, mean {} us, p50 {} us, p99 {} us, max {} us",
+				metrics.getName(),
+				metrics.getInvocations(),
+				TimeUnit.NANOSECONDS.toMillis(metrics.getTotalNanos()),
+				TimeUnit.NANOSECONDS.toMicros(metrics.getMeanNanos()),
+				TimeUnit.NANOSECONDS.toMicros(metrics.getP50Nanos()),
+				TimeUnit.NANOSECONDS.toMicros(metrics.getP99Nanos()),
+				TimeUnit.NANOSECONDS.toMicros(metrics.getMaxNanos()));
+		}
 	}
 
-	public void clearHandlers()
+	public synchronized void clearHandlers()
 	{
-		handlers.clear();
+		dispatchTable = Collections.emptyMap();
+		chatMessageRouter = null;
 		log.debug("Cleared all event handlers");
 	}
 }
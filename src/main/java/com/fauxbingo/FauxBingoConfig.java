@@ -1,15 +1,21 @@
 package com.fauxbingo;
 
+import com.fauxbingo.services.ScreenshotFormat;
+import com.fauxbingo.services.WebhookOverflowPolicy;
 import java.awt.Color;
 import net.runelite.client.config.Config;
 import net.runelite.client.config.ConfigGroup;
 import net.runelite.client.config.ConfigItem;
 import net.runelite.client.config.ConfigSection;
 import net.runelite.client.config.Keybind;
+import net.runelite.client.config.Range;
+import net.runelite.client.config.Units;
 
-@ConfigGroup("fauxbingo")
+@ConfigGroup(FauxBingoConfig.GROUP)
 public interface FauxBingoConfig extends Config
 {
+	String GROUP = "fauxbingo";
+
 	@ConfigSection(
 		name = "Team Overlay",
 		description = "Configure team name and timestamp overlay display",
@@ -45,6 +51,14 @@ public interface FauxBingoConfig extends Config
 	)
 	String bingoTilesSection = "bingoTiles";
 
+	@ConfigSection(
+		name = "Debug",
+		description = "Diagnostics for troubleshooting plugin performance",
+		position = 5,
+		closedByDefault = true
+	)
+	String debugSection = "debug";
+
 	// ========== Team Overlay Configuration ==========
 
 	@ConfigItem(
@@ -255,6 +269,96 @@ public interface FauxBingoConfig extends Config
 		return false;
 	}
 
+	@ConfigItem(
+		keyName = "screenshotFormat",
+		name = "Screenshot Format",
+		description = "Image format of webhook screenshots. WebP falls back to JPEG if it is not supported.",
+		position = 12,
+		section = discordAlertsSection
+	)
+	default ScreenshotFormat screenshotFormat()
+	{
+		return ScreenshotFormat.PNG;
+	}
+
+	@Range(
+		min = 1,
+		max = 100
+	)
+	@Units(Units.PERCENT)
+	@ConfigItem(
+		keyName = "screenshotQuality",
+		name = "Screenshot Quality",
+		description = "Quality of JPEG and WebP screenshots, lower is smaller",
+		position = 13,
+		section = discordAlertsSection
+	)
+	default int screenshotQuality()
+	{
+		return 85;
+	}
+
+	@Units(Units.PIXELS)
+	@ConfigItem(
+		keyName = "screenshotMaxDimension",
+		name = "Screenshot Max Dimension",
+		description = "Downscale screenshots so their longest side is at most this many pixels, 0 to keep the native size",
+		position = 14,
+		section = discordAlertsSection
+	)
+	default int screenshotMaxDimension()
+	{
+		return 0;
+	}
+
+	@ConfigItem(
+		keyName = "screenshotCropToViewport",
+		name = "Crop Screenshots to Game",
+		description = "Crop screenshots to the game viewport, leaving out the side panels and chat of fixed mode",
+		position = 15,
+		section = discordAlertsSection
+	)
+	default boolean screenshotCropToViewport()
+	{
+		return false;
+	}
+
+	@ConfigItem(
+		keyName = "screenshotMaxSize",
+		name = "Screenshot Size Limit (KB)",
+		description = "Largest screenshot upload. Bigger screenshots are re-encoded as JPEG at lower quality and size until they fit, 0 for no limit.",
+		position = 16,
+		section = discordAlertsSection
+	)
+	default int screenshotMaxSize()
+	{
+		return 8000;
+	}
+
+	@ConfigItem(
+		keyName = "webhookMemoryLimit",
+		name = "Webhook Memory Limit (MB)",
+		description = "Most screenshot data kept for webhooks that are waiting to be sent, e.g. while Discord is down, 0 for no limit.",
+		position = 17,
+		section = discordAlertsSection
+	)
+	default int webhookMemoryLimit()
+	{
+		return 64;
+	}
+
+	@ConfigItem(
+		keyName = "webhookOverflowPolicy",
+		name = "Over Memory Limit",
+		description = "What happens to waiting webhooks, lowest priority first, once the memory limit is reached.",
+		position = 18,
+		section = discordAlertsSection
+	)
+	default WebhookOverflowPolicy webhookOverflowPolicy()
+	{
+		return WebhookOverflowPolicy.DROP_IMAGE;
+	}
+
 	// ========== Logging API Configuration ==========
 
 	@ConfigItem(
@@ -331,4 +435,54 @@ public interface FauxBingoConfig extends Config
 	{
 		return "";
 	}
+
+	// ========== Debug Configuration ==========
+
+	@ConfigItem(
+		keyName = "debugHandlerMetricsOverlay",
+		name = "Handler Metrics Overlay",
+		description = "Shows call counts and latencies of each event handler in an overlay",
+		position = 1,
+		section = debugSection
+	)
+	default boolean debugHandlerMetricsOverlay()
+	{
+		return false;
+	}
+
+	@ConfigItem(
+		keyName = "debugLogHandlerMetrics",
+		name = "Log Handler Metrics",
+		description = "Logs call counts and latencies of each event handler once a minute",
+		position = 2,
+		section = debugSection
+	)
+	default boolean debugLogHandlerMetrics()
+	{
+		return false;
+	}
+
+	@ConfigItem(
+		keyName = "debugWebhookMetricsOverlay",
+		name = "Webhook Metrics Overlay",
+		description = "Shows webhook delivery counts and latencies per category and webhook URL in an overlay",
+		position = 3,
+		section = debugSection
+	)
+	default boolean debugWebhookMetricsOverlay()
+	{
+		return false;
+	}
+
+	@ConfigItem(
+		keyName = "debugLogWebhookMetrics",
+		name = "Log Webhook Metrics",
+		description = "Logs webhook delivery counts and latencies per category and webhook URL once a minute",
+		position = 4,
+		section = debugSection
+	)
+	default boolean debugLogWebhookMetrics()
+	{
+		return false;
+	}
 }
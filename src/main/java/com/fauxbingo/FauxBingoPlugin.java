@@ -1,5 +1,6 @@
 package com.fauxbingo;
 
+import com.fauxbingo.handlers.ChatClassifier;
 import com.fauxbingo.handlers.CollectionLogHandler;
 import com.fauxbingo.handlers.DeathHandler;
 import com.fauxbingo.handlers.LootEventHandler;
@@ -7,8 +8,13 @@ import com.fauxbingo.handlers.ManualScreenshotHandler;
 import com.fauxbingo.handlers.PetChatHandler;
 import com.fauxbingo.handlers.RaidLootHandler;
 import com.fauxbingo.handlers.ValuableDropHandler;
+import com.fauxbingo.overlay.HandlerMetricsOverlay;
 import com.fauxbingo.overlay.TeamOverlay;
+import com.fauxbingo.overlay.WebhookMetricsOverlay;
+import com.fauxbingo.services.BingoItemRegistry;
+import com.fauxbingo.services.ImageEncoder;
 import com.fauxbingo.services.LogService;
+import com.fauxbingo.services.Outbox;
 import com.fauxbingo.services.ScreenshotService;
 import com.fauxbingo.services.WebhookService;
 import com.fauxbingo.services.WiseOldManService;
@@ -16,7 +22,11 @@ import net.runelite.client.callback.ClientThread;
 import com.fauxbingo.trackers.XpTracker;
 import com.google.gson.Gson;
 import com.google.inject.Provides;
+import java.io.File;
+import java.io.IOException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import javax.inject.Inject;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Client;
@@ -33,12 +43,14 @@ import net.runelite.api.events.UsernameChanged;
 import net.runelite.api.events.WidgetLoaded;
 import net.runelite.client.config.ConfigManager;
 import net.runelite.client.eventbus.Subscribe;
+import net.runelite.client.events.ConfigChanged;
 import net.runelite.client.events.NpcLootReceived;
 import net.runelite.client.events.PlayerLootReceived;
 import net.runelite.client.game.ItemManager;
 import net.runelite.client.input.KeyManager;
 import net.runelite.client.plugins.Plugin;
 import net.runelite.client.plugins.PluginDescriptor;
+import net.runelite.client.RuneLite;
 import net.runelite.client.ui.DrawManager;
 import net.runelite.client.ui.overlay.OverlayManager;
 import okhttp3.OkHttpClient;
@@ -51,6 +63,9 @@ import okhttp3.OkHttpClient;
 )
 public class FauxBingoPlugin extends Plugin
 {
+	// How long shutdown waits, in total, for requests already sent to be acknowledged
+	private static final long SHUTDOWN_GRACE_MILLIS = 2000;
+
 	@Inject
 	private Client client;
 
@@ -85,6 +100,9 @@ public class FauxBingoPlugin extends Plugin
 	private Gson gson;
 
 	private EventProcessor eventProcessor;
+	private BingoItemRegistry bingoItemRegistry;
+	private Outbox outbox;
+	private ImageEncoder imageEncoder;
 	private WebhookService webhookService;
 	private ScreenshotService screenshotService;
 	private WiseOldManService wiseOldManService;
@@ -97,6 +115,9 @@ public class FauxBingoPlugin extends Plugin
 	private ManualScreenshotHandler manualScreenshotHandler;
 	private DeathHandler deathHandler;
 	private XpTracker xpTracker;
+	private HandlerMetricsOverlay handlerMetricsOverlay;
+	private WebhookMetricsOverlay webhookMetricsOverlay;
+	private ScheduledFuture<?> metricsLogTask;
 
 	@Override
 	protected void startUp() throws Exception
@@ -104,21 +125,25 @@ public class FauxBingoPlugin extends Plugin
 		log.info("Faux Bingo started!");
 
 		// Initialize services
-		webhookService = new WebhookService(client, okHttpClient, executor, config);
+		bingoItemRegistry = new BingoItemRegistry(config, itemManager);
+		outbox = openOutbox();
+		imageEncoder = new ImageEncoder();
+		webhookService = new WebhookService(client, okHttpClient, executor, config, gson, imageEncoder, outbox);
 		screenshotService = new ScreenshotService(client, clientThread, drawManager, config);
 		wiseOldManService = new WiseOldManService(client, config, okHttpClient, gson);
-		logService = new LogService(client, config, okHttpClient, gson, executor);
+		logService = new LogService(client, config, okHttpClient, gson, executor, outbox);
 		eventProcessor = new EventProcessor();
 
 		// Initialize trackers
 		xpTracker = new XpTracker(client, config, wiseOldManService);
 
 		// Initialize handlers
-		lootEventHandler = new LootEventHandler(client, config, itemManager, webhookService, logService, screenshotService, executor);
-		petChatHandler = new PetChatHandler(client, config, webhookService, logService, screenshotService, executor);
-		collectionLogHandler = new CollectionLogHandler(client, config, webhookService, logService, screenshotService, executor);
-		valuableDropHandler = new ValuableDropHandler(client, config, webhookService, logService, screenshotService, executor);
-		raidLootHandler = new RaidLootHandler(client, config, webhookService, logService, screenshotService, executor, itemManager);
+		lootEventHandler = new LootEventHandler(client, config, bingoItemRegistry, itemManager, webhookService, logService, screenshotService, executor);
+		ChatClassifier chatClassifier = new ChatClassifier();
+		petChatHandler = new PetChatHandler(client, config, chatClassifier, webhookService, logService, screenshotService, executor);
+		collectionLogHandler = new CollectionLogHandler(client, config, chatClassifier, webhookService, logService, screenshotService, executor);
+		valuableDropHandler = new ValuableDropHandler(client, config, chatClassifier, bingoItemRegistry, webhookService, logService, screenshotService, executor);
+		raidLootHandler = new RaidLootHandler(client, config, chatClassifier, bingoItemRegistry, webhookService, logService, screenshotService, executor, itemManager);
 		manualScreenshotHandler = new ManualScreenshotHandler(client, config, webhookService, screenshotService, executor, keyManager);
 		deathHandler = new DeathHandler(client, logService);
 
@@ -138,8 +163,25 @@ public class FauxBingoPlugin extends Plugin
 		// Register manual screenshot hotkey
 		manualScreenshotHandler.register();
 
-		// Register overlay
+		// Register overlays
 		overlayManager.add(teamOverlay);
+		handlerMetricsOverlay = new HandlerMetricsOverlay(config, eventProcessor);
+		overlayManager.add(handlerMetricsOverlay);
+		webhookMetricsOverlay = new WebhookMetricsOverlay(config, webhookService);
+		overlayManager.add(webhookMetricsOverlay);
+
+		// Periodically dump handler and webhook metrics to the log when enabled
+		metricsLogTask = executor.scheduleAtFixedRate(() ->
+		{
+			if (config.debugLogHandlerMetrics())
+			{
+				eventProcessor.logHandlerMetrics();
+			}
+			if (config.debugLogWebhookMetrics())
+			{
+				webhookService.getMetrics().logMetrics();
+			}
+		}, 1, 1, TimeUnit.MINUTES);
 
 		log.info("Event processor initialized with all handlers");
 	}
@@ -149,8 +191,22 @@ public class FauxBingoPlugin extends Plugin
 	{
 		log.info("Faux Bingo stopped!");
 
-		// Unregister overlay
+		// Unregister overlays
 		overlayManager.remove(teamOverlay);
+		if (handlerMetricsOverlay != null)
+		{
+			overlayManager.remove(handlerMetricsOverlay);
+		}
+		if (webhookMetricsOverlay != null)
+		{
+			overlayManager.remove(webhookMetricsOverlay);
+		}
+
+		if (metricsLogTask != null)
+		{
+			metricsLogTask.cancel(false);
+			metricsLogTask = null;
+		}
 
 		// Unregister manual screenshot hotkey
 		if (manualScreenshotHandler != null)
@@ -164,6 +220,40 @@ public class FauxBingoPlugin extends Plugin
 			eventProcessor.clearHandlers();
 		}
 
+		// Stop the services sending from the outbox before the encoder they wait on, and close the outbox last so
+		// deliveries finishing during shutdown are still acknowledged. Both are stopped before waiting on either, so
+		// they share one deadline; anything not acknowledged by then is replayed on the next start.
+		if (webhookService != null)
+		{
+			webhookService.shutDown();
+		}
+
+		if (logService != null)
+		{
+			logService.shutDown();
+		}
+
+		long deadline = System.currentTimeMillis() + SHUTDOWN_GRACE_MILLIS;
+		if (webhookService != null)
+		{
+			webhookService.awaitInFlight(deadline);
+		}
+
+		if (logService != null)
+		{
+			logService.awaitInFlight(deadline);
+		}
+
+		if (imageEncoder != null)
+		{
+			imageEncoder.shutDown();
+		}
+
+		if (outbox != null)
+		{
+			outbox.close();
+		}
+
 		// Reset XP tracker
 		if (xpTracker != null)
 		{
@@ -222,6 +312,20 @@ public class FauxBingoPlugin extends Plugin
 		eventProcessor.processEvent(event);
 	}
 
+	@Subscribe
+	public void onConfigChanged(ConfigChanged event)
+	{
+		if (bingoItemRegistry != null)
+		{
+			bingoItemRegistry.onConfigChanged(event);
+		}
+
+		if (webhookService != null)
+		{
+			webhookService.onConfigChanged(event);
+		}
+	}
+
 	@Subscribe
 	public void onUsernameChanged(UsernameChanged event)
 	{
@@ -263,6 +367,19 @@ public class FauxBingoPlugin extends Plugin
 		}
 	}
 
+	private Outbox openOutbox()
+	{
+		try
+		{
+			return Outbox.open(new File(RuneLite.RUNELITE_DIR, "faux-bingo"), executor);
+		}
+		catch (IOException e)
+		{
+			log.warn("Unable to open the outbox, undelivered webhooks and logs will not survive a restart", e);
+			return Outbox.inMemory();
+		}
+	}
+
 	private void resetState()
 	{
 		if (collectionLogHandler != null)
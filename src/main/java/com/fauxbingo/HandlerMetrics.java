@@ -0,0 +1,18 @@
+package com.fauxbingo;
+
+import lombok.Value;
+
+/**
+ * Point-in-time view of the latency of one registered event handler, in nanoseconds.
+ */
+@Value
+public class HandlerMetrics
+{
+	String name;
+	long invocations;
+	long totalNanos;
+	long meanNanos;
+	long p50Nanos;
+	long p99Nanos;
+	long maxNanos;
+}
@@ -0,0 +1,30 @@
+package com.fauxbingo;
+
+import com.fauxbingo.handlers.EventHandler;
+import com.fauxbingo.util.LatencyHistogram;
+
+/**
+ * Entry in the {@link EventProcessor} dispatch table, pairing a handler with its latency measurements.
+ */
+final class RegisteredHandler
+{
+	final EventHandler<?> handler;
+	final String name;
+	final LatencyHistogram latency = new LatencyHistogram();
+
+	RegisteredHandler(EventHandler<?> handler)
+	{
+		this.handler = handler;
+		this.name = nameOf(handler);
+	}
+
+	private static String nameOf(EventHandler<?> handler)
+	{
+		// Most handlers are anonymous classes created by a factory method on the owning handler
+		Class<?> type = handler.getClass();
+		String owner = type.isAnonymousClass() && type.getEnclosingClass() != null
+			? type.getEnclosingClass().getSimpleName()
+			: type.getSimpleName();
+		return owner + " (" + handler.getEventType().getSimpleName() + ")";
+	}
+}
@@ -0,0 +1,71 @@
+package com.fauxbingo.handlers;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * Result of classifying a chat message with {@link ChatClassifier}.
+ * Only the fields relevant to the {@link Kind} are set.
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+class ChatClassification
+{
+	enum Kind
+	{
+		NONE,
+		COLLECTION_LOG,
+		PET,
+		VALUABLE_DROP,
+		RAID_COMPLETION,
+		RAID_UNIQUE,
+		RAID_DUST,
+		RAID_KIT
+	}
+
+	static final ChatClassification NONE = new ChatClassification(Kind.NONE, null, null, null, null, null, null);
+
+	Kind kind;
+	// Message with tags removed, set for every kind other than NONE
+	String cleanMessage;
+	// Collection log entry, valuable drop (including any quantity prefix) or raid unique
+	String itemName;
+	// Valuable drop value as shown in chat, e.g. "1,155,320"
+	String value;
+	// Raid unique recipient, sanitized
+	String recipient;
+	// Raid completion, null if the completion message did not carry a kill count
+	RaidType raidType;
+	Integer killCount;
+
+	static ChatClassification collectionLog(String cleanMessage, String itemName)
+	{
+		return new ChatClassification(Kind.COLLECTION_LOG, cleanMessage, itemName, null, null, null, null);
+	}
+
+	static ChatClassification pet(String cleanMessage)
+	{
+		return new ChatClassification(Kind.PET, cleanMessage, null, null, null, null, null);
+	}
+
+	static ChatClassification valuableDrop(String cleanMessage, String itemName, String value)
+	{
+		return new ChatClassification(Kind.VALUABLE_DROP, cleanMessage, itemName, value, null, null, null);
+	}
+
+	static ChatClassification raidCompletion(String cleanMessage, RaidType raidType, Integer killCount)
+	{
+		return new ChatClassification(Kind.RAID_COMPLETION, cleanMessage, null, null, null, raidType, killCount);
+	}
+
+	static ChatClassification raidUnique(String cleanMessage, String recipient, String itemName)
+	{
+		return new ChatClassification(Kind.RAID_UNIQUE, cleanMessage, itemName, null, recipient, null, null);
+	}
+
+	static ChatClassification raidRecipients(Kind kind, String cleanMessage)
+	{
+		return new ChatClassification(kind, cleanMessage, null, null, null, null, null);
+	}
+}
@@ -0,0 +1,243 @@
+package com.fauxbingo.handlers;
+
+import com.google.common.collect.ImmutableList;
+import net.runelite.api.events.ChatMessage;
+import net.runelite.client.util.Text;
+
+/**
+ * Classifies game chat messages for the chat handlers in a single pass.
+ * Tags are removed once and the message is matched against each known message shape in turn, so the fields a
+ * handler needs are parsed once no matter how many handlers look at the message. The result for the last
+ * message is kept, so handlers dispatched the same event share one classification.
+ * Must only be used from the client thread.
+ */
+public class ChatClassifier
+{
+	static final String COLLECTION_LOG_TEXT = "New item added to your collection log: ";
+	static final ImmutableList<String> PET_MESSAGES = ImmutableList.of(
+		"You have a funny feeling like you're being followed",
+		"You feel something weird sneaking into your backpack",
+		"You have a funny feeling like you would have been followed"
+	);
+	static final String VALUABLE_DROP_TEXT = "Valuable drop: ";
+	static final String COX_COMPLETION_TEXT = "Your completed Chambers of Xeric count is:";
+	static final String TOB_COMPLETION_TEXT = "Your completed Theatre of Blood";
+	static final String TOA_COMPLETION_TEXT = "completion count is";
+	static final String TOA_UNIQUE_TEXT = "Loot recipient: ";
+	static final String COX_UNIQUE_SEPARATOR = " - ";
+	static final String TOB_UNIQUE_TEXT = " found something special: ";
+	static final String COX_DUST_TEXT = "Dust recipients: ";
+	static final String COX_KIT_TEXT = "Twisted Kit recipients: ";
+
+	private static final String VALUABLE_DROP_SUFFIX = " coins)";
+
+	private ChatMessage lastEvent;
+	private String lastMessage;
+	private ChatClassification lastClassification = ChatClassification.NONE;
+
+	ChatClassification classify(ChatMessage event)
+	{
+		String message = event.getMessage();
+		// The message is compared by identity too, in case the event object is reused
+		if (event != lastEvent || message != lastMessage)
+		{
+			lastClassification = message == null ? ChatClassification.NONE : classify(message);
+			lastEvent = event;
+			lastMessage = message;
+		}
+		return lastClassification;
+	}
+
+	ChatClassification classify(String message)
+	{
+		String cleanMessage = Text.removeTags(message);
+
+		if (cleanMessage.startsWith(COLLECTION_LOG_TEXT))
+		{
+			return ChatClassification.collectionLog(cleanMessage, cleanMessage.substring(COLLECTION_LOG_TEXT.length()));
+		}
+
+		for (String petMessage : PET_MESSAGES)
+		{
+			if (cleanMessage.contains(petMessage))
+			{
+				return ChatClassification.pet(cleanMessage);
+			}
+		}
+
+		ChatClassification valuableDrop = classifyValuableDrop(cleanMessage);
+		if (valuableDrop != null)
+		{
+			return valuableDrop;
+		}
+
+		return classifyRaid(cleanMessage);
+	}
+
+	/**
+	 * Parses "Valuable drop: [quantity x ]name (value coins)", the name is everything before the first " (".
+	 */
+	private static ChatClassification classifyValuableDrop(String cleanMessage)
+	{
+		int textStart = cleanMessage.lastIndexOf(VALUABLE_DROP_TEXT);
+		if (textStart < 0 || !cleanMessage.endsWith(VALUABLE_DROP_SUFFIX))
+		{
+			return null;
+		}
+
+		String drop = cleanMessage.substring(textStart + VALUABLE_DROP_TEXT.length());
+		int valueStart = drop.lastIndexOf('(');
+		if (valueStart < 1)
+		{
+			return null;
+		}
+
+		String value = drop.substring(valueStart + 1, drop.length() - VALUABLE_DROP_SUFFIX.length());
+		if (!isCoinValue(value))
+		{
+			return null;
+		}
+
+		int nameEnd = drop.indexOf(" (");
+		String itemName = nameEnd < 0 ? drop : drop.substring(0, nameEnd);
+		return ChatClassification.valuableDrop(cleanMessage, itemName, value);
+	}
+
+	/**
+	 * Digits optionally separated by single commas, e.g. "1,155,320".
+	 */
+	private static boolean isCoinValue(String value)
+	{
+		if (value.isEmpty() || !isDigit(value.charAt(0)))
+		{
+			return false;
+		}
+
+		for (int i = 1; i < value.length(); i++)
+		{
+			char c = value.charAt(i);
+			if (c == ',' ? value.charAt(i - 1) == ',' : !isDigit(c))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * A completion message is always a completion, with no raid type or kill count if it did not carry a count; unlike
+	 * the handler this replaced it is not also checked for a unique drop, which no completion message is. Uniques are
+	 * parsed from the message with tags removed, so a coloured line parses the same as a plain one and the item name
+	 * does not keep a closing tag.
+	 */
+	private static ChatClassification classifyRaid(String cleanMessage)
+	{
+		// Completion messages mark the start of a new raid loot sequence
+		boolean cox = cleanMessage.startsWith(COX_COMPLETION_TEXT);
+		boolean tob = !cox && cleanMessage.startsWith(TOB_COMPLETION_TEXT);
+		boolean toa = !cox && !tob && cleanMessage.contains("Tombs of Amascut") && cleanMessage.contains(TOA_COMPLETION_TEXT);
+		if (cox || tob || toa)
+		{
+			Integer killCount = firstNumber(cleanMessage);
+			RaidType raidType = null;
+			if (killCount != null)
+			{
+				if (cox)
+				{
+					raidType = cleanMessage.contains("Challenge Mode") ? RaidType.COX_CM : RaidType.COX;
+				}
+				else if (tob)
+				{
+					raidType = cleanMessage.contains("Hard Mode") ? RaidType.TOB_HM :
+						(cleanMessage.contains("Story Mode") ? RaidType.TOB_SM : RaidType.TOB);
+				}
+				else if (cleanMessage.contains("Expert Mode"))
+				{
+					raidType = RaidType.TOA_EXPERT;
+				}
+				else if (cleanMessage.contains("Entry Mode"))
+				{
+					raidType = RaidType.TOA_ENTRY;
+				}
+				else
+				{
+					raidType = RaidType.TOA_NORMAL;
+				}
+			}
+			return ChatClassification.raidCompletion(cleanMessage, raidType, killCount);
+		}
+
+		// "Loot recipient: <name> - <item>", checked before the general CoX form which it also matches
+		if (cleanMessage.startsWith(TOA_UNIQUE_TEXT))
+		{
+			ChatClassification unique = classifyUnique(cleanMessage, TOA_UNIQUE_TEXT.length(), COX_UNIQUE_SEPARATOR);
+			if (unique != null)
+			{
+				return unique;
+			}
+		}
+
+		// "<name> - <item>"
+		ChatClassification coxUnique = classifyUnique(cleanMessage, 0, COX_UNIQUE_SEPARATOR);
+		if (coxUnique != null)
+		{
+			return coxUnique;
+		}
+
+		if (cleanMessage.startsWith(COX_DUST_TEXT))
+		{
+			return ChatClassification.raidRecipients(ChatClassification.Kind.RAID_DUST, cleanMessage);
+		}
+
+		if (cleanMessage.startsWith(COX_KIT_TEXT))
+		{
+			return ChatClassification.raidRecipients(ChatClassification.Kind.RAID_KIT, cleanMessage);
+		}
+
+		// "<name> found something special: <item>"
+		ChatClassification tobUnique = classifyUnique(cleanMessage, 0, TOB_UNIQUE_TEXT);
+		return tobUnique != null ? tobUnique : ChatClassification.NONE;
+	}
+
+	/**
+	 * Splits "<recipient><separator><item>" at the last separator, both parts must be non-empty.
+	 */
+	private static ChatClassification classifyUnique(String cleanMessage, int start, String separator)
+	{
+		int separatorStart = cleanMessage.lastIndexOf(separator);
+		int itemStart = separatorStart + separator.length();
+		if (separatorStart <= start || itemStart >= cleanMessage.length())
+		{
+			return null;
+		}
+
+		String recipient = Text.sanitize(cleanMessage.substring(start, separatorStart)).trim();
+		String itemName = cleanMessage.substring(itemStart).trim();
+		return ChatClassification.raidUnique(cleanMessage, recipient, itemName);
+	}
+
+	private static Integer firstNumber(String message)
+	{
+		int start = 0;
+		while (start < message.length() && !isDigit(message.charAt(start)))
+		{
+			start++;
+		}
+		if (start == message.length())
+		{
+			return null;
+		}
+
+		int end = start;
+		while (end < message.length() && isDigit(message.charAt(end)))
+		{
+			end++;
+		}
+		return Integer.valueOf(message.substring(start, end));
+	}
+
+	private static boolean isDigit(char c)
+	{
+		return c >= '0' && c <= '9';
+	}
+}
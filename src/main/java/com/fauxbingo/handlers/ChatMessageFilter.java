@@ -0,0 +1,38 @@
+package com.fauxbingo.handlers;
+
+import java.util.List;
+import java.util.Set;
+import lombok.Builder;
+import lombok.Singular;
+import lombok.Value;
+import net.runelite.api.ChatMessageType;
+
+/**
+ * Declares which chat messages a {@link ChatMessageHandler} is interested in, so that messages no handler
+ * cares about can be rejected before dispatch. A message is accepted when its type is one of {@code types}
+ * and the raw message starts with one of {@code prefixes} or contains one of {@code substrings}.
+ * An empty set of types accepts every type, and no prefixes or substrings accepts every message of an accepted type.
+ */
+@Value
+@Builder
+public class ChatMessageFilter
+{
+	@Singular
+	Set<ChatMessageType> types;
+
+	@Singular
+	List<String> prefixes;
+
+	@Singular
+	List<String> substrings;
+
+	public boolean acceptsType(ChatMessageType type)
+	{
+		return types.isEmpty() || types.contains(type);
+	}
+
+	public boolean hasLiterals()
+	{
+		return !prefixes.isEmpty() || !substrings.isEmpty();
+	}
+}
@@ -0,0 +1,18 @@
+package com.fauxbingo.handlers;
+
+import net.runelite.api.events.ChatMessage;
+
+/**
+ * Chat message handler that declares up front which messages it handles.
+ * The filter is only used to skip dispatch; handlers still validate the messages they receive.
+ */
+public interface ChatMessageHandler extends EventHandler<ChatMessage>
+{
+	ChatMessageFilter getFilter();
+
+	@Override
+	default Class<ChatMessage> getEventType()
+	{
+		return ChatMessage.class;
+	}
+}
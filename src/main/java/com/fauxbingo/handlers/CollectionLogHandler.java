@@ -24,10 +24,15 @@ import net.runelite.client.util.Text;
 @Slf4j
 public class CollectionLogHandler
 {
-	private static final String COLLECTION_LOG_TEXT = "New item added to your collection log: ";
+	private static final ChatMessageFilter CHAT_FILTER = ChatMessageFilter.builder()
+		.type(ChatMessageType.GAMEMESSAGE)
+		.type(ChatMessageType.SPAM)
+		.prefix(ChatClassifier.COLLECTION_LOG_TEXT)
+		.build();
 
 	private final Client client;
 	private final FauxBingoConfig config;
+	private final ChatClassifier chatClassifier;
 	private final WebhookService webhookService;
 	private final LogService logService;
 	private final ScreenshotService screenshotService;
@@ -38,6 +43,7 @@ public class CollectionLogHandler
 	public CollectionLogHandler(
 		Client client,
 		FauxBingoConfig config,
+		ChatClassifier chatClassifier,
 		WebhookService webhookService,
 		LogService logService,
 		ScreenshotService screenshotService,
@@ -45,15 +51,16 @@ public class CollectionLogHandler
 	{
 		this.client = client;
 		this.config = config;
+		this.chatClassifier = chatClassifier;
 		this.webhookService = webhookService;
 		this.logService = logService;
 		this.screenshotService = screenshotService;
 		this.executor = executor;
 	}
 
-	public EventHandler<ChatMessage> createChatHandler()
+	public ChatMessageHandler createChatHandler()
 	{
-		return new EventHandler<ChatMessage>()
+		return new ChatMessageHandler()
 		{
 			@Override
 			public void handle(ChatMessage event)
@@ -68,19 +75,18 @@ public class CollectionLogHandler
 					return;
 				}
 
-				String chatMessage = event.getMessage();
-				if (chatMessage.startsWith(COLLECTION_LOG_TEXT) && 
+				ChatClassification classification = chatClassifier.classify(event);
+				if (classification.getKind() == ChatClassification.Kind.COLLECTION_LOG &&
 					client.getVarbitValue(Varbits.COLLECTION_LOG_NOTIFICATION) == 1)
 				{
-					String entry = Text.removeTags(chatMessage).substring(COLLECTION_LOG_TEXT.length());
-					sendCollectionLogNotification(entry);
+					sendCollectionLogNotification(classification.getItemName());
 				}
 			}
 
 			@Override
-			public Class<ChatMessage> getEventType()
+			public ChatMessageFilter getFilter()
 			{
-				return ChatMessage.class;
+				return CHAT_FILTER;
 			}
 		};
 	}
@@ -1,12 +1,11 @@
 package com.fauxbingo.handlers;
 
 import com.fauxbingo.FauxBingoConfig;
+import com.fauxbingo.services.BingoItemRegistry;
 import com.fauxbingo.services.LogService;
 import com.fauxbingo.services.ScreenshotService;
 import com.fauxbingo.services.WebhookService;
 import com.fauxbingo.services.data.LootRecord;
-import com.fauxbingo.util.LootMatcher;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.ScheduledExecutorService;
@@ -27,6 +26,7 @@ public class LootEventHandler
 {
 	private final Client client;
 	private final FauxBingoConfig config;
+	private final BingoItemRegistry bingoItemRegistry;
 	private final ItemManager itemManager;
 	private final WebhookService webhookService;
 	private final LogService logService;
@@ -36,6 +36,7 @@ public class LootEventHandler
 	public LootEventHandler(
 		Client client,
 		FauxBingoConfig config,
+		BingoItemRegistry bingoItemRegistry,
 		ItemManager itemManager,
 		WebhookService webhookService,
 		LogService logService,
@@ -44,6 +45,7 @@ public class LootEventHandler
 	{
 		this.client = client;
 		this.config = config;
+		this.bingoItemRegistry = bingoItemRegistry;
 		this.itemManager = itemManager;
 		this.webhookService = webhookService;
 		this.logService = logService;
@@ -151,22 +153,11 @@ public class LootEventHandler
 
 	private void checkOtherBingoItems(String source, Collection<ItemStack> items)
 	{
-		String otherItemsConfig = config.otherBingoItems();
-		if (otherItemsConfig == null || otherItemsConfig.isEmpty())
-		{
-			return;
-		}
-
-		List<String> otherBingoItems = Arrays.stream(otherItemsConfig.split("[\n,]"))
-			.map(String::trim)
-			.filter(s -> !s.isEmpty())
-			.collect(Collectors.toList());
-
 		for (ItemStack itemStack : items)
 		{
-			String itemName = itemManager.getItemComposition(itemStack.getId()).getName();
-			if (LootMatcher.matchesAny(itemName, otherBingoItems))
+			if (bingoItemRegistry.matches(BingoItemRegistry.BingoList.OTHER, itemStack.getId()))
 			{
+				String itemName = itemManager.getItemComposition(itemStack.getId()).getName();
 				sendBingoNotification(source, itemName, itemStack.getQuantity());
 			}
 		}
@@ -5,7 +5,6 @@ import com.fauxbingo.services.LogService;
 import com.fauxbingo.services.ScreenshotService;
 import com.fauxbingo.services.WebhookService;
 import com.fauxbingo.services.data.LootRecord;
-import com.google.common.collect.ImmutableList;
 import java.util.Collections;
 import java.util.concurrent.ScheduledExecutorService;
 import lombok.extern.slf4j.Slf4j;
@@ -17,16 +16,17 @@ import net.runelite.api.events.ChatMessage;
  * Handles chat message events to detect pet drops.
  */
 @Slf4j
-public class PetChatHandler implements EventHandler<ChatMessage>
+public class PetChatHandler implements ChatMessageHandler
 {
-	private static final ImmutableList<String> PET_MESSAGES = ImmutableList.of(
-		"You have a funny feeling like you're being followed",
-		"You feel something weird sneaking into your backpack",
-		"You have a funny feeling like you would have been followed"
-	);
+	private static final ChatMessageFilter FILTER = ChatMessageFilter.builder()
+		.type(ChatMessageType.GAMEMESSAGE)
+		.type(ChatMessageType.SPAM)
+		.substrings(ChatClassifier.PET_MESSAGES)
+		.build();
 
 	private final Client client;
 	private final FauxBingoConfig config;
+	private final ChatClassifier chatClassifier;
 	private final WebhookService webhookService;
 	private final LogService logService;
 	private final ScreenshotService screenshotService;
@@ -35,6 +35,7 @@ public class PetChatHandler implements EventHandler<ChatMessage>
 	public PetChatHandler(
 		Client client,
 		FauxBingoConfig config,
+		ChatClassifier chatClassifier,
 		WebhookService webhookService,
 		LogService logService,
 		ScreenshotService screenshotService,
@@ -42,6 +43,7 @@ public class PetChatHandler implements EventHandler<ChatMessage>
 	{
 		this.client = client;
 		this.config = config;
+		this.chatClassifier = chatClassifier;
 		this.webhookService = webhookService;
 		this.logService = logService;
 		this.screenshotService = screenshotService;
@@ -61,19 +63,16 @@ public class PetChatHandler implements EventHandler<ChatMessage>
 			return;
 		}
 
-		String message = event.getMessage();
-
-		// Check if message indicates a pet drop
-		if (PET_MESSAGES.stream().anyMatch(message::contains))
+		if (chatClassifier.classify(event).getKind() == ChatClassification.Kind.PET)
 		{
 			handlePetDrop();
 		}
 	}
 
 	@Override
-	public Class<ChatMessage> getEventType()
+	public ChatMessageFilter getFilter()
 	{
-		return ChatMessage.class;
+		return FILTER;
 	}
 
 	private void handlePetDrop()
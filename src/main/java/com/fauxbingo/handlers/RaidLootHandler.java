@@ -1,19 +1,17 @@
 package com.fauxbingo.handlers;
 
 import com.fauxbingo.FauxBingoConfig;
+import com.fauxbingo.services.BingoItemRegistry;
 import com.fauxbingo.services.LogService;
 import com.fauxbingo.services.ScreenshotService;
 import com.fauxbingo.services.WebhookService;
 import com.fauxbingo.services.data.LootRecord;
-import com.fauxbingo.util.LootMatcher;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -36,12 +34,19 @@ import net.runelite.client.util.Text;
 @Slf4j
 public class RaidLootHandler
 {
-	private static final Pattern COX_UNIQUE_MESSAGE_PATTERN = Pattern.compile("(.+) - (.+)");
-	private static final String COX_DUST_MESSAGE_TEXT = "Dust recipients: ";
-	private static final String COX_KIT_MESSAGE_TEXT = "Twisted Kit recipients: ";
-	private static final Pattern TOB_UNIQUE_MESSAGE_PATTERN = Pattern.compile("(.+) found something special: (.+)");
-	private static final Pattern TOA_UNIQUE_MESSAGE_PATTERN = Pattern.compile("Loot recipient: (.+) - (.+)");
-	private static final Pattern KC_MESSAGE_PATTERN = Pattern.compile("([0-9]+)");
+	// Literals that occur in every message handleRaidChatMessage acts on, before tags are removed
+	private static final ChatMessageFilter CHAT_FILTER = ChatMessageFilter.builder()
+		.type(ChatMessageType.GAMEMESSAGE)
+		.type(ChatMessageType.SPAM)
+		.type(ChatMessageType.TRADE)
+		.type(ChatMessageType.FRIENDSCHATNOTIFICATION)
+		.substring("Your completed ")
+		.substring(ChatClassifier.TOA_COMPLETION_TEXT)
+		.substring(ChatClassifier.COX_UNIQUE_SEPARATOR)
+		.substring(ChatClassifier.TOB_UNIQUE_TEXT)
+		.substring(ChatClassifier.COX_DUST_TEXT)
+		.substring(ChatClassifier.COX_KIT_TEXT)
+		.build();
 
 	private static final int CoX_Interface_Id = InterfaceID.RAIDS_REWARDS;
 	private static final int ToB_Interface_Id = InterfaceID.TOB_CHESTS;
@@ -51,20 +56,10 @@ public class RaidLootHandler
 	private static final int ToB_Container_Id = 612;
 	private static final int ToA_Container_Id = 801;
 
-	enum RaidType
-	{
-		COX,
-		COX_CM,
-		TOB,
-		TOB_SM,
-		TOB_HM,
-		TOA_ENTRY,
-		TOA_NORMAL,
-		TOA_EXPERT
-	}
-
 	private final Client client;
 	private final FauxBingoConfig config;
+	private final ChatClassifier chatClassifier;
+	private final BingoItemRegistry bingoItemRegistry;
 	private final WebhookService webhookService;
 	private final LogService logService;
 	private final ScreenshotService screenshotService;
@@ -80,6 +75,8 @@ public class RaidLootHandler
 	public RaidLootHandler(
 		Client client,
 		FauxBingoConfig config,
+		ChatClassifier chatClassifier,
+		BingoItemRegistry bingoItemRegistry,
 		WebhookService webhookService,
 		LogService logService,
 		ScreenshotService screenshotService,
@@ -88,6 +85,8 @@ public class RaidLootHandler
 	{
 		this.client = client;
 		this.config = config;
+		this.chatClassifier = chatClassifier;
+		this.bingoItemRegistry = bingoItemRegistry;
 		this.webhookService = webhookService;
 		this.logService = logService;
 		this.screenshotService = screenshotService;
@@ -95,9 +94,9 @@ public class RaidLootHandler
 		this.itemManager = itemManager;
 	}
 
-	public EventHandler<ChatMessage> createChatHandler()
+	public ChatMessageHandler createChatHandler()
 	{
-		return new EventHandler<ChatMessage>()
+		return new ChatMessageHandler()
 		{
 			@Override
 			public void handle(ChatMessage event)
@@ -115,14 +114,13 @@ public class RaidLootHandler
 					return;
 				}
 
-				String chatMessage = event.getMessage();
-				handleRaidChatMessage(chatMessage);
+				handleRaidChatMessage(chatClassifier.classify(event));
 			}
 
 			@Override
-			public Class<ChatMessage> getEventType()
+			public ChatMessageFilter getFilter()
 			{
-				return ChatMessage.class;
+				return CHAT_FILTER;
 			}
 		};
 	}
@@ -182,122 +180,45 @@ public class RaidLootHandler
 		};
 	}
 
-	private void handleRaidChatMessage(String chatMessage)
+	private void handleRaidChatMessage(ChatClassification classification)
 	{
-		String cleanMessage = Text.removeTags(chatMessage);
-
-		// Check for completion messages - these mark the start of a new raid loot sequence
-		if (cleanMessage.startsWith("Your completed Chambers of Xeric count is:") ||
-			cleanMessage.startsWith("Your completed Theatre of Blood") ||
-			(cleanMessage.contains("Tombs of Amascut") && cleanMessage.contains("completion count is")))
-		{
-			// Reset state for new raid loot
-			resetState();
-		}
-
-		// Check for COX completion
-		if (cleanMessage.startsWith("Your completed Chambers of Xeric count is:"))
-		{
-			Matcher matcher = KC_MESSAGE_PATTERN.matcher(cleanMessage);
-			if (matcher.find())
-			{
-				raidType = cleanMessage.contains("Challenge Mode") ? RaidType.COX_CM : RaidType.COX;
-				raidKc = Integer.valueOf(matcher.group());
-				return;
-			}
-		}
-
-		// Check for TOB completion
-		if (cleanMessage.startsWith("Your completed Theatre of Blood"))
-		{
-			Matcher matcher = KC_MESSAGE_PATTERN.matcher(cleanMessage);
-			if (matcher.find())
-			{
-				raidType = cleanMessage.contains("Hard Mode") ? RaidType.TOB_HM :
-					(cleanMessage.contains("Story Mode") ? RaidType.TOB_SM : RaidType.TOB);
-				raidKc = Integer.valueOf(matcher.group());
-				return;
-			}
-		}
-
-		// Check for TOA completion
-		if (cleanMessage.contains("Tombs of Amascut") && cleanMessage.contains("completion count is"))
+		switch (classification.getKind())
 		{
-			Matcher matcher = KC_MESSAGE_PATTERN.matcher(cleanMessage);
-			if (matcher.find())
-			{
-				if (cleanMessage.contains("Expert Mode"))
+			case RAID_COMPLETION:
+				// Completion messages mark the start of a new raid loot sequence
+				resetState();
+				if (classification.getKillCount() != null)
 				{
-					raidType = RaidType.TOA_EXPERT;
+					raidType = classification.getRaidType();
+					raidKc = classification.getKillCount();
 				}
-				else if (cleanMessage.contains("Entry Mode"))
+				break;
+			case RAID_UNIQUE:
+				if (classification.getRecipient().equalsIgnoreCase(getLocalPlayerName()))
 				{
-					raidType = RaidType.TOA_ENTRY;
+					rareDrops.add(classification.getItemName());
 				}
-				else
+				break;
+			case RAID_DUST:
+				if (isLocalPlayerRecipient(classification.getCleanMessage()))
 				{
-					raidType = RaidType.TOA_NORMAL;
+					rareDrops.add("Metamorphic dust");
 				}
-				raidKc = Integer.valueOf(matcher.group());
-				return;
-			}
-		}
-
-		// Check for TOA unique drops
-		Matcher toaUnique = TOA_UNIQUE_MESSAGE_PATTERN.matcher(chatMessage);
-		if (toaUnique.matches())
-		{
-			final String lootRecipient = Text.sanitize(toaUnique.group(1)).trim();
-			if (lootRecipient.equalsIgnoreCase(getLocalPlayerName()))
-			{
-				rareDrops.add(toaUnique.group(2).trim());
-			}
-			return;
-		}
-
-		// Check for COX unique drops
-		Matcher coxUnique = COX_UNIQUE_MESSAGE_PATTERN.matcher(chatMessage);
-		if (coxUnique.matches())
-		{
-			final String lootRecipient = Text.sanitize(coxUnique.group(1)).trim();
-			if (lootRecipient.equalsIgnoreCase(getLocalPlayerName()))
-			{
-				rareDrops.add(coxUnique.group(2).trim());
-			}
-			return;
-		}
-
-		// Check for COX metamorphic dust
-		if (cleanMessage.startsWith(COX_DUST_MESSAGE_TEXT))
-		{
-			if (cleanMessage.toLowerCase().contains(getLocalPlayerName().toLowerCase()))
-			{
-				rareDrops.add("Metamorphic dust");
-			}
-			return;
-		}
-
-		// Check for COX twisted kit
-		if (cleanMessage.startsWith(COX_KIT_MESSAGE_TEXT))
-		{
-			if (cleanMessage.toLowerCase().contains(getLocalPlayerName().toLowerCase()))
-			{
-				rareDrops.add("Twisted ancestral colour kit");
-			}
-			return;
+				break;
+			case RAID_KIT:
+				if (isLocalPlayerRecipient(classification.getCleanMessage()))
+				{
+					rareDrops.add("Twisted ancestral colour kit");
+				}
+				break;
+			default:
+				break;
 		}
+	}
 
-		// Check for TOB unique drops
-		Matcher tobUnique = TOB_UNIQUE_MESSAGE_PATTERN.matcher(chatMessage);
-		if (tobUnique.matches())
-		{
-			final String lootRecipient = Text.sanitize(tobUnique.group(1)).trim();
-			if (lootRecipient.equalsIgnoreCase(getLocalPlayerName()))
-			{
-				rareDrops.add(tobUnique.group(2).trim());
-			}
-			return;
-		}
+	private boolean isLocalPlayerRecipient(String recipientsMessage)
+	{
+		return recipientsMessage.toLowerCase().contains(getLocalPlayerName().toLowerCase());
 	}
 
 	private void handleRaidRewardWidget(int groupId)
@@ -345,8 +266,7 @@ public class RaidLootHandler
 
 	private void processRaidLoot(String raidName, ItemContainer itemContainer)
 	{
-		List<String> raidBingoItemsConfig = getBingoItemsForRaid(raidName);
-		List<String> otherBingoItemsConfig = getOtherBingoItems();
+		BingoItemRegistry.BingoList raidBingoList = getBingoListForRaid(raidName);
 
 		long totalValue = 0;
 		List<LootRecord.LootItem> allItems = new ArrayList<>();
@@ -371,7 +291,8 @@ public class RaidLootHandler
 
 				allItems.add(lootItem);
 
-				if (LootMatcher.matchesAny(itemName, raidBingoItemsConfig) || LootMatcher.matchesAny(itemName, otherBingoItemsConfig))
+				if ((raidBingoList != null && bingoItemRegistry.matches(raidBingoList, itemId))
+					|| bingoItemRegistry.matches(BingoItemRegistry.BingoList.OTHER, itemId))
 				{
 					bingoItemsFound.add(lootItem);
 				}
@@ -395,31 +316,21 @@ public class RaidLootHandler
 		}
 	}
 
-	private List<String> getBingoItemsForRaid(String raidName)
+	private BingoItemRegistry.BingoList getBingoListForRaid(String raidName)
 	{
-		String configItems = "";
 		if (raidName.contains("Chambers of Xeric"))
 		{
-			configItems = config.coxBingoItems();
+			return BingoItemRegistry.BingoList.COX;
 		}
 		else if (raidName.contains("Theatre of Blood"))
 		{
-			configItems = config.tobBingoItems();
+			return BingoItemRegistry.BingoList.TOB;
 		}
 		else if (raidName.contains("Tombs of Amascut"))
 		{
-			configItems = config.toaBingoItems();
+			return BingoItemRegistry.BingoList.TOA;
 		}
-
-		if (configItems == null || configItems.isEmpty())
-		{
-			return Collections.emptyList();
-		}
-
-		return Arrays.stream(configItems.split("[\n,]"))
-			.map(String::trim)
-			.filter(s -> !s.isEmpty())
-			.collect(Collectors.toList());
+		return null;
 	}
 
 	private void sendConsolidatedRaidNotification(String raidName, List<LootRecord.LootItem> allItems, List<LootRecord.LootItem> bingoItems, long totalValue)
@@ -538,20 +449,6 @@ public class RaidLootHandler
 		logService.log("RAID_LOOT", lootRecord);
 	}
 
-	private List<String> getOtherBingoItems()
-	{
-		String otherItems = config.otherBingoItems();
-		if (otherItems == null || otherItems.isEmpty())
-		{
-			return Collections.emptyList();
-		}
-
-		return Arrays.stream(otherItems.split("[\n,]"))
-			.map(String::trim)
-			.filter(s -> !s.isEmpty())
-			.collect(Collectors.toList());
-	}
-
 	private void logBingoLoot(String itemName, int quantity, String raidName, Integer kc)
 	{
 		LootRecord lootRecord = LootRecord.builder()
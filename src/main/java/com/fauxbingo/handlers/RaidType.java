@@ -0,0 +1,13 @@
+package com.fauxbingo.handlers;
+
+enum RaidType
+{
+	COX,
+	COX_CM,
+	TOB,
+	TOB_SM,
+	TOB_HM,
+	TOA_ENTRY,
+	TOA_NORMAL,
+	TOA_EXPERT
+}
@@ -1,19 +1,16 @@
 package com.fauxbingo.handlers;
 
 import com.fauxbingo.FauxBingoConfig;
+import com.fauxbingo.services.BingoItemRegistry;
 import com.fauxbingo.services.LogService;
 import com.fauxbingo.services.ScreenshotService;
 import com.fauxbingo.services.WebhookService;
 import com.fauxbingo.services.data.LootRecord;
-import com.fauxbingo.util.LootMatcher;
-import java.lang.reflect.Array;
-import java.util.Arrays;
+import com.fauxbingo.util.CompiledBingoList;
 import java.util.Collections;
-import java.util.List;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.ChatMessageType;
 import net.runelite.api.Client;
@@ -24,14 +21,20 @@ import net.runelite.api.events.ChatMessage;
  * Detects when the game announces a valuable drop. Logs all; webhook only when >= minLootValue.
  */
 @Slf4j
-public class ValuableDropHandler implements EventHandler<ChatMessage>
+public class ValuableDropHandler implements ChatMessageHandler
 {
-	private static final Pattern VALUABLE_DROP_PATTERN = Pattern.compile(
-		".*Valuable drop: ([^<>]+?\\(((?:\\d+,?)+) coins\\))(?:</col>)?"
-	);
+	private static final Pattern QUANTITY_PATTERN = Pattern.compile("^([0-9,]+) x ");
+
+	private static final ChatMessageFilter FILTER = ChatMessageFilter.builder()
+		.type(ChatMessageType.GAMEMESSAGE)
+		.type(ChatMessageType.SPAM)
+		.substring(ChatClassifier.VALUABLE_DROP_TEXT)
+		.build();
 
 	private final Client client;
 	private final FauxBingoConfig config;
+	private final ChatClassifier chatClassifier;
+	private final BingoItemRegistry bingoItemRegistry;
 	private final WebhookService webhookService;
 	private final LogService logService;
 	private final ScreenshotService screenshotService;
@@ -40,6 +43,8 @@ public class ValuableDropHandler implements EventHandler<ChatMessage>
 	public ValuableDropHandler(
 		Client client,
 		FauxBingoConfig config,
+		ChatClassifier chatClassifier,
+		BingoItemRegistry bingoItemRegistry,
 		WebhookService webhookService,
 		LogService logService,
 		ScreenshotService screenshotService,
@@ -47,6 +52,8 @@ public class ValuableDropHandler implements EventHandler<ChatMessage>
 	{
 		this.client = client;
 		this.config = config;
+		this.chatClassifier = chatClassifier;
+		this.bingoItemRegistry = bingoItemRegistry;
 		this.webhookService = webhookService;
 		this.logService = logService;
 		this.screenshotService = screenshotService;
@@ -66,15 +73,12 @@ public class ValuableDropHandler implements EventHandler<ChatMessage>
 			return;
 		}
 
-		String chatMessage = event.getMessage();
-		Matcher matcher = VALUABLE_DROP_PATTERN.matcher(chatMessage);
-		
-		if (matcher.matches())
+		ChatClassification classification = chatClassifier.classify(event);
+		if (classification.getKind() == ChatClassification.Kind.VALUABLE_DROP)
 		{
-			long valuableDropValue = Long.parseLong(matcher.group(2).replaceAll(",", ""));
-			String[] valuableDrop = matcher.group(1).split(" \\(");
-			String valuableDropName = (String) Array.get(valuableDrop, 0);
-			String valuableDropValueString = matcher.group(2);
+			String valuableDropName = classification.getItemName();
+			String valuableDropValueString = classification.getValue();
+			long valuableDropValue = Long.parseLong(valuableDropValueString.replace(",", ""));
 
 			logValuableDrop(valuableDropName, valuableDropValueString);
 			if (valuableDropValue >= config.minLootValue())
@@ -88,23 +92,17 @@ public class ValuableDropHandler implements EventHandler<ChatMessage>
 
 	private void checkOtherBingoItems(String itemNameWithQuantity)
 	{
-		String otherItemsConfig = config.otherBingoItems();
-		if (otherItemsConfig == null || otherItemsConfig.isEmpty())
+		CompiledBingoList otherBingoItems = bingoItemRegistry.get(BingoItemRegistry.BingoList.OTHER);
+		if (otherBingoItems.isEmpty())
 		{
 			return;
 		}
 
-		List<String> otherBingoItems = Arrays.stream(otherItemsConfig.split("[\n,]"))
-			.map(String::trim)
-			.filter(s -> !s.isEmpty())
-			.collect(Collectors.toList());
-
 		String itemName = cleanItemName(itemNameWithQuantity);
-		if (LootMatcher.matchesAny(itemName, otherBingoItems))
+		if (otherBingoItems.matches(itemName))
 		{
 			int quantity = 1;
-			Pattern quantityPattern = Pattern.compile("^([0-9,]+) x ");
-			Matcher quantityMatcher = quantityPattern.matcher(itemNameWithQuantity);
+			Matcher quantityMatcher = QUANTITY_PATTERN.matcher(itemNameWithQuantity);
 			if (quantityMatcher.find())
 			{
 				quantity = Integer.parseInt(quantityMatcher.group(1).replaceAll(",", ""));
@@ -131,9 +129,9 @@ public class ValuableDropHandler implements EventHandler<ChatMessage>
 	}
 
 	@Override
-	public Class<ChatMessage> getEventType()
+	public ChatMessageFilter getFilter()
 	{
-		return ChatMessage.class;
+		return FILTER;
 	}
 
 	private void sendValuableDropNotification(String itemName, String itemValue)
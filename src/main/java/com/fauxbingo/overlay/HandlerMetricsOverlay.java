@@ -0,0 +1,64 @@
+package com.fauxbingo.overlay;
+
+import com.fauxbingo.EventProcessor;
+import com.fauxbingo.FauxBingoConfig;
+import com.fauxbingo.HandlerMetrics;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.util.concurrent.TimeUnit;
+import net.runelite.client.ui.overlay.OverlayPanel;
+import net.runelite.client.ui.overlay.OverlayPosition;
+import net.runelite.client.ui.overlay.components.LineComponent;
+import net.runelite.client.ui.overlay.components.TitleComponent;
+
+/**
+ * Debug overlay listing each event handler's call count and p99/max latency, slowest in total first.
+ */
+public class HandlerMetricsOverlay extends OverlayPanel
+{
+	private static final int MAX_HANDLERS_SHOWN = 15;
+
+	private final FauxBingoConfig config;
+	private final EventProcessor eventProcessor;
+
+	public HandlerMetricsOverlay(FauxBingoConfig config, EventProcessor eventProcessor)
+	{
+		this.config = config;
+		this.eventProcessor = eventProcessor;
+		setPosition(OverlayPosition.TOP_LEFT);
+	}
+
+	@Override
+	public Dimension render(Graphics2D graphics)
+	{
+		if (!config.debugHandlerMetricsOverlay())
+		{
+			return null;
+		}
+
+		panelComponent.getChildren().add(TitleComponent.builder()
+			.text("Handler latency (calls, p99/max us)")
+			.color(Color.WHITE)
+			.build());
+
+		int shown = 0;
+		for (HandlerMetrics metrics : eventProcessor.getHandlerMetrics())
+		{
+			if (shown++ == MAX_HANDLERS_SHOWN)
+			{
+				break;
+			}
+
+			panelComponent.getChildren().add(LineComponent.builder()
+				.left(metrics.getName())
+				.right(metrics.getInvocations() + ", "
+					+ TimeUnit.NANOSECONDS.toMicros(metrics.getP99Nanos()) + "/"
+					+ TimeUnit.NANOSECONDS.toMicros(metrics.getMaxNanos()))
+				.build());
+		}
+
+		panelComponent.setPreferredSize(new Dimension(320, 0));
+		return super.render(graphics);
+	}
+}
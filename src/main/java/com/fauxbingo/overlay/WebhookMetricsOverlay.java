@@ -0,0 +1,73 @@
+package com.fauxbingo.overlay;
+
+import com.fauxbingo.FauxBingoConfig;
+import com.fauxbingo.services.WebhookCategoryMetrics;
+import com.fauxbingo.services.WebhookService;
+import com.fauxbingo.services.WebhookUrlMetrics;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import net.runelite.client.ui.overlay.OverlayPanel;
+import net.runelite.client.ui.overlay.OverlayPosition;
+import net.runelite.client.ui.overlay.components.LineComponent;
+import net.runelite.client.ui.overlay.components.TitleComponent;
+
+/**
+ * Debug overlay listing webhook deliveries and p99/max latency of each category that has seen webhooks, then each
+ * webhook URL.
+ */
+public class WebhookMetricsOverlay extends OverlayPanel
+{
+	private final FauxBingoConfig config;
+	private final WebhookService webhookService;
+
+	public WebhookMetricsOverlay(FauxBingoConfig config, WebhookService webhookService)
+	{
+		this.config = config;
+		this.webhookService = webhookService;
+		setPosition(OverlayPosition.TOP_LEFT);
+	}
+
+	@Override
+	public Dimension render(Graphics2D graphics)
+	{
+		if (!config.debugWebhookMetricsOverlay())
+		{
+			return null;
+		}
+
+		panelComponent.getChildren().add(TitleComponent.builder()
+			.text("Webhooks (sent/queued, p99/max ms)")
+			.color(Color.WHITE)
+			.build());
+
+		for (WebhookCategoryMetrics metrics : webhookService.getMetrics().getCategoryMetrics())
+		{
+			if (metrics.getQueued() == 0)
+			{
+				continue;
+			}
+
+			long lost = metrics.getFailed() + metrics.getDropped() + metrics.getScreenshotsDropped();
+			panelComponent.getChildren().add(LineComponent.builder()
+				.left(metrics.getCategory().name())
+				.right(metrics.getDelivered() + "/" + metrics.getQueued() + ", "
+					+ metrics.getP99Millis() + "/" + metrics.getMaxMillis())
+				.rightColor(lost > 0 ? Color.ORANGE : Color.WHITE)
+				.build());
+		}
+
+		for (WebhookUrlMetrics metrics : webhookService.getMetrics().getUrlMetrics())
+		{
+			panelComponent.getChildren().add(LineComponent.builder()
+				.left(metrics.getLabel())
+				.right(metrics.getDelivered() + "/" + metrics.getRequests() + ", "
+					+ metrics.getP99Millis() + "/" + metrics.getMaxMillis())
+				.rightColor(metrics.getAttempts() > metrics.getRequests() ? Color.ORANGE : Color.WHITE)
+				.build());
+		}
+
+		panelComponent.setPreferredSize(new Dimension(320, 0));
+		return super.render(graphics);
+	}
+}
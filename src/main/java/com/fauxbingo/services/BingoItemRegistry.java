@@ -0,0 +1,128 @@
+package com.fauxbingo.services;
+
+import com.fauxbingo.FauxBingoConfig;
+import com.fauxbingo.util.CompiledBingoList;
+import com.fauxbingo.util.ItemMatchCache;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.events.ConfigChanged;
+import net.runelite.client.game.ItemManager;
+
+/**
+ * Holds the compiled bingo item lists shared by all handlers.
+ * Each list is parsed once, on first use or when its config value changes, and handed out as an immutable snapshot.
+ * Per item ID results are cached as a bit mask over all lists, so repeated drops of the same item skip name lookup
+ * and matching entirely until the next config change.
+ */
+@Slf4j
+public class BingoItemRegistry
+{
+	public enum BingoList
+	{
+		COX("coxBingoItems", FauxBingoConfig::coxBingoItems),
+		TOB("tobBingoItems", FauxBingoConfig::tobBingoItems),
+		TOA("toaBingoItems", FauxBingoConfig::toaBingoItems),
+		OTHER("otherBingoItems", FauxBingoConfig::otherBingoItems);
+
+		private final String configKey;
+		private final Function<FauxBingoConfig, String> configValue;
+
+		BingoList(String configKey, Function<FauxBingoConfig, String> configValue)
+		{
+			this.configKey = configKey;
+			this.configValue = configValue;
+		}
+
+		public String getConfigKey()
+		{
+			return configKey;
+		}
+	}
+
+	private static final BingoList[] BINGO_LISTS = BingoList.values();
+
+	private final FauxBingoConfig config;
+	private final ItemManager itemManager;
+	private final AtomicReferenceArray<CompiledBingoList> lists = new AtomicReferenceArray<>(BINGO_LISTS.length);
+	// Replaced, not cleared, on config change so a reader holding the old cache never sees a partial reset
+	private volatile ItemMatchCache matchCache = new ItemMatchCache();
+
+	public BingoItemRegistry(FauxBingoConfig config, ItemManager itemManager)
+	{
+		this.config = config;
+		this.itemManager = itemManager;
+	}
+
+	/**
+	 * Get the compiled snapshot of a bingo list. Safe to call from any thread.
+	 */
+	public CompiledBingoList get(BingoList list)
+	{
+		CompiledBingoList compiled = lists.get(list.ordinal());
+		if (compiled == null)
+		{
+			compiled = CompiledBingoList.parse(list.configValue.apply(config));
+			// A concurrent config change wins over a lazily compiled value
+			if (!lists.compareAndSet(list.ordinal(), null, compiled))
+			{
+				compiled = lists.get(list.ordinal());
+			}
+		}
+		return compiled;
+	}
+
+	/**
+	 * Check whether an item is on the given bingo list. Must be called from the client thread.
+	 */
+	public boolean matches(BingoList list, int itemId)
+	{
+		if (get(list).isEmpty())
+		{
+			return false;
+		}
+
+		ItemMatchCache cache = matchCache;
+		int mask = cache.get(itemId);
+		if (mask == ItemMatchCache.MISSING)
+		{
+			mask = computeMatches(itemManager.getItemComposition(itemId).getName());
+			cache.put(itemId, mask);
+		}
+		return (mask & (1 << list.ordinal())) != 0;
+	}
+
+	private int computeMatches(String itemName)
+	{
+		int mask = 0;
+		for (BingoList list : BINGO_LISTS)
+		{
+			if (get(list).matches(itemName))
+			{
+				mask |= 1 << list.ordinal();
+			}
+		}
+		return mask;
+	}
+
+	public void onConfigChanged(ConfigChanged event)
+	{
+		if (!FauxBingoConfig.GROUP.equals(event.getGroup()))
+		{
+			return;
+		}
+
+		for (BingoList list : BINGO_LISTS)
+		{
+			if (list.configKey.equals(event.getKey()))
+			{
+				CompiledBingoList compiled = CompiledBingoList.parse(event.getNewValue());
+				lists.set(list.ordinal(), compiled);
+				// Published after the list so a new cache is only ever filled from the new lists
+				matchCache = new ItemMatchCache();
+				log.debug("Recompiled {} bingo list with {} items", list, compiled.getItems().size());
+				return;
+			}
+		}
+	}
+}
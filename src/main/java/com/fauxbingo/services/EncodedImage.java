@@ -0,0 +1,21 @@
+package com.fauxbingo.services;
+
+import lombok.Value;
+
+/**
+ * A screenshot encoded for upload.
+ */
+@Value
+public class EncodedImage
+{
+	byte[] bytes;
+	ScreenshotFormat format;
+
+	/**
+	 * @param index position of the image among a message's attachments
+	 */
+	public String getFileName(int index)
+	{
+		return "screenshot-" + index + "." + format.getExtension();
+	}
+}
@@ -0,0 +1,40 @@
+package com.fauxbingo.services;
+
+import java.io.IOException;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+/**
+ * Multipart part that streams an encoded screenshot straight from its bytes.
+ * One instance is shared by the request to every webhook URL and by retries, so the image is never copied per send.
+ */
+class EncodedImageBody extends RequestBody
+{
+	private final EncodedImage image;
+	private final MediaType contentType;
+
+	EncodedImageBody(EncodedImage image)
+	{
+		this.image = image;
+		this.contentType = MediaType.parse(image.getFormat().getMimeType());
+	}
+
+	@Override
+	public MediaType contentType()
+	{
+		return contentType;
+	}
+
+	@Override
+	public long contentLength()
+	{
+		return image.getBytes().length;
+	}
+
+	@Override
+	public void writeTo(BufferedSink sink) throws IOException
+	{
+		sink.write(image.getBytes());
+	}
+}
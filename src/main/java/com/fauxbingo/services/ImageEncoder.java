@@ -0,0 +1,396 @@
+package com.fauxbingo.services;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Encodes webhook screenshots on a small dedicated worker pool, so compression happens once per screenshot as soon as
+ * it is captured rather than on the thread that flushes webhooks.
+ * The pool's queue is bounded, both in tasks and in the size of the rasters the queued tasks keep alive. A screenshot
+ * that does not fit waits in the encoder's own backlog and is handed to the pool as earlier encodes finish, rather than
+ * being encoded on the submitting thread, which may be the shared executor that sends webhooks. Only once the backlog
+ * is full too, or the encoder has shut down, is a screenshot skipped. The raster is only referenced until it has been
+ * encoded.
+ * Images are downscaled and encoded per an {@link ImageEncodingProfile}. When the result is over the profile's byte
+ * budget a lossless image is re-encoded as JPEG, then quality is lowered, then the image is shrunk until it fits.
+ */
+@Slf4j
+public class ImageEncoder
+{
+	private static final int MAX_THREADS = 2;
+	private static final int MAX_QUEUED = 16;
+	static final long MAX_QUEUED_RASTER_BYTES = 64L * 1024 * 1024;
+	static final long MAX_WAITING_RASTER_BYTES = 256L * 1024 * 1024;
+
+	private static final int MIN_QUALITY = 40;
+	private static final int QUALITY_STEP = 15;
+	private static final double SHRINK_FACTOR = 0.75;
+	private static final int MIN_DIMENSION = 320;
+
+	private final Executor executor;
+	private final long maxQueuedRasterBytes;
+	private final long maxWaitingRasterBytes;
+
+	// Guarded by waiting
+	private final Deque<Job> waiting = new ArrayDeque<>();
+	private long queuedRasterBytes;
+	private long waitingRasterBytes;
+	private boolean shutDown;
+
+	@Value
+	private static class Job
+	{
+		BufferedImage image;
+		ImageEncodingProfile profile;
+		long rasterBytes;
+		CompletableFuture<EncodedImage> result;
+	}
+
+	public ImageEncoder()
+	{
+		this(createPool());
+	}
+
+	ImageEncoder(Executor executor)
+	{
+		this(executor, MAX_QUEUED_RASTER_BYTES, MAX_WAITING_RASTER_BYTES);
+	}
+
+	ImageEncoder(Executor executor, long maxQueuedRasterBytes, long maxWaitingRasterBytes)
+	{
+		this.executor = executor;
+		this.maxQueuedRasterBytes = maxQueuedRasterBytes;
+		this.maxWaitingRasterBytes = maxWaitingRasterBytes;
+	}
+
+	private static ThreadPoolExecutor createPool()
+	{
+		int threads = Math.max(1, Math.min(MAX_THREADS, Runtime.getRuntime().availableProcessors() - 1));
+		AtomicInteger threadNumber = new AtomicInteger();
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+			new ArrayBlockingQueue<>(MAX_QUEUED),
+			runnable ->
+			{
+				Thread thread = new Thread(runnable, "faux-bingo-image-encoder-" + threadNumber.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+		pool.allowCoreThreadTimeOut(true);
+		return pool;
+	}
+
+	/**
+	 * Start encoding an image.
+	 *
+	 * @return the encoded image, completing with null if encoding failed, the image could not fit the byte budget, or
+	 * the encoder had no room left for it
+	 */
+	public CompletableFuture<EncodedImage> encode(BufferedImage image, ImageEncodingProfile profile)
+	{
+		Job job = new Job(image, profile, rasterBytes(image), new CompletableFuture<>());
+		synchronized (waiting)
+		{
+			if (shutDown)
+			{
+				return skip(job, "Screenshot encoder is shut down, sending without a screenshot");
+			}
+			if (waitingRasterBytes + job.getRasterBytes() > maxWaitingRasterBytes && !waiting.isEmpty())
+			{
+				return skip(job, "Screenshot encoding is backed up, sending without a screenshot");
+			}
+			waiting.addLast(job);
+			waitingRasterBytes += job.getRasterBytes();
+		}
+		submitWaiting();
+		return job.getResult();
+	}
+
+	/**
+	 * Hand waiting jobs to the pool, oldest first, while their rasters fit the queued budget. A job larger than the
+	 * budget goes on its own.
+	 */
+	private void submitWaiting()
+	{
+		while (true)
+		{
+			Job job;
+			synchronized (waiting)
+			{
+				job = waiting.peekFirst();
+				if (shutDown || job == null
+					|| (queuedRasterBytes > 0 && queuedRasterBytes + job.getRasterBytes() > maxQueuedRasterBytes))
+				{
+					return;
+				}
+				waiting.removeFirst();
+				waitingRasterBytes -= job.getRasterBytes();
+				queuedRasterBytes += job.getRasterBytes();
+			}
+
+			try
+			{
+				executor.execute(() -> run(job));
+			}
+			catch (RejectedExecutionException e)
+			{
+				synchronized (waiting)
+				{
+					queuedRasterBytes -= job.getRasterBytes();
+					if (!shutDown && queuedRasterBytes > 0)
+					{
+						// The pool's queue is full, retried once a queued encode finishes
+						waiting.addFirst(job);
+						waitingRasterBytes += job.getRasterBytes();
+						return;
+					}
+				}
+				skip(job, "Screenshot encoder is unavailable, sending without a screenshot");
+			}
+		}
+	}
+
+	private void run(Job job)
+	{
+		try
+		{
+			job.getResult().complete(encodeOrNull(job.getImage(), job.getProfile()));
+		}
+		catch (RuntimeException e)
+		{
+			job.getResult().completeExceptionally(e);
+		}
+		finally
+		{
+			synchronized (waiting)
+			{
+				queuedRasterBytes -= job.getRasterBytes();
+			}
+			submitWaiting();
+		}
+	}
+
+	private static CompletableFuture<EncodedImage> skip(Job job, String reason)
+	{
+		log.warn(reason);
+		job.getResult().complete(null);
+		return job.getResult();
+	}
+
+	long getQueuedRasterBytes()
+	{
+		synchronized (waiting)
+		{
+			return queuedRasterBytes;
+		}
+	}
+
+	long getWaitingRasterBytes()
+	{
+		synchronized (waiting)
+		{
+			return waitingRasterBytes;
+		}
+	}
+
+	private static EncodedImage encodeOrNull(BufferedImage image, ImageEncodingProfile profile)
+	{
+		try
+		{
+			return encodeWithinBudget(image, profile);
+		}
+		catch (IOException e)
+		{
+			log.error("Error converting image to bytes", e);
+			return null;
+		}
+	}
+
+	/**
+	 * @return the size of the raster backing an image, which for a cropped image is that of the whole frame
+	 */
+	static long rasterBytes(BufferedImage image)
+	{
+		DataBuffer buffer = image.getRaster().getDataBuffer();
+		return (long) buffer.getSize() * buffer.getNumBanks() * DataBuffer.getDataTypeSize(buffer.getDataType()) / 8;
+	}
+
+	public void shutDown()
+	{
+		List<Job> skipped;
+		synchronized (waiting)
+		{
+			shutDown = true;
+			skipped = new ArrayList<>(waiting);
+			waiting.clear();
+			waitingRasterBytes = 0;
+		}
+		if (!skipped.isEmpty())
+		{
+			log.warn("Screenshot encoder shut down with {} screenshots waiting, sending without them", skipped.size());
+		}
+		// Completed outside the lock, as their continuations run on this thread
+		for (Job job : skipped)
+		{
+			job.getResult().complete(null);
+		}
+
+		if (executor instanceof ExecutorService)
+		{
+			((ExecutorService) executor).shutdown();
+		}
+	}
+
+	static EncodedImage encodeWithinBudget(BufferedImage image, ImageEncodingProfile profile) throws IOException
+	{
+		ScreenshotFormat format = profile.getFormat() != null ? profile.getFormat() : ScreenshotFormat.PNG;
+		if (!format.isAvailable())
+		{
+			format = ScreenshotFormat.JPEG;
+		}
+		int quality = Math.max(1, Math.min(100, profile.getQuality()));
+		int maxBytes = profile.getMaxBytes();
+
+		BufferedImage scaled = downscale(image, profile.getMaxDimension());
+		EncodedImage encoded = write(scaled, format, quality);
+		if (maxBytes <= 0 || encoded.getBytes().length <= maxBytes)
+		{
+			return encoded;
+		}
+
+		if (!format.isLossy())
+		{
+			format = ScreenshotFormat.JPEG;
+			encoded = write(scaled, format, quality);
+		}
+
+		while (encoded.getBytes().length > maxBytes)
+		{
+			if (quality > MIN_QUALITY)
+			{
+				quality = Math.max(MIN_QUALITY, quality - QUALITY_STEP);
+			}
+			else
+			{
+				int longestSide = (int) (Math.max(scaled.getWidth(), scaled.getHeight()) * SHRINK_FACTOR);
+				if (longestSide < MIN_DIMENSION)
+				{
+					log.warn("Screenshot could not be encoded within {} bytes, sending without it", maxBytes);
+					return null;
+				}
+				scaled = downscale(scaled, longestSide);
+			}
+			encoded = write(scaled, format, quality);
+		}
+		return encoded;
+	}
+
+	/**
+	 * Scale an image so its longest side is at most maxDimension, keeping the aspect ratio.
+	 * Large reductions halve the image repeatedly with bilinear filtering before the final step, which approximates
+	 * an area average without the cost of a full area filter.
+	 */
+	static BufferedImage downscale(BufferedImage image, int maxDimension)
+	{
+		int longestSide = Math.max(image.getWidth(), image.getHeight());
+		if (maxDimension <= 0 || longestSide <= maxDimension)
+		{
+			return image;
+		}
+
+		double scale = (double) maxDimension / longestSide;
+		int targetWidth = Math.max(1, (int) Math.round(image.getWidth() * scale));
+		int targetHeight = Math.max(1, (int) Math.round(image.getHeight() * scale));
+
+		BufferedImage scaled = image;
+		int width = image.getWidth();
+		int height = image.getHeight();
+		do
+		{
+			width = Math.max(targetWidth, width / 2);
+			height = Math.max(targetHeight, height / 2);
+			scaled = resize(scaled, width, height);
+		}
+		while (width != targetWidth || height != targetHeight);
+		return scaled;
+	}
+
+	private static BufferedImage resize(BufferedImage image, int width, int height)
+	{
+		BufferedImage resized = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = resized.createGraphics();
+		try
+		{
+			graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			graphics.drawImage(image, 0, 0, width, height, null);
+		}
+		finally
+		{
+			graphics.dispose();
+		}
+		return resized;
+	}
+
+	private static EncodedImage write(BufferedImage image, ScreenshotFormat format, int quality) throws IOException
+	{
+		if (format.isLossy() && image.getColorModel().hasAlpha())
+		{
+			// The JPEG writer rejects images with an alpha channel
+			image = resize(image, image.getWidth(), image.getHeight());
+		}
+
+		Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format.getFormatName());
+		if (!writers.hasNext())
+		{
+			throw new IOException("No image writer for " + format.getFormatName());
+		}
+
+		ImageWriter writer = writers.next();
+		try (ByteArrayOutputStream out = new ByteArrayOutputStream();
+			ImageOutputStream imageOut = ImageIO.createImageOutputStream(out))
+		{
+			ImageWriteParam param = writer.getDefaultWriteParam();
+			if (format.isLossy() && param.canWriteCompressed())
+			{
+				param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+				if (param.getCompressionType() == null && param.getCompressionTypes() != null)
+				{
+					param.setCompressionType(param.getCompressionTypes()[0]);
+				}
+				param.setCompressionQuality(quality / 100f);
+			}
+
+			writer.setOutput(imageOut);
+			writer.write(null, new IIOImage(image, null, null), param);
+			imageOut.flush();
+			return new EncodedImage(out.toByteArray(), format);
+		}
+		finally
+		{
+			writer.dispose();
+		}
+	}
+}
@@ -0,0 +1,33 @@
+package com.fauxbingo.services;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * How a screenshot should be encoded for upload.
+ */
+@Value
+@Builder
+public class ImageEncodingProfile
+{
+	public static final ImageEncodingProfile PNG = ImageEncodingProfile.builder().build();
+
+	@Builder.Default
+	ScreenshotFormat format = ScreenshotFormat.PNG;
+
+	/**
+	 * Quality of lossy formats, from 1 to 100.
+	 */
+	@Builder.Default
+	int quality = 85;
+
+	/**
+	 * Longest side in pixels the image is downscaled to, 0 to keep the native size.
+	 */
+	int maxDimension;
+
+	/**
+	 * Largest encoded size in bytes, 0 for no limit.
+	 */
+	int maxBytes;
+}
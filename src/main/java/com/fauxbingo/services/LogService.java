@@ -4,12 +4,15 @@ import com.fauxbingo.FauxBingoConfig;
 import com.fauxbingo.services.data.LogEntry;
 import com.google.gson.Gson;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Client;
 import net.runelite.api.GameState;
@@ -22,7 +25,8 @@ import okhttp3.RequestBody;
 import okhttp3.Response;
 
 /**
- * Service responsible for queueing and sending data logs to an external API for post Bingo statistics
+ * Service responsible for queueing and sending data logs to an external API for post Bingo statistics.
+ * Entries are journaled to the {@link Outbox} until the API accepts them, and retried on the next flush if it fails.
  */
 @Slf4j
 public class LogService
@@ -37,16 +41,43 @@ public class LogService
 	private final FauxBingoConfig config;
 	private final OkHttpClient okHttpClient;
 	private final Gson gson;
-	private final Queue<LogEntry> queue = new ConcurrentLinkedQueue<>();
+	private final Outbox outbox;
+	private final Queue<QueuedLog> queue = new ConcurrentLinkedQueue<>();
+	private final Queue<QueuedLog> deathQueue = new ConcurrentLinkedQueue<>();
+	private final ScheduledFuture<?> flushTask;
+	// Guarded by this
+	private int inFlight;
+	private volatile boolean shutDown;
 
-	public LogService(Client client, FauxBingoConfig config, OkHttpClient okHttpClient, Gson gson, ScheduledExecutorService executor)
+	/**
+	 * A serialized entry and the id of its outbox entry.
+	 */
+	@Value
+	private static class QueuedLog
+	{
+		long outboxId;
+		String json;
+	}
+
+	public LogService(Client client, FauxBingoConfig config, OkHttpClient okHttpClient, Gson gson, ScheduledExecutorService executor, Outbox outbox)
 	{
 		this.client = client;
 		this.config = config;
 		this.okHttpClient = okHttpClient;
 		this.gson = gson;
+		this.outbox = outbox;
+
+		// Entries left over from the last session go out with the next flush
+		for (Outbox.Entry entry : outbox.pending(Outbox.Channel.LOG))
+		{
+			queue.add(new QueuedLog(entry.getId(), new String(entry.getPayload(), StandardCharsets.UTF_8)));
+		}
+		for (Outbox.Entry entry : outbox.pending(Outbox.Channel.DEATH))
+		{
+			deathQueue.add(new QueuedLog(entry.getId(), new String(entry.getPayload(), StandardCharsets.UTF_8)));
+		}
 
-		executor.scheduleAtFixedRate(this::flushQueue, FLUSH_INTERVAL_SECONDS, FLUSH_INTERVAL_SECONDS, TimeUnit.SECONDS);
+		flushTask = executor.scheduleAtFixedRate(this::flushQueue, FLUSH_INTERVAL_SECONDS, FLUSH_INTERVAL_SECONDS, TimeUnit.SECONDS);
 	}
 
 	/**
@@ -54,7 +85,7 @@ public class LogService
 	 */
 	public void log(String type, Object data)
 	{
-		if (!config.enableLoggingApi() || client.getGameState() != GameState.LOGGED_IN)
+		if (shutDown || !config.enableLoggingApi() || client.getGameState() != GameState.LOGGED_IN)
 		{
 			return;
 		}
@@ -74,7 +105,7 @@ public class LogService
 			{
 				return;
 			}
-			sendDeath(entry, url);
+			sendDeath(journal(Outbox.Channel.DEATH, entry), url);
 			return;
 		}
 
@@ -82,23 +113,81 @@ public class LogService
 		{
 			return;
 		}
-		queue.add(entry);
+		queue.add(journal(Outbox.Channel.LOG, entry));
 		if (queue.size() >= BATCH_SIZE)
 		{
 			flushQueue();
 		}
 	}
 
+	private QueuedLog journal(Outbox.Channel channel, LogEntry entry)
+	{
+		String json = gson.toJson(entry);
+		long outboxId = outbox.append(channel, json.getBytes(StandardCharsets.UTF_8));
+		return new QueuedLog(outboxId, json);
+	}
+
+	/**
+	 * Stop logging and cancel the periodic flush. Entries not yet sent stay in the outbox for the next start; requests
+	 * already sent carry on, see {@link #awaitInFlight(long)}.
+	 */
+	public void shutDown()
+	{
+		shutDown = true;
+		if (flushTask != null)
+		{
+			flushTask.cancel(false);
+		}
+	}
+
+	/**
+	 * Wait until the requests already sent have finished, so they are acknowledged before the outbox is closed.
+	 *
+	 * @param deadline when to stop waiting, in {@link System#currentTimeMillis()} time
+	 */
+	public synchronized void awaitInFlight(long deadline)
+	{
+		long remaining;
+		while (inFlight > 0 && (remaining = deadline - System.currentTimeMillis()) > 0)
+		{
+			try
+			{
+				wait(remaining);
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+		if (inFlight > 0)
+		{
+			log.warn("{} log requests were still being sent at shutdown", inFlight);
+		}
+	}
+
 	private synchronized void flushQueue()
 	{
+		if (shutDown)
+		{
+			return;
+		}
+
+		String deathsUrl = buildUrl(DEATHS_PATH);
+		QueuedLog death;
+		while (!deathsUrl.isEmpty() && (death = deathQueue.poll()) != null)
+		{
+			sendDeath(death, deathsUrl);
+		}
+
 		String logsUrl = buildUrl(LOGS_PATH);
 		if (queue.isEmpty() || logsUrl.isEmpty())
 		{
 			return;
 		}
 
-		List<LogEntry> batch = new ArrayList<>();
-		LogEntry entry;
+		List<QueuedLog> batch = new ArrayList<>();
+		QueuedLog entry;
 		while (batch.size() < BATCH_SIZE && (entry = queue.poll()) != null)
 		{
 			batch.add(entry);
@@ -122,59 +211,124 @@ public class LogService
 		return base.replaceAll("/$", "") + path;
 	}
 
-	private void sendBatch(List<LogEntry> batch, String url)
+	private void sendBatch(List<QueuedLog> batch, String url)
 	{
-		String json = gson.toJson(batch);
+		// Entries are kept serialized, so a replayed entry is sent exactly as it was logged
+		StringBuilder json = new StringBuilder("[");
+		for (QueuedLog entry : batch)
+		{
+			if (json.length() > 1)
+			{
+				json.append(',');
+			}
+			json.append(entry.getJson());
+		}
+		json.append(']');
+
 		Request request = new Request.Builder()
 			.url(url)
-			.post(RequestBody.create(JSON, json))
+			.post(RequestBody.create(JSON, json.toString()))
 			.build();
 
+		started();
 		okHttpClient.newCall(request).enqueue(new Callback()
 		{
 			@Override
 			public void onFailure(Call call, IOException e)
 			{
 				log.error("Error sending batch to API", e);
+				queue.addAll(batch);
+				finished();
 			}
 
 			@Override
 			public void onResponse(Call call, Response response) throws IOException
 			{
-				if (!response.isSuccessful())
+				try
 				{
-					log.error("API returned error: {} {}", response.code(), response.message());
+					if (!response.isSuccessful())
+					{
+						log.error("API returned error: {} {}", response.code(), response.message());
+					}
+					if (isRetryable(response))
+					{
+						queue.addAll(batch);
+					}
+					else
+					{
+						batch.forEach(entry -> outbox.ack(entry.getOutboxId()));
+					}
+					response.close();
+				}
+				finally
+				{
+					finished();
 				}
-				response.close();
 			}
 		});
 	}
 
-	private void sendDeath(LogEntry entry, String url)
+	private void sendDeath(QueuedLog entry, String url)
 	{
-		String json = gson.toJson(entry);
 		Request request = new Request.Builder()
 			.url(url)
-			.post(RequestBody.create(JSON, json))
+			.post(RequestBody.create(JSON, entry.getJson()))
 			.build();
 
+		started();
 		okHttpClient.newCall(request).enqueue(new Callback()
 		{
 			@Override
 			public void onFailure(Call call, IOException e)
 			{
 				log.error("Error sending death log to API", e);
+				deathQueue.add(entry);
+				finished();
 			}
 
 			@Override
 			public void onResponse(Call call, Response response) throws IOException
 			{
-				if (!response.isSuccessful())
+				try
+				{
+					if (!response.isSuccessful())
+					{
+						log.error("Deaths API returned error: {} {}", response.code(), response.message());
+					}
+					if (isRetryable(response))
+					{
+						deathQueue.add(entry);
+					}
+					else
+					{
+						outbox.ack(entry.getOutboxId());
+					}
+					response.close();
+				}
+				finally
 				{
-					log.error("Deaths API returned error: {} {}", response.code(), response.message());
+					finished();
 				}
-				response.close();
 			}
 		});
 	}
+
+	private synchronized void started()
+	{
+		inFlight++;
+	}
+
+	private synchronized void finished()
+	{
+		inFlight--;
+		notifyAll();
+	}
+
+	/**
+	 * Server errors and rate limits may succeed later, anything else is acknowledged so it is not sent again.
+	 */
+	private static boolean isRetryable(Response response)
+	{
+		return response.code() == 429 || response.code() >= 500;
+	}
 }
@@ -0,0 +1,626 @@
+package com.fauxbingo.services;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.CRC32;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append-only journal of outgoing webhooks and log entries, so they survive a client crash or a failed delivery.
+ * Entries are appended to a memory-mapped file and acknowledged once delivered. Entries that were never acknowledged
+ * are handed back by {@link #pending(Channel)} when the outbox is next opened.
+ * Two files are used in turn: compaction copies the live entries into the idle file and gives it a higher generation,
+ * so a crash part way through leaves the previous file in charge. Every record is checksummed and its first byte is
+ * written last, so a torn append reads as the end of the journal.
+ * Appends are not forced to disk; a crash of the client keeps them in the page cache.
+ * Compaction runs on an executor and copies outside the lock, so appends and acknowledgements only wait for the
+ * short swap of files at its end.
+ */
+@Slf4j
+public class Outbox implements Closeable
+{
+	public enum Channel
+	{
+		WEBHOOK,
+		LOG,
+		DEATH
+	}
+
+	@Value
+	public static class Entry
+	{
+		long id;
+		Channel channel;
+		byte[] payload;
+	}
+
+	static final String[] FILE_NAMES = {"outbox-a.dat", "outbox-b.dat"};
+	static final int INITIAL_CAPACITY = 1 << 20;
+	static final int MAX_CAPACITY = 1 << 28;
+	static final int COMPACT_MIN_BYTES = 256 * 1024;
+
+	private static final int MAGIC = 0x46424F58;
+	// magic, unused, generation
+	static final int HEADER_SIZE = 16;
+	private static final byte END = 0;
+	private static final byte ENTRY = 1;
+	private static final byte ACK = 2;
+	// kind, id, channel, payload length, crc
+	static final int ENTRY_HEADER_SIZE = 18;
+	// kind, id, crc
+	private static final int ACK_SIZE = 13;
+
+	private static class Record
+	{
+		private final Channel channel;
+		private final int offset;
+		private final int size;
+
+		private Record(Channel channel, int offset, int size)
+		{
+			this.channel = channel;
+			this.offset = offset;
+			this.size = size;
+		}
+	}
+
+	private final FileChannel[] files;
+	private final MappedByteBuffer[] buffers;
+	private final Executor compactor;
+	private final CRC32 crc = new CRC32();
+	private Map<Long, Record> live = new LinkedHashMap<>();
+	// Acknowledged entries whose ACK record did not fit the journal, left behind by the next compaction
+	private final Set<Long> unrecordedAcks = new HashSet<>();
+	private int active;
+	private long generation;
+	private int position;
+	private int liveBytes;
+	private long nextId = 1;
+	private boolean compacting;
+	private boolean closed;
+
+	private Outbox(FileChannel[] files, MappedByteBuffer[] buffers, Executor compactor)
+	{
+		this.files = files;
+		this.buffers = buffers;
+		this.compactor = compactor;
+	}
+
+	/**
+	 * An outbox that keeps nothing, for when the journal cannot be opened.
+	 */
+	public static Outbox inMemory()
+	{
+		return new Outbox(null, null, Runnable::run);
+	}
+
+	/**
+	 * Open an outbox that compacts on the thread acknowledging the entry that calls for it.
+	 */
+	static Outbox open(File directory) throws IOException
+	{
+		return open(directory, Runnable::run);
+	}
+
+	/**
+	 * @param compactor runs compactions once acknowledged entries take up more space than live ones
+	 */
+	public static Outbox open(File directory, Executor compactor) throws IOException
+	{
+		Files.createDirectories(directory.toPath());
+
+		FileChannel[] files = new FileChannel[FILE_NAMES.length];
+		MappedByteBuffer[] buffers = new MappedByteBuffer[FILE_NAMES.length];
+		try
+		{
+			for (int i = 0; i < FILE_NAMES.length; i++)
+			{
+				files[i] = FileChannel.open(new File(directory, FILE_NAMES[i]).toPath(),
+					StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+				int size = (int) Math.min(MAX_CAPACITY, Math.max(INITIAL_CAPACITY, files[i].size()));
+				buffers[i] = files[i].map(FileChannel.MapMode.READ_WRITE, 0, size);
+			}
+		}
+		catch (IOException e)
+		{
+			for (FileChannel file : files)
+			{
+				if (file != null)
+				{
+					file.close();
+				}
+			}
+			throw e;
+		}
+
+		Outbox outbox = new Outbox(files, buffers, compactor);
+		outbox.load();
+		return outbox;
+	}
+
+	private void load()
+	{
+		active = -1;
+		for (int i = 0; i < buffers.length; i++)
+		{
+			if (buffers[i].getInt(0) == MAGIC && (active < 0 || buffers[i].getLong(8) > generation))
+			{
+				active = i;
+				generation = buffers[i].getLong(8);
+			}
+		}
+
+		if (active < 0)
+		{
+			active = 0;
+			generation = 1;
+			MappedByteBuffer buffer = buffers[active];
+			buffer.put(HEADER_SIZE, END);
+			buffer.putLong(8, generation);
+			buffer.putInt(0, MAGIC);
+		}
+
+		scan();
+		if (position > HEADER_SIZE + liveBytes)
+		{
+			compact();
+		}
+	}
+
+	private void scan()
+	{
+		MappedByteBuffer buffer = buffers[active];
+		int capacity = buffer.capacity();
+		position = HEADER_SIZE;
+		while (position < capacity)
+		{
+			byte kind = buffer.get(position);
+			if (kind == ENTRY && position + ENTRY_HEADER_SIZE <= capacity)
+			{
+				long id = buffer.getLong(position + 1);
+				int channel = buffer.get(position + 9);
+				int length = buffer.getInt(position + 10);
+				int size = ENTRY_HEADER_SIZE + length;
+				if (length < 0 || size > capacity - position || channel < 0 || channel >= Channel.values().length
+					|| buffer.getInt(position + 14) != entryChecksum(buffer, position, length))
+				{
+					break;
+				}
+
+				live.put(id, new Record(Channel.values()[channel], position, size));
+				liveBytes += size;
+				nextId = Math.max(nextId, id + 1);
+				position += size;
+			}
+			else if (kind == ACK && position + ACK_SIZE <= capacity)
+			{
+				if (buffer.getInt(position + 9) != checksum(buffer, position + 1, 8))
+				{
+					break;
+				}
+
+				Record acked = live.remove(buffer.getLong(position + 1));
+				if (acked != null)
+				{
+					liveBytes -= acked.size;
+				}
+				position += ACK_SIZE;
+			}
+			else
+			{
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Journal a payload.
+	 *
+	 * @return the id to acknowledge the entry with once it has been delivered
+	 */
+	public synchronized long append(Channel channel, byte[] payload)
+	{
+		long id = nextId++;
+		if (!isOpen())
+		{
+			return id;
+		}
+
+		int size = ENTRY_HEADER_SIZE + payload.length;
+		MappedByteBuffer buffer = ensureCapacity(size);
+		if (buffer == null)
+		{
+			log.warn("Outbox is full, {} entry will not survive a restart", channel);
+			return id;
+		}
+
+		buffer.putLong(position + 1, id);
+		buffer.put(position + 9, (byte) channel.ordinal());
+		buffer.putInt(position + 10, payload.length);
+		ByteBuffer payloadOut = buffer.duplicate();
+		payloadOut.position(position + ENTRY_HEADER_SIZE);
+		payloadOut.put(payload);
+		buffer.putInt(position + 14, entryChecksum(buffer, position, payload.length));
+		publish(buffer, ENTRY, size);
+
+		live.put(id, new Record(channel, position - size, size));
+		liveBytes += size;
+		return id;
+	}
+
+	/**
+	 * Mark an entry as delivered, so it is not replayed.
+	 */
+	public void ack(long id)
+	{
+		synchronized (this)
+		{
+			if (!isOpen())
+			{
+				return;
+			}
+
+			Record acked = live.remove(id);
+			if (acked == null)
+			{
+				return;
+			}
+			liveBytes -= acked.size;
+
+			boolean compact;
+			if (writeAck(id))
+			{
+				int deadBytes = position - HEADER_SIZE - liveBytes;
+				compact = deadBytes >= COMPACT_MIN_BYTES && deadBytes > liveBytes;
+			}
+			else
+			{
+				// Compaction leaves the entry behind, until then it is only acknowledged in memory
+				unrecordedAcks.add(id);
+				compact = true;
+			}
+
+			if (!compact || compacting)
+			{
+				return;
+			}
+			compacting = true;
+		}
+
+		try
+		{
+			compactor.execute(this::compact);
+		}
+		catch (RejectedExecutionException e)
+		{
+			synchronized (this)
+			{
+				compacting = false;
+			}
+		}
+	}
+
+	/**
+	 * Append an ACK record to the active file.
+	 *
+	 * @return false if the journal has no room for it
+	 */
+	private boolean writeAck(long id)
+	{
+		MappedByteBuffer buffer = ensureCapacity(ACK_SIZE);
+		if (buffer == null)
+		{
+			return false;
+		}
+
+		buffer.putLong(position + 1, id);
+		buffer.putInt(position + 9, checksum(buffer, position + 1, 8));
+		publish(buffer, ACK, ACK_SIZE);
+		return true;
+	}
+
+	/**
+	 * Retry the ACK records that did not fit, for when compaction cannot leave their entries behind.
+	 */
+	private void writeUnrecordedAcks()
+	{
+		unrecordedAcks.removeIf(this::writeAck);
+		if (!unrecordedAcks.isEmpty())
+		{
+			log.warn("Unable to record {} outbox acknowledgements, those entries will be replayed on the next start", unrecordedAcks.size());
+		}
+	}
+
+	/**
+	 * @return the entries of a channel that have not been acknowledged, oldest first
+	 */
+	public synchronized List<Entry> pending(Channel channel)
+	{
+		List<Entry> entries = new ArrayList<>();
+		if (!isOpen())
+		{
+			return entries;
+		}
+
+		MappedByteBuffer buffer = buffers[active];
+		for (Map.Entry<Long, Record> entry : live.entrySet())
+		{
+			Record record = entry.getValue();
+			if (record.channel == channel)
+			{
+				byte[] payload = new byte[record.size - ENTRY_HEADER_SIZE];
+				ByteBuffer payloadIn = buffer.duplicate();
+				payloadIn.position(record.offset + ENTRY_HEADER_SIZE);
+				payloadIn.get(payload);
+				entries.add(new Entry(entry.getKey(), channel, payload));
+			}
+		}
+		return entries;
+	}
+
+	synchronized long getGeneration()
+	{
+		return generation;
+	}
+
+	@Override
+	public synchronized void close() throws IOException
+	{
+		if (!isOpen())
+		{
+			return;
+		}
+
+		writeUnrecordedAcks();
+		closed = true;
+		buffers[active].force();
+		for (FileChannel file : files)
+		{
+			file.close();
+		}
+	}
+
+	private boolean isOpen()
+	{
+		return buffers != null && !closed;
+	}
+
+	/**
+	 * Terminate the journal after the record at the current position, then write its kind to make it visible.
+	 */
+	private void publish(MappedByteBuffer buffer, byte kind, int size)
+	{
+		buffer.put(position + size, END);
+		buffer.put(position, kind);
+		position += size;
+	}
+
+	/**
+	 * @return the active buffer with room for a record of the given size and the end marker after it, or null if
+	 * the journal cannot grow that large
+	 */
+	private MappedByteBuffer ensureCapacity(int size)
+	{
+		MappedByteBuffer buffer = buffers[active];
+		long needed = (long) position + size + 1;
+		if (needed <= buffer.capacity())
+		{
+			return buffer;
+		}
+		if (needed > MAX_CAPACITY)
+		{
+			return null;
+		}
+
+		try
+		{
+			buffers[active] = grow(active, buffer, needed);
+			return buffers[active];
+		}
+		catch (IOException e)
+		{
+			log.warn("Unable to grow outbox", e);
+			return null;
+		}
+	}
+
+	private MappedByteBuffer remap(int file, int capacity) throws IOException
+	{
+		return files[file].map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+	}
+
+	/**
+	 * @return the buffer of a file with room for needed bytes, remapped larger if it is too small
+	 */
+	private MappedByteBuffer grow(int file, MappedByteBuffer buffer, long needed) throws IOException
+	{
+		if (needed <= buffer.capacity())
+		{
+			return buffer;
+		}
+		if (needed > MAX_CAPACITY)
+		{
+			throw new IOException("Outbox would grow past " + MAX_CAPACITY + " bytes");
+		}
+		return remap(file, (int) Math.min(MAX_CAPACITY, Math.max(needed, 2L * buffer.capacity())));
+	}
+
+	/**
+	 * Copy the live entries into the idle file and make it the active one.
+	 * The entries live when compaction starts are copied and forced to disk without holding the lock. Entries appended
+	 * since are copied, and acknowledgements since are recorded, under the lock just before the files are swapped.
+	 */
+	private void compact()
+	{
+		int target;
+		MappedByteBuffer source;
+		MappedByteBuffer destination;
+		Map<Long, Record> snapshot;
+		long snapshotBytes;
+		synchronized (this)
+		{
+			if (!isOpen())
+			{
+				compacting = false;
+				return;
+			}
+			target = 1 - active;
+			source = buffers[active];
+			destination = buffers[target];
+			snapshot = new LinkedHashMap<>(live);
+			snapshotBytes = liveBytes;
+		}
+
+		// Records are never rewritten once published, so the snapshot can be read while appends carry on past it
+		Map<Long, Record> moved = new LinkedHashMap<>();
+		int out;
+		try
+		{
+			// Invalidate first, in case this file held an older generation
+			destination.putInt(0, 0);
+			destination.force();
+
+			destination = grow(target, destination, HEADER_SIZE + snapshotBytes + 1);
+			out = copy(source, snapshot, destination, HEADER_SIZE, moved);
+			destination.force();
+		}
+		catch (IOException e)
+		{
+			log.warn("Unable to compact outbox", e);
+			synchronized (this)
+			{
+				compacting = false;
+				writeUnrecordedAcks();
+			}
+			return;
+		}
+
+		synchronized (this)
+		{
+			compacting = false;
+			if (!isOpen())
+			{
+				return;
+			}
+
+			Map<Long, Record> appended = new LinkedHashMap<>();
+			long appendedBytes = 0;
+			for (Map.Entry<Long, Record> entry : live.entrySet())
+			{
+				if (!moved.containsKey(entry.getKey()))
+				{
+					appended.put(entry.getKey(), entry.getValue());
+					appendedBytes += entry.getValue().size;
+				}
+			}
+			List<Long> acked = new ArrayList<>();
+			for (Long id : moved.keySet())
+			{
+				if (!live.containsKey(id))
+				{
+					acked.add(id);
+				}
+			}
+
+			try
+			{
+				destination = grow(target, destination, (long) out + appendedBytes + (long) acked.size() * ACK_SIZE + 1);
+			}
+			catch (IOException e)
+			{
+				log.warn("Unable to compact outbox", e);
+				writeUnrecordedAcks();
+				return;
+			}
+
+			out = copy(buffers[active], appended, destination, out, moved);
+			for (Long id : acked)
+			{
+				destination.put(out, ACK);
+				destination.putLong(out + 1, id);
+				destination.putInt(out + 9, checksum(destination, out + 1, 8));
+				moved.remove(id);
+				out += ACK_SIZE;
+			}
+			destination.put(out, END);
+			destination.putLong(8, generation + 1);
+			destination.putInt(0, MAGIC);
+
+			// In the order of live, so pending entries are still handed back oldest first
+			Map<Long, Record> relocated = new LinkedHashMap<>();
+			for (Long id : live.keySet())
+			{
+				relocated.put(id, moved.get(id));
+			}
+
+			buffers[target] = destination;
+			active = target;
+			generation++;
+			position = out;
+			live = relocated;
+			// Their entries were left behind
+			unrecordedAcks.clear();
+		}
+
+		// Appends are not forced either, this only narrows the window a power loss could tear the swap
+		destination.force();
+	}
+
+	/**
+	 * Copy records into a buffer, noting where each one ends up.
+	 *
+	 * @return the offset after the last record copied
+	 */
+	private static int copy(MappedByteBuffer source, Map<Long, Record> records, MappedByteBuffer destination, int out, Map<Long, Record> moved)
+	{
+		for (Map.Entry<Long, Record> entry : records.entrySet())
+		{
+			Record record = entry.getValue();
+			ByteBuffer in = source.duplicate();
+			in.position(record.offset).limit(record.offset + record.size);
+			ByteBuffer copy = destination.duplicate();
+			copy.position(out);
+			copy.put(in);
+			moved.put(entry.getKey(), new Record(record.channel, out, record.size));
+			out += record.size;
+		}
+		return out;
+	}
+
+	private int entryChecksum(ByteBuffer buffer, int offset, int length)
+	{
+		crc.reset();
+		update(buffer, offset + 1, 13);
+		update(buffer, offset + ENTRY_HEADER_SIZE, length);
+		return (int) crc.getValue();
+	}
+
+	private int checksum(ByteBuffer buffer, int offset, int length)
+	{
+		crc.reset();
+		update(buffer, offset, length);
+		return (int) crc.getValue();
+	}
+
+	private void update(ByteBuffer buffer, int offset, int length)
+	{
+		ByteBuffer region = buffer.duplicate();
+		region.position(offset).limit(offset + length);
+		crc.update(region);
+	}
+}
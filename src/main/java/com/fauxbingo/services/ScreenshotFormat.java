@@ -0,0 +1,41 @@
+package com.fauxbingo.services;
+
+import javax.imageio.ImageIO;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Image formats webhook screenshots can be uploaded as.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ScreenshotFormat
+{
+	PNG("PNG (lossless)", "png", "image/png", false),
+	JPEG("JPEG", "jpg", "image/jpeg", true),
+	/**
+	 * Only available when an ImageIO WebP writer is installed, JPEG is used otherwise.
+	 */
+	WEBP("WebP (if available)", "webp", "image/webp", true);
+
+	private final String displayName;
+	private final String extension;
+	private final String mimeType;
+	private final boolean lossy;
+
+	public String getFormatName()
+	{
+		return extension.equals("jpg") ? "jpeg" : extension;
+	}
+
+	public boolean isAvailable()
+	{
+		return ImageIO.getImageWritersByFormatName(getFormatName()).hasNext();
+	}
+
+	@Override
+	public String toString()
+	{
+		return displayName;
+	}
+}
@@ -2,7 +2,11 @@ package com.fauxbingo.services;
 
 import com.fauxbingo.FauxBingoConfig;
 import java.awt.image.BufferedImage;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Consumer;
+import java.util.function.LongSupplier;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Client;
 import net.runelite.api.widgets.Widget;
@@ -13,36 +17,78 @@ import net.runelite.client.ui.DrawManager;
 /**
  * Centralized screenshot capture with optional chat/PM hiding for privacy.
  * Hides private messages and/or main chat (per config) before capture, then unhides after.
+ * Requests made while a capture is pending share its frame, as do requests within a game tick of the last capture,
+ * so the several notifications of one kill cost one frame grab and one encode.
  */
 @Slf4j
 public class ScreenshotService
 {
+	static final long REUSE_MILLIS = 600;
+
 	private final Client client;
 	private final ClientThread clientThread;
 	private final DrawManager drawManager;
 	private final FauxBingoConfig config;
+	private final LongSupplier clock;
+	private final List<Consumer<BufferedImage>> pending = new ArrayList<>();
+	private WeakReference<BufferedImage> lastFrame = new WeakReference<>(null);
+	private long lastFrameAt;
 
 	public ScreenshotService(
 		Client client,
 		ClientThread clientThread,
 		DrawManager drawManager,
 		FauxBingoConfig config)
+	{
+		this(client, clientThread, drawManager, config, System::currentTimeMillis);
+	}
+
+	ScreenshotService(
+		Client client,
+		ClientThread clientThread,
+		DrawManager drawManager,
+		FauxBingoConfig config,
+		LongSupplier clock)
 	{
 		this.client = client;
 		this.clientThread = clientThread;
 		this.drawManager = drawManager;
 		this.config = config;
+		this.clock = clock;
 	}
 
 	/**
 	 * Request a screenshot. Hides PM and/or main chat per config before capture, then unhides after.
 	 * The onImage callback receives the captured image, run any I/O (e.g. webhook) on a background executor.
 	 * Safe to call from any thread (e.g. AWT for hotkeys), hide/show and frame capture run on the client thread.
+	 * The image may be shared with other requesters, so it must not be modified.
 	 *
 	 * @param onImage consumer for the captured image, typically called from the frame listener
 	 */
 	public void requestScreenshot(Consumer<BufferedImage> onImage)
 	{
+		BufferedImage recent;
+		synchronized (this)
+		{
+			recent = lastFrame.get();
+			if (recent == null || clock.getAsLong() - lastFrameAt > REUSE_MILLIS)
+			{
+				recent = null;
+				pending.add(onImage);
+				if (pending.size() > 1)
+				{
+					// A capture is already on its way
+					return;
+				}
+			}
+		}
+
+		if (recent != null)
+		{
+			onImage.accept(recent);
+			return;
+		}
+
 		boolean hidePm = config.screenshotHidePrivateMessages();
 		boolean hideChat = config.screenshotHideChat();
 
@@ -52,9 +98,31 @@ public class ScreenshotService
 
 			drawManager.requestNextFrameListener(image -> {
 				BufferedImage buffered = image instanceof BufferedImage ? (BufferedImage) image : null;
+				List<Consumer<BufferedImage>> requesters;
+				synchronized (this)
+				{
+					requesters = new ArrayList<>(pending);
+					pending.clear();
+					if (buffered != null)
+					{
+						lastFrame = new WeakReference<>(buffered);
+						lastFrameAt = clock.getAsLong();
+					}
+				}
+
 				if (buffered != null)
 				{
-					onImage.accept(buffered);
+					for (Consumer<BufferedImage> requester : requesters)
+					{
+						try
+						{
+							requester.accept(buffered);
+						}
+						catch (RuntimeException e)
+						{
+							log.warn("Screenshot callback failed", e);
+						}
+					}
 				}
 				else
 				{
@@ -0,0 +1,31 @@
+package com.fauxbingo.services;
+
+import lombok.Value;
+
+/**
+ * Point-in-time view of the webhooks of one category, latencies from the event to Discord accepting it in
+ * milliseconds.
+ */
+@Value
+public class WebhookCategoryMetrics
+{
+	WebhookService.WebhookCategory category;
+	long queued;
+	long delivered;
+	long failed;
+	/**
+	 * Shed by the rate limiter, or dropped or deferred to the next start over the memory limit.
+	 */
+	long dropped;
+	/**
+	 * Sent without their screenshot over the memory limit.
+	 */
+	long degraded;
+	/**
+	 * Sent without their screenshot as it could not be encoded, for instance with the encoder backed up.
+	 */
+	long screenshotsDropped;
+	long p50Millis;
+	long p99Millis;
+	long maxMillis;
+}
@@ -0,0 +1,230 @@
+package com.fauxbingo.services;
+
+import com.fauxbingo.util.LatencyHistogram;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.HttpUrl;
+
+/**
+ * Delivery counters and latency histograms for webhooks, per {@link WebhookService.WebhookCategory} and per URL.
+ * Recording is lock-free, see {@link #getCategoryMetrics()} and {@link #getUrlMetrics()} for snapshots.
+ */
+@Slf4j
+public class WebhookMetrics
+{
+	private static class CategoryStats
+	{
+		private final AtomicLong queued = new AtomicLong();
+		private final AtomicLong delivered = new AtomicLong();
+		private final AtomicLong failed = new AtomicLong();
+		private final AtomicLong dropped = new AtomicLong();
+		private final AtomicLong degraded = new AtomicLong();
+		private final AtomicLong screenshotsDropped = new AtomicLong();
+		private final LatencyHistogram latency = new LatencyHistogram();
+	}
+
+	private static class UrlStats
+	{
+		private final AtomicLong requests = new AtomicLong();
+		private final AtomicLong attempts = new AtomicLong();
+		private final AtomicLong delivered = new AtomicLong();
+		private final AtomicLong rejected = new AtomicLong();
+		private final AtomicLong shed = new AtomicLong();
+		private final AtomicLong failed = new AtomicLong();
+		private final AtomicLong bytesSent = new AtomicLong();
+		private final LatencyHistogram latency = new LatencyHistogram();
+	}
+
+	private final Map<WebhookService.WebhookCategory, CategoryStats> categories = new EnumMap<>(WebhookService.WebhookCategory.class);
+	private final Map<String, UrlStats> urls = new ConcurrentHashMap<>();
+
+	public WebhookMetrics()
+	{
+		// Filled up front, so the map is only read afterwards
+		for (WebhookService.WebhookCategory category : WebhookService.WebhookCategory.values())
+		{
+			categories.put(category, new CategoryStats());
+		}
+	}
+
+	public void recordQueued(WebhookService.WebhookCategory category)
+	{
+		categories.get(category).queued.incrementAndGet();
+	}
+
+	public void recordDelivered(WebhookService.WebhookCategory category, long latencyMillis)
+	{
+		CategoryStats stats = categories.get(category);
+		stats.delivered.incrementAndGet();
+		stats.latency.record(latencyMillis);
+	}
+
+	public void recordFailed(WebhookService.WebhookCategory category)
+	{
+		categories.get(category).failed.incrementAndGet();
+	}
+
+	public void recordDropped(WebhookService.WebhookCategory category)
+	{
+		categories.get(category).dropped.incrementAndGet();
+	}
+
+	public void recordDegraded(WebhookService.WebhookCategory category)
+	{
+		categories.get(category).degraded.incrementAndGet();
+	}
+
+	public void recordScreenshotDropped(WebhookService.WebhookCategory category)
+	{
+		categories.get(category).screenshotsDropped.incrementAndGet();
+	}
+
+	/**
+	 * Record an HTTP call, including each retry.
+	 */
+	public void recordAttempt(HttpUrl url)
+	{
+		urlStats(url).attempts.incrementAndGet();
+	}
+
+	/**
+	 * Record how a request to a URL ended.
+	 *
+	 * @param bytes size of the request body
+	 * @param latencyMillis time from sending the request to its outcome, retries included
+	 */
+	public void recordRequest(HttpUrl url, WebhookOutcome outcome, long bytes, long latencyMillis)
+	{
+		UrlStats stats = urlStats(url);
+		stats.requests.incrementAndGet();
+		switch (outcome)
+		{
+			case DELIVERED:
+				stats.delivered.incrementAndGet();
+				stats.bytesSent.addAndGet(bytes);
+				stats.latency.record(latencyMillis);
+				break;
+			case REJECTED:
+				stats.rejected.incrementAndGet();
+				break;
+			case SHED:
+				stats.shed.incrementAndGet();
+				break;
+			case FAILED:
+				stats.failed.incrementAndGet();
+				break;
+		}
+	}
+
+	public List<WebhookCategoryMetrics> getCategoryMetrics()
+	{
+		List<WebhookCategoryMetrics> metrics = new ArrayList<>();
+		for (Map.Entry<WebhookService.WebhookCategory, CategoryStats> entry : categories.entrySet())
+		{
+			CategoryStats stats = entry.getValue();
+			metrics.add(new WebhookCategoryMetrics(
+				entry.getKey(),
+				stats.queued.get(),
+				stats.delivered.get(),
+				stats.failed.get(),
+				stats.dropped.get(),
+				stats.degraded.get(),
+				stats.screenshotsDropped.get(),
+				stats.latency.getValueAtPercentile(50),
+				stats.latency.getValueAtPercentile(99),
+				stats.latency.getMax()));
+		}
+		return metrics;
+	}
+
+	public List<WebhookUrlMetrics> getUrlMetrics()
+	{
+		List<WebhookUrlMetrics> metrics = new ArrayList<>();
+		for (Map.Entry<String, UrlStats> entry : urls.entrySet())
+		{
+			UrlStats stats = entry.getValue();
+			metrics.add(new WebhookUrlMetrics(
+				entry.getKey(),
+				stats.requests.get(),
+				stats.attempts.get(),
+				stats.delivered.get(),
+				stats.rejected.get(),
+				stats.shed.get(),
+				stats.failed.get(),
+				stats.bytesSent.get(),
+				stats.latency.getValueAtPercentile(50),
+				stats.latency.getValueAtPercentile(99),
+				stats.latency.getMax()));
+		}
+		metrics.sort(Comparator.comparing(WebhookUrlMetrics::getLabel));
+		return metrics;
+	}
+
+	/**
+	 * Log a key=value line per category and URL that has seen any webhooks.
+	 */
+	public void logMetrics()
+	{
+		for (WebhookCategoryMetrics metrics : getCategoryMetrics())
+		{
+			if (metrics.getQueued() == 0)
+			{
+				continue;
+			}
+
+			log.info("webhook category={} queued={} delivered={} failed={} dropped={} degraded={} screenshots_dropped={} p50_ms={} p99_ms={} max_ms={}",
+				metrics.getCategory(),
+				metrics.getQueued(),
+				metrics.getDelivered(),
+				metrics.getFailed(),
+				metrics.getDropped(),
+				metrics.getDegraded(),
+				metrics.getScreenshotsDropped(),
+				metrics.getP50Millis(),
+				metrics.getP99Millis(),
+				metrics.getMaxMillis());
+		}
+
+		for (WebhookUrlMetrics metrics : getUrlMetrics())
+		{
+			log.info("webhook url={} requests={} attempts={} delivered={} rejected={} shed={} failed={} bytes={} p50_ms={} p99_ms={} max_ms={}",
+				metrics.getLabel(),
+				metrics.getRequests(),
+				metrics.getAttempts(),
+				metrics.getDelivered(),
+				metrics.getRejected(),
+				metrics.getShed(),
+				metrics.getFailed(),
+				metrics.getBytesSent(),
+				metrics.getP50Millis(),
+				metrics.getP99Millis(),
+				metrics.getMaxMillis());
+		}
+	}
+
+	private UrlStats urlStats(HttpUrl url)
+	{
+		return urls.computeIfAbsent(label(url), k -> new UrlStats());
+	}
+
+	/**
+	 * Name a webhook URL without its token, which would let anyone reading the log post to it.
+	 * Discord webhook URLs end in /webhooks/{id}/{token}, so these are labelled by host and id.
+	 */
+	static String label(HttpUrl url)
+	{
+		List<String> segments = url.pathSegments();
+		int webhooks = segments.indexOf("webhooks");
+		if (webhooks >= 0 && webhooks + 1 < segments.size())
+		{
+			return url.host() + "/" + segments.get(webhooks + 1);
+		}
+		return url.host();
+	}
+}
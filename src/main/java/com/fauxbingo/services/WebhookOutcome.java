@@ -0,0 +1,29 @@
+package com.fauxbingo.services;
+
+/**
+ * How a webhook request to one URL ended.
+ */
+public enum WebhookOutcome
+{
+	DELIVERED,
+	/**
+	 * Discord refused the request with a client error, retrying would not help.
+	 */
+	REJECTED,
+	/**
+	 * Dropped unsent because too many requests were waiting for the URL.
+	 */
+	SHED,
+	/**
+	 * Given up on after repeated rate limits, server errors or network errors.
+	 */
+	FAILED;
+
+	/**
+	 * @return whether the request is finished with, so it should not be kept to retry on a later start
+	 */
+	public boolean isSettled()
+	{
+		return this != FAILED;
+	}
+}
@@ -0,0 +1,26 @@
+package com.fauxbingo.services;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * What to do with queued webhooks once their screenshots go over the webhook memory limit.
+ * Webhooks are given up lowest priority and newest first.
+ */
+@RequiredArgsConstructor
+public enum WebhookOverflowPolicy
+{
+	DROP_LOWEST_PRIORITY("Drop lowest priority"),
+	DROP_IMAGE("Send without screenshot"),
+	/**
+	 * Leave the webhook in the outbox to be sent the next time the plugin starts.
+	 */
+	SPILL_TO_DISK("Send on next start");
+
+	private final String displayName;
+
+	@Override
+	public String toString()
+	{
+		return displayName;
+	}
+}
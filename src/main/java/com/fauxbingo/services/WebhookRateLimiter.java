@@ -0,0 +1,474 @@
+package com.fauxbingo.services;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Sends webhook requests through a token bucket per URL that follows Discord's rate limit headers.
+ * Until a URL has answered, its bucket assumes {@value #DEFAULT_LIMIT} requests per {@value #DEFAULT_WINDOW_MILLIS} ms;
+ * afterwards X-RateLimit-Remaining and X-RateLimit-Reset-After decide when the next request may go out.
+ * 429 responses are retried once Retry-After (plus a little jitter) has passed, 5xx responses and network errors after
+ * a jittered exponential backoff.
+ * Waiting requests go out in priority order, and once more than {@value #MAX_PENDING} wait for one URL the lowest
+ * priority request that may be shed is dropped.
+ * Results are completed outside the limiter's lock, as their continuations may do slow work such as acknowledging
+ * outbox entries.
+ * Once shut down, requests that are waiting or backing off, and any sent later, complete as
+ * {@link WebhookOutcome#FAILED}, so their outbox entries are replayed on the next start.
+ */
+@Slf4j
+public class WebhookRateLimiter
+{
+	static final int DEFAULT_LIMIT = 5;
+	static final long DEFAULT_WINDOW_MILLIS = 2000;
+	static final int MAX_ATTEMPTS = 5;
+	static final long BASE_BACKOFF_MILLIS = 1000;
+	static final long MAX_BACKOFF_MILLIS = 30000;
+	static final long RETRY_AFTER_JITTER_MILLIS = 250;
+	static final int MAX_PENDING = 10;
+
+	private static final Comparator<PendingRequest> SEND_ORDER = Comparator
+		.comparingInt((PendingRequest pending) -> pending.priority)
+		.thenComparingLong(pending -> pending.sequence);
+
+	private final OkHttpClient okHttpClient;
+	private final ScheduledExecutorService executor;
+	private final LongSupplier clock;
+	private final WebhookMetrics metrics;
+	private final Map<String, Bucket> buckets = new HashMap<>();
+	// Requests waiting out a backoff before they rejoin their bucket
+	private final Set<PendingRequest> backingOff = new HashSet<>();
+	private long globalResetAt;
+	private long nextSequence;
+	private int inFlight;
+	private boolean shutDown;
+
+	private static class Bucket
+	{
+		private final PriorityQueue<PendingRequest> pending = new PriorityQueue<>(SEND_ORDER);
+		private int limit = DEFAULT_LIMIT;
+		private int remaining;
+		private long resetAt;
+		private ScheduledFuture<?> drainTask;
+	}
+
+	private static class PendingRequest
+	{
+		private final Request request;
+		private final int priority;
+		private final boolean sheddable;
+		private final long sequence;
+		private final CompletableFuture<WebhookOutcome> result = new CompletableFuture<>();
+		private int attempts;
+		private ScheduledFuture<?> retryTask;
+
+		private PendingRequest(Request request, int priority, boolean sheddable, long sequence)
+		{
+			this.request = request;
+			this.priority = priority;
+			this.sheddable = sheddable;
+			this.sequence = sequence;
+		}
+	}
+
+	public WebhookRateLimiter(OkHttpClient okHttpClient, ScheduledExecutorService executor, WebhookMetrics metrics)
+	{
+		this(okHttpClient, executor, System::currentTimeMillis, metrics);
+	}
+
+	WebhookRateLimiter(OkHttpClient okHttpClient, ScheduledExecutorService executor, LongSupplier clock, WebhookMetrics metrics)
+	{
+		this.okHttpClient = okHttpClient;
+		this.executor = executor;
+		this.clock = clock;
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Queue a request at the lowest priority, never to be shed.
+	 *
+	 * @see #send(Request, int, boolean)
+	 */
+	public CompletableFuture<WebhookOutcome> send(Request request)
+	{
+		return send(request, Integer.MAX_VALUE, false);
+	}
+
+	/**
+	 * Queue a request, it is sent as soon as its URL's bucket allows and no higher priority request is waiting.
+	 *
+	 * @param priority lower is sent first
+	 * @param sheddable whether the request may be dropped when too many requests wait for its URL
+	 * @return completes once the request was delivered, rejected outright, shed, or given up on after repeated rate
+	 * limits or server errors
+	 */
+	public CompletableFuture<WebhookOutcome> send(Request request, int priority, boolean sheddable)
+	{
+		PendingRequest pending;
+		PendingRequest shed = null;
+		synchronized (this)
+		{
+			if (shutDown)
+			{
+				return CompletableFuture.completedFuture(WebhookOutcome.FAILED);
+			}
+
+			String key = request.url().toString();
+			Bucket bucket = buckets.computeIfAbsent(key, k -> new Bucket());
+			pending = new PendingRequest(request, priority, sheddable, nextSequence++);
+			bucket.pending.add(pending);
+			if (bucket.pending.size() > MAX_PENDING)
+			{
+				shed = shed(bucket);
+			}
+			drain(bucket);
+		}
+
+		if (shed != null)
+		{
+			shed.result.complete(WebhookOutcome.SHED);
+		}
+		return pending.result;
+	}
+
+	/**
+	 * Drop the waiting request that would be sent last among those that may be shed.
+	 *
+	 * @return the dropped request, to be completed once the lock is released, or null if none may be shed
+	 */
+	private PendingRequest shed(Bucket bucket)
+	{
+		PendingRequest shed = bucket.pending.stream()
+			.filter(pending -> pending.sheddable)
+			.max(SEND_ORDER)
+			.orElse(null);
+		if (shed != null)
+		{
+			bucket.pending.remove(shed);
+			log.info("Shedding webhook to {}, {} requests are waiting", shed.request.url(), bucket.pending.size());
+		}
+		return shed;
+	}
+
+	/**
+	 * Stop sending: cancel scheduled drains and retries and fail the requests that were waiting. Requests already sent
+	 * carry on, see {@link #awaitInFlight(long)}.
+	 */
+	public void shutDown()
+	{
+		List<PendingRequest> waiting = new ArrayList<>();
+		synchronized (this)
+		{
+			shutDown = true;
+			for (Bucket bucket : buckets.values())
+			{
+				if (bucket.drainTask != null)
+				{
+					bucket.drainTask.cancel(false);
+					bucket.drainTask = null;
+				}
+				waiting.addAll(bucket.pending);
+				bucket.pending.clear();
+			}
+			for (PendingRequest pending : backingOff)
+			{
+				if (pending.retryTask != null)
+				{
+					pending.retryTask.cancel(false);
+				}
+				waiting.add(pending);
+			}
+			backingOff.clear();
+		}
+
+		waiting.forEach(pending -> pending.result.complete(WebhookOutcome.FAILED));
+	}
+
+	/**
+	 * Wait until the requests already sent have finished, so those that are delivered are acknowledged before the
+	 * outbox is closed.
+	 *
+	 * @param deadline when to stop waiting, in {@link System#currentTimeMillis()} time
+	 */
+	public synchronized void awaitInFlight(long deadline)
+	{
+		long remaining;
+		while (inFlight > 0 && (remaining = deadline - System.currentTimeMillis()) > 0)
+		{
+			try
+			{
+				wait(remaining);
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+		if (inFlight > 0)
+		{
+			log.warn("{} webhook requests were still being sent at shutdown", inFlight);
+		}
+	}
+
+	private void drain(Bucket bucket)
+	{
+		while (!shutDown && !bucket.pending.isEmpty())
+		{
+			long now = clock.getAsLong();
+			if (now >= bucket.resetAt)
+			{
+				bucket.remaining = bucket.limit;
+				bucket.resetAt = now + DEFAULT_WINDOW_MILLIS;
+			}
+
+			long sendAt = Math.max(globalResetAt, bucket.remaining > 0 ? now : bucket.resetAt);
+			if (sendAt > now)
+			{
+				scheduleDrain(bucket, sendAt - now);
+				return;
+			}
+
+			bucket.remaining--;
+			execute(bucket, bucket.pending.poll());
+		}
+	}
+
+	private void scheduleDrain(Bucket bucket, long delayMillis)
+	{
+		if (bucket.drainTask != null && !bucket.drainTask.isDone())
+		{
+			return;
+		}
+
+		bucket.drainTask = executor.schedule(() ->
+		{
+			synchronized (this)
+			{
+				bucket.drainTask = null;
+				drain(bucket);
+			}
+		}, delayMillis, TimeUnit.MILLISECONDS);
+	}
+
+	private void execute(Bucket bucket, PendingRequest pending)
+	{
+		inFlight++;
+		metrics.recordAttempt(pending.request.url());
+		okHttpClient.newCall(pending.request).enqueue(new Callback()
+		{
+			@Override
+			public void onFailure(Call call, IOException e)
+			{
+				WebhookOutcome outcome;
+				synchronized (WebhookRateLimiter.this)
+				{
+					log.warn("Error submitting webhook to {}", pending.request.url(), e);
+					outcome = retryAfterBackoff(bucket, pending);
+				}
+				finish(pending, outcome);
+			}
+
+			@Override
+			public void onResponse(Call call, Response response)
+			{
+				WebhookOutcome outcome;
+				try (Response r = response)
+				{
+					synchronized (WebhookRateLimiter.this)
+					{
+						outcome = onWebhookResponse(bucket, pending, r);
+					}
+				}
+				finish(pending, outcome);
+			}
+		});
+	}
+
+	/**
+	 * Complete a request that is no longer in flight, then count it off so a waiting {@link #shutDown()} sees its
+	 * continuations have run.
+	 */
+	private void finish(PendingRequest pending, WebhookOutcome outcome)
+	{
+		try
+		{
+			if (outcome != null)
+			{
+				pending.result.complete(outcome);
+			}
+		}
+		finally
+		{
+			synchronized (this)
+			{
+				inFlight--;
+				notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * @return the outcome to complete the request with, or null if it will be retried
+	 */
+	private WebhookOutcome onWebhookResponse(Bucket bucket, PendingRequest pending, Response response)
+	{
+		long now = clock.getAsLong();
+		updateBucket(bucket, response, now);
+
+		if (response.code() == 429)
+		{
+			long retryAfter = parseMillis(response.header("Retry-After"), BASE_BACKOFF_MILLIS)
+				+ ThreadLocalRandom.current().nextLong(RETRY_AFTER_JITTER_MILLIS + 1);
+			if ("true".equalsIgnoreCase(response.header("X-RateLimit-Global"))
+				|| "global".equalsIgnoreCase(response.header("X-RateLimit-Scope")))
+			{
+				globalResetAt = now + retryAfter;
+			}
+			else
+			{
+				bucket.remaining = 0;
+				bucket.resetAt = Math.max(bucket.resetAt, now + retryAfter);
+			}
+
+			WebhookOutcome outcome = null;
+			if (shutDown)
+			{
+				outcome = WebhookOutcome.FAILED;
+			}
+			else if (++pending.attempts < MAX_ATTEMPTS)
+			{
+				bucket.pending.add(pending);
+			}
+			else
+			{
+				log.warn("Giving up on webhook to {} after {} rate limited attempts", pending.request.url(), pending.attempts);
+				outcome = WebhookOutcome.FAILED;
+			}
+			drain(bucket);
+			return outcome;
+		}
+
+		WebhookOutcome outcome;
+		if (response.code() >= 500)
+		{
+			outcome = retryAfterBackoff(bucket, pending);
+		}
+		else if (response.isSuccessful())
+		{
+			outcome = WebhookOutcome.DELIVERED;
+		}
+		else
+		{
+			log.warn("Webhook to {} was rejected with status {}", pending.request.url(), response.code());
+			outcome = WebhookOutcome.REJECTED;
+		}
+
+		drain(bucket);
+		return outcome;
+	}
+
+	private static void updateBucket(Bucket bucket, Response response, long now)
+	{
+		String limit = response.header("X-RateLimit-Limit");
+		String remaining = response.header("X-RateLimit-Remaining");
+		String resetAfter = response.header("X-RateLimit-Reset-After");
+		try
+		{
+			if (limit != null)
+			{
+				bucket.limit = Math.max(1, Integer.parseInt(limit.trim()));
+			}
+			if (remaining != null && resetAfter != null)
+			{
+				bucket.remaining = Integer.parseInt(remaining.trim());
+				bucket.resetAt = now + parseMillis(resetAfter, DEFAULT_WINDOW_MILLIS);
+			}
+		}
+		catch (NumberFormatException e)
+		{
+			log.debug("Ignoring malformed rate limit headers on webhook response", e);
+		}
+	}
+
+	/**
+	 * @return {@link WebhookOutcome#FAILED} if the request has used up its attempts or the limiter was shut down,
+	 * otherwise null once the retry is scheduled
+	 */
+	private WebhookOutcome retryAfterBackoff(Bucket bucket, PendingRequest pending)
+	{
+		if (shutDown)
+		{
+			return WebhookOutcome.FAILED;
+		}
+		if (++pending.attempts >= MAX_ATTEMPTS)
+		{
+			log.warn("Giving up on webhook to {} after {} attempts", pending.request.url(), pending.attempts);
+			return WebhookOutcome.FAILED;
+		}
+
+		backingOff.add(pending);
+		pending.retryTask = executor.schedule(() ->
+		{
+			synchronized (this)
+			{
+				if (!backingOff.remove(pending))
+				{
+					// Cancelled by shutDown
+					return;
+				}
+				bucket.pending.add(pending);
+				drain(bucket);
+			}
+		}, backoffMillis(pending.attempts), TimeUnit.MILLISECONDS);
+		return null;
+	}
+
+	/**
+	 * Exponential backoff, jittered over the upper half of each step so retries of a burst spread out.
+	 */
+	static long backoffMillis(int attempt)
+	{
+		long ceiling = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << Math.min(attempt - 1, 16));
+		return ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+	}
+
+	/**
+	 * Parses a header in (possibly fractional) seconds.
+	 */
+	private static long parseMillis(String seconds, long defaultMillis)
+	{
+		if (seconds == null)
+		{
+			return defaultMillis;
+		}
+
+		try
+		{
+			return Math.max(0, (long) Math.ceil(Double.parseDouble(seconds.trim()) * 1000));
+		}
+		catch (NumberFormatException e)
+		{
+			return defaultMillis;
+		}
+	}
+}
@@ -1,51 +1,105 @@
 package com.fauxbingo.services;
 
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import javax.imageio.ImageIO;
 import lombok.Builder;
 import lombok.Data;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Client;
 import net.runelite.api.GameState;
 import net.runelite.api.WorldType;
+import net.runelite.client.events.ConfigChanged;
 import com.fauxbingo.FauxBingoConfig;
-import okhttp3.Call;
-import okhttp3.Callback;
+import com.fauxbingo.util.MpscRingBuffer;
+import com.google.gson.Gson;
 import okhttp3.HttpUrl;
-import okhttp3.MediaType;
 import okhttp3.MultipartBody;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
-import okhttp3.Response;
 
 /**
  * Service responsible for sending discord webhook notifications with optional screenshots.
+ * Any thread may send a webhook: it is handed over through a lock-free ring buffer and all batching state is owned by
+ * tasks on the executor, which runs one task at a time (as RuneLite's shared executor does). Senders never wait on a
+ * flush. Work continuing once screenshots are encoded hops back onto the executor; delivery callbacks run on OkHttp's
+ * threads and only touch thread-safe state (in-flight accounting, metrics and the outbox).
  */
 @Slf4j
 public class WebhookService
 {
-	private final OkHttpClient okHttpClient;
 	private final ScheduledExecutorService executor;
 	private final Client client;
 	private final FauxBingoConfig config;
+	private final Gson gson;
+	private final ImageEncoder imageEncoder;
+	private final WebhookRateLimiter rateLimiter;
+	private final WebhookMetrics metrics = new WebhookMetrics();
+	private final Outbox outbox;
+	private final MpscRingBuffer<QueuedWebhook> ingest = new MpscRingBuffer<>(INGEST_CAPACITY);
+	private final AtomicBoolean drainRequested = new AtomicBoolean();
+	private volatile WebhookTargets configuredTargets = WebhookTargets.EMPTY;
+	private volatile boolean shutDown;
+	private final AtomicReference<LastEncode> lastEncode = new AtomicReference<>();
+
+	// Owned by the executor, apart from shutDown cancelling the flush
 	private final List<QueuedWebhook> queue = new ArrayList<>();
 	private final Random random = new Random();
-	private ScheduledFuture<?> flushTask = null;
+	private volatile ScheduledFuture<?> flushTask = null;
+	private long firstQueuedAt;
+
+	// Screenshots of requests that were sent but are not yet settled, with the number of requests holding each, and
+	// their size. A frame shared between requests counts once.
+	private final Map<EncodedImage, Integer> inFlightImages = new IdentityHashMap<>();
+	private final AtomicLong inFlightBytes = new AtomicLong();
+	private final AtomicLong droppedCount = new AtomicLong();
+	private final AtomicLong degradedCount = new AtomicLong();
+	private final AtomicLong spilledCount = new AtomicLong();
+
+	// A lone webhook waits MIN_LINGER_MILLIS for related events (a drop's collection log and valuable drop messages
+	// arrive within a tick or two), each further event extends the wait by QUIET_MILLIS, up to MAX_LINGER_MILLIS
+	// after the first. A batch that fills a request is flushed straight away.
+	static final long MIN_LINGER_MILLIS = 1000;
+	static final long QUIET_MILLIS = 1200;
+	static final long MAX_LINGER_MILLIS = 5000;
+
+	// Discord's per message limits
+	static final int MAX_EMBEDS = 10;
+	static final int MAX_ATTACHMENTS = 10;
+	static final int MAX_EMBED_CHARACTERS = 6000;
+	static final int MAX_DESCRIPTION_CHARACTERS = 4096;
+	static final long MAX_ATTACHMENT_BYTES = 10 * 1024 * 1024;
+
+	static final int INGEST_CAPACITY = 1024;
 
 	private static final String[] LEAGUES_MESSAGES = {
 		"This dummy is playing Leagues!",
@@ -74,44 +128,147 @@ public class WebhookService
 
 	public enum WebhookCategory
 	{
-		PET(1),
-		RAID_LOOT(2),
-		BINGO_LOOT(3),
-		VALUABLE_DROP(4),
-		COLLECTION_LOG(5),
-		LOOT(6),
-		MISC(7);
+		PET(1, false),
+		RAID_LOOT(2, false),
+		BINGO_LOOT(3, false),
+		VALUABLE_DROP(4, false),
+		COLLECTION_LOG(5, false),
+		LOOT(6, true),
+		MISC(7, true);
 
 		private final int priority;
+		private final boolean sheddable;
 
-		WebhookCategory(int priority)
+		WebhookCategory(int priority, boolean sheddable)
 		{
 			this.priority = priority;
+			this.sheddable = sheddable;
 		}
 
 		public int getPriority()
 		{
 			return priority;
 		}
+
+		/**
+		 * @return whether webhooks of this category may be dropped when a webhook URL has a backlog
+		 */
+		public boolean isSheddable()
+		{
+			return sheddable;
+		}
 	}
 
 	@Data
 	@Builder
 	private static class QueuedWebhook
 	{
-		private final String webhookUrls;
+		private final WebhookTargets targets;
 		private final String message;
-		private final BufferedImage image;
+		/**
+		 * The screenshot being encoded, or null if there is none.
+		 */
+		private final CompletableFuture<EncodedImage> image;
 		private final String itemName;
 		private final WebhookCategory category;
+		/**
+		 * Id of the webhook's outbox entry, available once its screenshot is encoded.
+		 */
+		private final CompletableFuture<Long> outboxId;
+		/**
+		 * When the webhook was sent, or replayed from the outbox.
+		 */
+		private final long queuedAt;
+	}
+
+	/**
+	 * What a bundle keeps of each queued webhook it was made from, to acknowledge and measure its delivery.
+	 */
+	@Value
+	static class Source
+	{
+		WebhookCategory category;
+		long queuedAt;
+		CompletableFuture<Long> outboxId;
+
+		static Source of(QueuedWebhook webhook)
+		{
+			return new Source(webhook.getCategory(), webhook.getQueuedAt(), webhook.getOutboxId());
+		}
 	}
 
-	public WebhookService(Client client, OkHttpClient okHttpClient, ScheduledExecutorService executor, FauxBingoConfig config)
+	/**
+	 * What becomes one embed group of a request: a queued webhook, or all queued webhooks for one item combined.
+	 */
+	@Value
+	static class Bundle
+	{
+		String text;
+		/**
+		 * The highest priority category among the queued webhooks the bundle was made from.
+		 */
+		WebhookCategory category;
+		List<CompletableFuture<EncodedImage>> images;
+		List<Source> sources;
+
+		/**
+		 * @return the images that were encoded successfully, only to be called once encoding has finished
+		 */
+		List<EncodedImage> getEncodedImages()
+		{
+			return images.stream()
+				.filter(image -> !image.isCompletedExceptionally())
+				.map(CompletableFuture::join)
+				.filter(Objects::nonNull)
+				.collect(Collectors.toList());
+		}
+	}
+
+	/**
+	 * The encode of the last screenshot, so a frame shared between notifications is encoded once.
+	 */
+	@Value
+	private static class LastEncode
+	{
+		WeakReference<BufferedImage> image;
+		ImageEncodingProfile profile;
+		CompletableFuture<EncodedImage> encoded;
+	}
+
+	/**
+	 * @param executor runs the batching tasks, and must run them one at a time as RuneLite's shared executor does;
+	 * the batching state is not otherwise guarded
+	 */
+	public WebhookService(Client client, OkHttpClient okHttpClient, ScheduledExecutorService executor, FauxBingoConfig config, Gson gson, ImageEncoder imageEncoder, Outbox outbox)
 	{
 		this.client = client;
-		this.okHttpClient = okHttpClient;
 		this.executor = executor;
 		this.config = config;
+		this.gson = gson.newBuilder().disableHtmlEscaping().create();
+		this.imageEncoder = imageEncoder;
+		this.rateLimiter = new WebhookRateLimiter(okHttpClient, executor, metrics);
+		this.outbox = outbox;
+
+		replayOutbox();
+	}
+
+	/**
+	 * Queue webhooks that were journaled but not delivered before the last shutdown.
+	 */
+	private void replayOutbox()
+	{
+		for (Outbox.Entry entry : outbox.pending(Outbox.Channel.WEBHOOK))
+		{
+			try
+			{
+				submit(fromOutboxEntry(entry));
+			}
+			catch (IOException | IllegalArgumentException e)
+			{
+				log.warn("Discarding unreadable outbox webhook {}", entry.getId(), e);
+				outbox.ack(entry.getId());
+			}
+		}
 	}
 
 	public void sendWebhook(String webhookUrls, String message, BufferedImage image)
@@ -143,46 +300,392 @@ public class WebhookService
 	 * @param category The category of the webhook for priority and bundling
 	 * @param checkGameState Whether to check if the player is logged in before sending
 	 */
-	public synchronized void sendWebhook(String webhookUrls, String message, BufferedImage image, String itemName, WebhookCategory category, boolean checkGameState)
+	public void sendWebhook(String webhookUrls, String message, BufferedImage image, String itemName, WebhookCategory category, boolean checkGameState)
 	{
-		if (checkGameState && client.getGameState() != GameState.LOGGED_IN)
+		if (shutDown || (checkGameState && client.getGameState() != GameState.LOGGED_IN))
 		{
 			return;
 		}
 
-		if (webhookUrls == null || webhookUrls.isEmpty())
+		WebhookTargets targets = getTargets(webhookUrls);
+		if (targets.isEmpty())
 		{
 			return;
 		}
 
-		queue.add(QueuedWebhook.builder()
-			.webhookUrls(webhookUrls)
+		CompletableFuture<EncodedImage> encodedImage = image != null
+			? encode(image)
+			: CompletableFuture.completedFuture(null);
+		// Journal once the screenshot is encoded, so a replay does not need the raw image
+		CompletableFuture<Long> outboxId = encodedImage.thenApply(encoded ->
+			outbox.append(Outbox.Channel.WEBHOOK, toOutboxPayload(targets, message, itemName, category, encoded)));
+
+		submit(QueuedWebhook.builder()
+			.targets(targets)
 			.message(message)
-			.image(image)
+			.image(image != null ? encodedImage : null)
 			.itemName(itemName)
 			.category(category)
+			.outboxId(outboxId)
+			.queuedAt(System.currentTimeMillis())
 			.build());
 
-		if (flushTask == null || flushTask.isDone())
+		if (image != null)
+		{
+			encodedImage.thenAccept(encoded ->
+			{
+				if (encoded == null)
+				{
+					metrics.recordScreenshotDropped(category);
+				}
+				// Screenshots count against the memory limit once their encoded size is known
+				requestDrain();
+			});
+		}
+	}
+
+	/**
+	 * Hand a webhook to the executor, from any thread.
+	 */
+	private void submit(QueuedWebhook webhook)
+	{
+		metrics.recordQueued(webhook.getCategory());
+		if (!ingest.offer(webhook))
+		{
+			// Left in the outbox, so it is sent on the next start
+			log.warn("Webhook ingest is full, deferring webhook to the next start");
+			spilledCount.incrementAndGet();
+			metrics.recordDropped(webhook.getCategory());
+			return;
+		}
+		requestDrain();
+	}
+
+	private void requestDrain()
+	{
+		if (drainRequested.compareAndSet(false, true))
+		{
+			executor.execute(this::drain);
+		}
+	}
+
+	/**
+	 * Move submitted webhooks into the batch queue. Runs on the executor.
+	 */
+	private void drain()
+	{
+		// Cleared first, so a webhook submitted during the drain requests another
+		drainRequested.set(false);
+		if (shutDown)
+		{
+			return;
+		}
+
+		QueuedWebhook webhook;
+		while ((webhook = ingest.poll()) != null)
+		{
+			enqueue(webhook);
+		}
+		enforceMemoryLimit();
+	}
+
+	/**
+	 * Apply the overflow policy to queued webhooks, lowest priority and newest first, until the screenshots held for
+	 * queued and undelivered webhooks fit the memory limit. A frame shared between webhooks is only freed once none of
+	 * them still hold it.
+	 */
+	private void enforceMemoryLimit()
+	{
+		long limit = config.webhookMemoryLimit() * 1024L * 1024L;
+		if (limit <= 0)
+		{
+			return;
+		}
+
+		long held = inFlightBytes.get() + getQueuedBytes(true);
+		if (held <= limit)
+		{
+			return;
+		}
+
+		WebhookOverflowPolicy policy = config.webhookOverflowPolicy() != null
+			? config.webhookOverflowPolicy()
+			: WebhookOverflowPolicy.DROP_IMAGE;
+		List<QueuedWebhook> victims = new ArrayList<>(queue);
+		Collections.reverse(victims);
+		victims.sort(Comparator.comparingInt((QueuedWebhook q) -> q.getCategory().getPriority()).reversed());
+
+		for (QueuedWebhook victim : victims)
+		{
+			if (held <= limit)
+			{
+				break;
+			}
+			long size = getImageBytes(victim);
+			if (size == 0)
+			{
+				// Holds no screenshot, giving it up frees nothing
+				continue;
+			}
+			CompletableFuture<EncodedImage> image = victim.getImage();
+
+			switch (policy)
+			{
+				case DROP_LOWEST_PRIORITY:
+					queue.remove(victim);
+					victim.getOutboxId().thenAccept(outbox::ack);
+					droppedCount.incrementAndGet();
+					metrics.recordDropped(victim.getCategory());
+					break;
+				case DROP_IMAGE:
+					queue.set(queue.indexOf(victim), withoutImage(victim));
+					degradedCount.incrementAndGet();
+					metrics.recordDegraded(victim.getCategory());
+					break;
+				case SPILL_TO_DISK:
+					// Not acknowledged, so the outbox replays it on the next start
+					queue.remove(victim);
+					spilledCount.incrementAndGet();
+					metrics.recordDropped(victim.getCategory());
+					break;
+			}
+			if (!isQueued(image) && !isInFlight(image.getNow(null)))
+			{
+				held -= size;
+			}
+		}
+
+		if (held > limit)
+		{
+			log.warn("Webhook screenshots use {} bytes, over the {} byte limit", held, limit);
+		}
+		else
+		{
+			log.debug("Applied {} to stay within the {} byte webhook memory limit", policy, limit);
+		}
+	}
+
+	private QueuedWebhook withoutImage(QueuedWebhook webhook)
+	{
+		// Journal the text alone, so a replay does not bring the screenshot back
+		CompletableFuture<Long> outboxId = webhook.getOutboxId().thenApply(id ->
+		{
+			long textId = outbox.append(Outbox.Channel.WEBHOOK,
+				toOutboxPayload(webhook.getTargets(), webhook.getMessage(), webhook.getItemName(), webhook.getCategory(), null));
+			outbox.ack(id);
+			return textId;
+		});
+
+		return QueuedWebhook.builder()
+			.targets(webhook.getTargets())
+			.message(webhook.getMessage())
+			.itemName(webhook.getItemName())
+			.category(webhook.getCategory())
+			.outboxId(outboxId)
+			.queuedAt(webhook.getQueuedAt())
+			.build();
+	}
+
+	public long getDroppedCount()
+	{
+		return droppedCount.get();
+	}
+
+	public long getDegradedCount()
+	{
+		return degradedCount.get();
+	}
+
+	public long getSpilledCount()
+	{
+		return spilledCount.get();
+	}
+
+	public WebhookMetrics getMetrics()
+	{
+		return metrics;
+	}
+
+	/**
+	 * Stop accepting and sending webhooks. Webhooks still batching or waiting on a rate limit stay in the outbox and
+	 * are replayed on the next start; requests already sent carry on, see {@link #awaitInFlight(long)}.
+	 */
+	public void shutDown()
+	{
+		shutDown = true;
+		ScheduledFuture<?> task = flushTask;
+		if (task != null)
+		{
+			task.cancel(false);
+		}
+		rateLimiter.shutDown();
+	}
+
+	/**
+	 * Wait until the requests already sent have finished, so those that are delivered are acknowledged before the
+	 * outbox is closed.
+	 *
+	 * @param deadline when to stop waiting, in {@link System#currentTimeMillis()} time
+	 */
+	public void awaitInFlight(long deadline)
+	{
+		rateLimiter.awaitInFlight(deadline);
+	}
+
+	public void onConfigChanged(ConfigChanged event)
+	{
+		if (FauxBingoConfig.GROUP.equals(event.getGroup()) && "webhookUrl".equals(event.getKey()))
+		{
+			getTargets(event.getNewValue());
+		}
+	}
+
+	/**
+	 * @return the parsed targets of a webhook URL list, reparsed only when the list differs from the last one
+	 */
+	private WebhookTargets getTargets(String webhookUrls)
+	{
+		if (webhookUrls == null)
+		{
+			return WebhookTargets.EMPTY;
+		}
+
+		WebhookTargets targets = configuredTargets;
+		if (!targets.getConfigValue().equals(webhookUrls))
+		{
+			targets = WebhookTargets.parse(webhookUrls);
+			for (String invalidUrl : targets.getInvalidUrls())
+			{
+				log.warn("Invalid webhook URL: {}", invalidUrl);
+			}
+			configuredTargets = targets;
+		}
+		return targets;
+	}
+
+	private void enqueue(QueuedWebhook webhook)
+	{
+		long now = System.currentTimeMillis();
+		queue.add(webhook);
+
+		long flushAt;
+		if (queue.size() == 1)
+		{
+			firstQueuedAt = now;
+			flushAt = now + MIN_LINGER_MILLIS;
+		}
+		else if (queue.size() >= MAX_EMBEDS || getQueuedBytes(false) >= MAX_ATTACHMENT_BYTES)
+		{
+			flushAt = now;
+		}
+		else
+		{
+			flushAt = Math.min(now + QUIET_MILLIS, firstQueuedAt + MAX_LINGER_MILLIS);
+		}
+
+		if (flushTask != null)
+		{
+			flushTask.cancel(false);
+		}
+		flushTask = executor.schedule(this::flushBatch, Math.max(0, flushAt - now), TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * @param excludeInFlight whether to leave out screenshots already counted as in flight
+	 * @return the size of the distinct queued screenshots that have finished encoding
+	 */
+	private long getQueuedBytes(boolean excludeInFlight)
+	{
+		Set<CompletableFuture<EncodedImage>> counted = Collections.newSetFromMap(new IdentityHashMap<>());
+		long bytes = 0;
+		for (QueuedWebhook webhook : queue)
+		{
+			if (webhook.getImage() != null && counted.add(webhook.getImage())
+				&& !(excludeInFlight && isInFlight(webhook.getImage().getNow(null))))
+			{
+				bytes += getImageBytes(webhook);
+			}
+		}
+		return bytes;
+	}
+
+	private boolean isQueued(CompletableFuture<EncodedImage> image)
+	{
+		for (QueuedWebhook webhook : queue)
+		{
+			if (webhook.getImage() == image)
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean isInFlight(EncodedImage image)
+	{
+		synchronized (inFlightImages)
 		{
-			flushTask = executor.schedule(this::flushBatch, 3, TimeUnit.SECONDS);
+			return image != null && inFlightImages.containsKey(image);
 		}
 	}
 
-	private synchronized void flushBatch()
+	/**
+	 * Count the screenshots of a request as in flight, each distinct frame only once however many requests hold it.
+	 */
+	private void retainInFlight(Set<EncodedImage> images)
 	{
-		if (queue.isEmpty())
+		synchronized (inFlightImages)
+		{
+			for (EncodedImage image : images)
+			{
+				if (inFlightImages.merge(image, 1, Integer::sum) == 1)
+				{
+					inFlightBytes.addAndGet(image.getBytes().length);
+				}
+			}
+		}
+	}
+
+	private void releaseInFlight(Set<EncodedImage> images)
+	{
+		synchronized (inFlightImages)
+		{
+			for (EncodedImage image : images)
+			{
+				Integer holders = inFlightImages.computeIfPresent(image, (i, count) -> count > 1 ? count - 1 : null);
+				if (holders == null)
+				{
+					inFlightBytes.addAndGet(-image.getBytes().length);
+				}
+			}
+		}
+	}
+
+	private static long getImageBytes(QueuedWebhook webhook)
+	{
+		EncodedImage image = webhook.getImage() != null && !webhook.getImage().isCompletedExceptionally()
+			? webhook.getImage().getNow(null)
+			: null;
+		return image != null ? image.getBytes().length : 0;
+	}
+
+	private void flushBatch()
+	{
+		// Pick up anything submitted since the last drain
+		drain();
+
+		if (shutDown || queue.isEmpty())
 		{
 			return;
 		}
 
-		// Group by webhookUrls first, in case they are different
-		Map<String, List<QueuedWebhook>> byUrls = queue.stream()
-			.collect(Collectors.groupingBy(QueuedWebhook::getWebhookUrls));
+		// Group by targets first, in case they are different
+		Map<WebhookTargets, List<QueuedWebhook>> byUrls = queue.stream()
+			.collect(Collectors.groupingBy(QueuedWebhook::getTargets, LinkedHashMap::new, Collectors.toList()));
 
-		for (Map.Entry<String, List<QueuedWebhook>> urlEntry : byUrls.entrySet())
+		for (Map.Entry<WebhookTargets, List<QueuedWebhook>> urlEntry : byUrls.entrySet())
 		{
-			String urls = urlEntry.getKey();
+			WebhookTargets urls = urlEntry.getKey();
 			List<QueuedWebhook> urlQueue = urlEntry.getValue();
 
 			// Separate items with names and those without
@@ -196,32 +699,93 @@ public class WebhookService
 
 			// Group named items by item name
 			Map<String, List<QueuedWebhook>> groupedItems = namedItems.stream()
-				.collect(Collectors.groupingBy(QueuedWebhook::getItemName));
+				.collect(Collectors.groupingBy(QueuedWebhook::getItemName, LinkedHashMap::new, Collectors.toList()));
 
+			List<Bundle> bundles = new ArrayList<>();
 			for (List<QueuedWebhook> group : groupedItems.values())
 			{
-				if (group.size() == 1)
-				{
-					QueuedWebhook single = group.get(0);
-					processWebhook(urls, single.getMessage(), single.getImage());
-				}
-				else
-				{
-					sendCombinedWebhook(urls, group);
-				}
+				bundles.add(group.size() == 1 ? bundleOf(group.get(0)) : combine(group));
 			}
 
 			for (QueuedWebhook unnamed : unnamedItems)
 			{
-				processWebhook(urls, unnamed.getMessage(), unnamed.getImage());
+				bundles.add(bundleOf(unnamed));
 			}
+
+			// Highest priority first, so it fills the first request
+			bundles.sort(Comparator.comparingInt(bundle -> bundle.getCategory().getPriority()));
+
+			sendBundles(urls, bundles);
 		}
 
 		queue.clear();
 		flushTask = null;
 	}
 
-	private void sendCombinedWebhook(String urls, List<QueuedWebhook> group)
+	/**
+	 * Encode a screenshot, reusing the encode of the previous one when it is the same frame shared by
+	 * {@link ScreenshotService} between notifications.
+	 */
+	private CompletableFuture<EncodedImage> encode(BufferedImage image)
+	{
+		ImageEncodingProfile profile = getEncodingProfile();
+		LastEncode last = lastEncode.get();
+		if (last != null && last.getImage().get() == image && profile.equals(last.getProfile()))
+		{
+			return last.getEncoded();
+		}
+
+		// Racing senders may each encode the frame, which only costs the duplicate work
+		CompletableFuture<EncodedImage> encoded = imageEncoder.encode(prepareImage(image), profile);
+		lastEncode.set(new LastEncode(new WeakReference<>(image), profile, encoded));
+		return encoded;
+	}
+
+	private BufferedImage prepareImage(BufferedImage image)
+	{
+		if (!config.screenshotCropToViewport())
+		{
+			return image;
+		}
+
+		// The captured frame can be stretched, so scale the viewport from canvas to image coordinates
+		int canvasWidth = client.getCanvasWidth();
+		if (canvasWidth <= 0)
+		{
+			return image;
+		}
+		double scale = (double) image.getWidth() / canvasWidth;
+		int x = Math.max(0, (int) (client.getViewportXOffset() * scale));
+		int y = Math.max(0, (int) (client.getViewportYOffset() * scale));
+		int width = Math.min(image.getWidth() - x, (int) (client.getViewportWidth() * scale));
+		int height = Math.min(image.getHeight() - y, (int) (client.getViewportHeight() * scale));
+		if (width <= 0 || height <= 0)
+		{
+			return image;
+		}
+		return image.getSubimage(x, y, width, height);
+	}
+
+	private ImageEncodingProfile getEncodingProfile()
+	{
+		return ImageEncodingProfile.builder()
+			.format(config.screenshotFormat())
+			.quality(config.screenshotQuality())
+			.maxDimension(config.screenshotMaxDimension())
+			.maxBytes(config.screenshotMaxSize() * 1024)
+			.build();
+	}
+
+	private Bundle bundleOf(QueuedWebhook webhook)
+	{
+		List<CompletableFuture<EncodedImage>> images = webhook.getImage() != null
+			? Collections.singletonList(webhook.getImage())
+			: Collections.emptyList();
+		return new Bundle(webhook.getMessage() + getGameModeAnnotation(), webhook.getCategory(), images,
+			Collections.singletonList(Source.of(webhook)));
+	}
+
+	private Bundle combine(List<QueuedWebhook> group)
 	{
 		// Sort by priority (lower number is higher priority)
 		group.sort(Comparator.comparingInt(q -> q.getCategory().getPriority()));
@@ -248,14 +812,19 @@ public class WebhookService
 			}
 		}
 
-		// Use the first image available in the group
-		BufferedImage image = group.stream()
+		// Keep every distinct image in the group, the primary's first
+		List<CompletableFuture<EncodedImage>> images = group.stream()
 			.map(QueuedWebhook::getImage)
-			.filter(img -> img != null)
-			.findFirst()
-			.orElse(null);
+			.filter(Objects::nonNull)
+			.distinct()
+			.limit(MAX_ATTACHMENTS)
+			.collect(Collectors.toList());
+
+		List<Source> sources = group.stream()
+			.map(Source::of)
+			.collect(Collectors.toList());
 
-		processWebhook(urls, combinedMessage.toString(), image);
+		return new Bundle(combinedMessage + getGameModeAnnotation(), primary.getCategory(), images, sources);
 	}
 
 	private String getAdditionalText(QueuedWebhook webhook)
@@ -342,85 +911,310 @@ public class WebhookService
 		return "";
 	}
 
-	private void processWebhook(String webhookUrls, String message, BufferedImage image)
+	/**
+	 * Pack bundles into as few requests as Discord's limits allow and send each to every URL, then acknowledge the
+	 * outbox entries of the queued webhooks in a request. Entries stay in the outbox to be replayed on the next start
+	 * if any URL could not be delivered to.
+	 */
+	private void sendBundles(WebhookTargets targets, List<Bundle> bundles)
 	{
-		String suffix = getGameModeAnnotation();
-		if (!suffix.isEmpty())
+		List<CompletableFuture<EncodedImage>> images = bundles.stream()
+			.flatMap(bundle -> bundle.getImages().stream())
+			.collect(Collectors.toList());
+
+		// Images were queued for encoding with their webhooks, so this is normally already complete. Otherwise the
+		// encoder's thread completes it, so continue on the executor.
+		CompletableFuture.allOf(images.toArray(new CompletableFuture[0])).whenCompleteAsync((v, ex) ->
 		{
-			message += suffix;
-		}
+			if (shutDown)
+			{
+				// Left in the outbox, so it is sent on the next start
+				return;
+			}
 
-		String[] urls = webhookUrls.split("[\n,]");
+			for (List<Bundle> request : pack(bundles))
+			{
+				// Written once per URL from the same encoded bytes, so each frame is held once
+				Set<EncodedImage> requestImages = Collections.newSetFromMap(new IdentityHashMap<>());
+				request.forEach(bundle -> requestImages.addAll(bundle.getEncodedImages()));
+				retainInFlight(requestImages);
+				sendToUrls(targets, request).thenAccept(outcomes ->
+				{
+					releaseInFlight(requestImages);
+					recordOutcomes(request, outcomes);
+					if (outcomes.stream().allMatch(WebhookOutcome::isSettled))
+					{
+						request.stream()
+							.flatMap(bundle -> bundle.getSources().stream())
+							.forEach(source -> source.getOutboxId().thenAccept(outbox::ack));
+					}
+				});
+			}
+		}, executor);
+	}
 
-		byte[] imageBytes = null;
-		if (image != null)
+	/**
+	 * Count the queued webhooks of a request as delivered if any URL accepted it, failed if none did but one refused
+	 * or gave up on it, and dropped if every URL shed it.
+	 */
+	private void recordOutcomes(List<Bundle> request, List<WebhookOutcome> outcomes)
+	{
+		long now = System.currentTimeMillis();
+		boolean delivered = outcomes.contains(WebhookOutcome.DELIVERED);
+		boolean failed = outcomes.contains(WebhookOutcome.FAILED) || outcomes.contains(WebhookOutcome.REJECTED);
+		for (Bundle bundle : request)
 		{
-			imageBytes = convertImageToBytes(image);
+			for (Source source : bundle.getSources())
+			{
+				if (delivered)
+				{
+					metrics.recordDelivered(source.getCategory(), now - source.getQueuedAt());
+				}
+				else if (failed)
+				{
+					metrics.recordFailed(source.getCategory());
+				}
+				else
+				{
+					metrics.recordDropped(source.getCategory());
+				}
+			}
 		}
+	}
 
-		for (String url : urls)
+	/**
+	 * Split bundles into requests of at most {@value #MAX_EMBEDS} embeds, {@value #MAX_ATTACHMENTS} attachments,
+	 * {@value #MAX_EMBED_CHARACTERS} characters of embed text and {@value #MAX_ATTACHMENT_BYTES} bytes of attachments.
+	 * A frame shared between bundles counts once per request, as it is only uploaded once.
+	 * A bundle is never split across requests.
+	 */
+	static List<List<Bundle>> pack(List<Bundle> bundles)
+	{
+		List<List<Bundle>> requests = new ArrayList<>();
+		List<Bundle> request = new ArrayList<>();
+		Set<EncodedImage> attached = Collections.newSetFromMap(new IdentityHashMap<>());
+		int embeds = 0;
+		int characters = 0;
+		long bytes = 0;
+
+		for (Bundle bundle : bundles)
 		{
-			final String finalUrl = url.trim();
-			if (finalUrl.isEmpty())
+			List<EncodedImage> images = bundle.getEncodedImages();
+			int bundleEmbeds = Math.max(1, images.size());
+			int bundleCharacters = Math.min(MAX_DESCRIPTION_CHARACTERS, bundle.getText().length());
+			List<EncodedImage> added = unattached(images, attached);
+
+			if (!request.isEmpty()
+				&& (embeds + bundleEmbeds > MAX_EMBEDS
+				|| attached.size() + added.size() > MAX_ATTACHMENTS
+				|| characters + bundleCharacters > MAX_EMBED_CHARACTERS
+				|| bytes + totalBytes(added) > MAX_ATTACHMENT_BYTES))
 			{
-				continue;
+				requests.add(request);
+				request = new ArrayList<>();
+				attached.clear();
+				embeds = 0;
+				characters = 0;
+				bytes = 0;
+				added = unattached(images, attached);
 			}
 
-			sendToUrl(finalUrl, message, imageBytes);
+			request.add(bundle);
+			attached.addAll(added);
+			embeds += bundleEmbeds;
+			characters += bundleCharacters;
+			bytes += totalBytes(added);
 		}
+
+		if (!request.isEmpty())
+		{
+			requests.add(request);
+		}
+		return requests;
 	}
 
-	private byte[] convertImageToBytes(BufferedImage image)
+	/**
+	 * @return the distinct images, by identity, that are not attached yet
+	 */
+	private static List<EncodedImage> unattached(List<EncodedImage> images, Set<EncodedImage> attached)
 	{
-		try (ByteArrayOutputStream out = new ByteArrayOutputStream())
+		Set<EncodedImage> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+		List<EncodedImage> added = new ArrayList<>();
+		for (EncodedImage image : images)
 		{
-			ImageIO.write(image, "png", out);
-			return out.toByteArray();
+			if (!attached.contains(image) && seen.add(image))
+			{
+				added.add(image);
+			}
 		}
-		catch (IOException e)
+		return added;
+	}
+
+	private static long totalBytes(List<EncodedImage> images)
+	{
+		return images.stream().mapToLong(image -> image.getBytes().length).sum();
+	}
+
+	private CompletableFuture<List<WebhookOutcome>> sendToUrls(WebhookTargets targets, List<Bundle> bundles)
+	{
+		List<CompletableFuture<WebhookOutcome>> results = new ArrayList<>();
+		// Built once and written to every URL, the images are streamed from the encoded bytes each time
+		RequestBody body = buildRequestBody(bundles);
+		int priority = bundles.stream()
+			.mapToInt(bundle -> bundle.getCategory().getPriority())
+			.min()
+			.orElse(Integer.MAX_VALUE);
+		boolean sheddable = bundles.stream().allMatch(bundle -> bundle.getCategory().isSheddable());
+
+		for (HttpUrl url : targets.getUrls())
 		{
-			log.error("Error converting image to bytes", e);
-			return null;
+			results.add(sendToUrl(url, body, priority, sheddable));
 		}
+
+		return CompletableFuture.allOf(results.toArray(new CompletableFuture[0]))
+			.thenApply(v -> results.stream().map(CompletableFuture::join).collect(Collectors.toList()));
 	}
 
-	private void sendToUrl(String url, String message, byte[] imageBytes)
+	private CompletableFuture<WebhookOutcome> sendToUrl(HttpUrl url, RequestBody body, int priority, boolean sheddable)
 	{
-		HttpUrl httpUrl = HttpUrl.parse(url);
-		if (httpUrl == null)
+		Request request = new Request.Builder()
+			.url(url)
+			.post(body)
+			.build();
+
+		long sentAt = System.currentTimeMillis();
+		return rateLimiter.send(request, priority, sheddable).thenApply(outcome ->
 		{
-			log.warn("Invalid webhook URL: {}", url);
-			return;
+			metrics.recordRequest(url, outcome, getContentLength(body), System.currentTimeMillis() - sentAt);
+			return outcome;
+		});
+	}
+
+	private static long getContentLength(RequestBody body)
+	{
+		try
+		{
+			return Math.max(0, body.contentLength());
 		}
+		catch (IOException e)
+		{
+			return 0;
+		}
+	}
 
+	private RequestBody buildRequestBody(List<Bundle> bundles)
+	{
 		MultipartBody.Builder requestBodyBuilder = new MultipartBody.Builder()
-			.setType(MultipartBody.FORM)
-			.addFormDataPart("content", message);
+			.setType(MultipartBody.FORM);
 
-		if (imageBytes != null)
+		// One embed per bundle showing its first image, then an embed per further image
+		List<Map<String, Object>> embeds = new ArrayList<>();
+		List<EncodedImage> attachments = new ArrayList<>();
+		Map<EncodedImage, String> fileNames = new IdentityHashMap<>();
+		for (Bundle bundle : bundles)
 		{
-			requestBodyBuilder.addFormDataPart("file", "screenshot.png",
-				RequestBody.create(MediaType.parse("image/png"), imageBytes));
+			Map<String, Object> embed = new LinkedHashMap<>();
+			String text = bundle.getText();
+			embed.put("description", text.length() > MAX_DESCRIPTION_CHARACTERS ? text.substring(0, MAX_DESCRIPTION_CHARACTERS) : text);
+			embeds.add(embed);
+
+			for (EncodedImage image : bundle.getEncodedImages())
+			{
+				if (embed == null)
+				{
+					embed = new LinkedHashMap<>();
+					embeds.add(embed);
+				}
+				// A frame shared between bundles is uploaded once
+				String fileName = fileNames.computeIfAbsent(image, i ->
+				{
+					attachments.add(i);
+					return i.getFileName(attachments.size() - 1);
+				});
+				embed.put("image", Collections.singletonMap("url", "attachment://" + fileName));
+				embed = null;
+			}
 		}
 
-		Request request = new Request.Builder()
-			.url(httpUrl)
-			.post(requestBodyBuilder.build())
-			.build();
+		requestBodyBuilder.addFormDataPart("payload_json", gson.toJson(Collections.singletonMap("embeds", embeds)));
+		for (int i = 0; i < attachments.size(); i++)
+		{
+			EncodedImage image = attachments.get(i);
+			requestBodyBuilder.addFormDataPart("files[" + i + "]", image.getFileName(i), new EncodedImageBody(image));
+		}
+
+		return requestBodyBuilder.build();
+	}
 
-		okHttpClient.newCall(request).enqueue(new Callback()
+	private static byte[] toOutboxPayload(WebhookTargets targets, String message, String itemName, WebhookCategory category, EncodedImage image)
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes))
 		{
-			@Override
-			public void onFailure(Call call, IOException e)
+			writeString(out, targets.getConfigValue());
+			writeString(out, message);
+			writeString(out, itemName);
+			writeString(out, category.name());
+			writeString(out, image != null ? image.getFormat().name() : null);
+			if (image != null)
 			{
-				log.error("Error submitting webhook to {}", url, e);
+				out.writeInt(image.getBytes().length);
+				out.write(image.getBytes());
 			}
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static QueuedWebhook fromOutboxEntry(Outbox.Entry entry) throws IOException
+	{
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(entry.getPayload())))
+		{
+			QueuedWebhook.QueuedWebhookBuilder webhook = QueuedWebhook.builder()
+				.targets(WebhookTargets.parse(readString(in)))
+				.message(readString(in))
+				.itemName(readString(in))
+				.category(WebhookCategory.valueOf(readString(in)))
+				.outboxId(CompletableFuture.completedFuture(entry.getId()))
+				.queuedAt(System.currentTimeMillis());
 
-			@Override
-			public void onResponse(Call call, Response response) throws IOException
+			String format = readString(in);
+			if (format != null)
 			{
-				response.close();
+				byte[] image = new byte[in.readInt()];
+				in.readFully(image);
+				webhook.image(CompletableFuture.completedFuture(new EncodedImage(image, ScreenshotFormat.valueOf(format))));
 			}
-		});
+			return webhook.build();
+		}
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException
+	{
+		if (value == null)
+		{
+			out.writeInt(-1);
+			return;
+		}
+
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in) throws IOException
+	{
+		int length = in.readInt();
+		if (length < 0)
+		{
+			return null;
+		}
+
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
 	}
 }
@@ -0,0 +1,101 @@
+package com.fauxbingo.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+import okhttp3.HttpUrl;
+
+/**
+ * Parsed form of a configured webhook URL list.
+ * The config value is split and each URL parsed once, so sending only walks the resulting {@link HttpUrl}s.
+ * Two target lists are equal when they hold the same URLs, however the config value was formatted.
+ */
+public final class WebhookTargets
+{
+	public static final WebhookTargets EMPTY = new WebhookTargets("", Collections.emptyList(), Collections.emptyList());
+
+	private static final Pattern URL_SEPARATOR = Pattern.compile("[\n,]");
+
+	private final String configValue;
+	private final List<HttpUrl> urls;
+	private final List<String> invalidUrls;
+
+	private WebhookTargets(String configValue, List<HttpUrl> urls, List<String> invalidUrls)
+	{
+		this.configValue = configValue;
+		this.urls = Collections.unmodifiableList(urls);
+		this.invalidUrls = Collections.unmodifiableList(invalidUrls);
+	}
+
+	/**
+	 * Parse a raw config value (comma or newline separated) into webhook targets.
+	 */
+	public static WebhookTargets parse(String configValue)
+	{
+		if (configValue == null || configValue.isEmpty())
+		{
+			return EMPTY;
+		}
+
+		List<HttpUrl> urls = new ArrayList<>();
+		List<String> invalidUrls = new ArrayList<>();
+		for (String url : URL_SEPARATOR.split(configValue))
+		{
+			String trimmed = url.trim();
+			if (trimmed.isEmpty())
+			{
+				continue;
+			}
+
+			HttpUrl httpUrl = HttpUrl.parse(trimmed);
+			if (httpUrl != null)
+			{
+				urls.add(httpUrl);
+			}
+			else
+			{
+				invalidUrls.add(trimmed);
+			}
+		}
+		return new WebhookTargets(configValue, urls, invalidUrls);
+	}
+
+	/**
+	 * @return the config value the targets were parsed from
+	 */
+	public String getConfigValue()
+	{
+		return configValue;
+	}
+
+	public List<HttpUrl> getUrls()
+	{
+		return urls;
+	}
+
+	/**
+	 * @return entries of the config value that are not URLs
+	 */
+	public List<String> getInvalidUrls()
+	{
+		return invalidUrls;
+	}
+
+	public boolean isEmpty()
+	{
+		return urls.isEmpty();
+	}
+
+	@Override
+	public boolean equals(Object o)
+	{
+		return o instanceof WebhookTargets && urls.equals(((WebhookTargets) o).urls);
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return urls.hashCode();
+	}
+}
@@ -0,0 +1,28 @@
+package com.fauxbingo.services;
+
+import lombok.Value;
+
+/**
+ * Point-in-time view of the requests to one webhook URL, latencies from sending to the final response in milliseconds.
+ */
+@Value
+public class WebhookUrlMetrics
+{
+	/**
+	 * Identifies the URL without its token.
+	 */
+	String label;
+	long requests;
+	/**
+	 * HTTP calls made, more than the requests when some were retried.
+	 */
+	long attempts;
+	long delivered;
+	long rejected;
+	long shed;
+	long failed;
+	long bytesSent;
+	long p50Millis;
+	long p99Millis;
+	long maxMillis;
+}
@@ -0,0 +1,202 @@
+package com.fauxbingo.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Aho-Corasick automaton over a fixed set of literal patterns.
+ * A single pass over the input reports every occurrence of every pattern. The automaton is immutable
+ * once built and safe to share between threads.
+ */
+public final class AhoCorasick
+{
+	public interface MatchListener
+	{
+		/**
+		 * Called for each occurrence, in order of the occurrence's end position.
+		 *
+		 * @param pattern index of the matched pattern in the list the automaton was built from
+		 * @param start index in the input at which the occurrence starts
+		 */
+		void onMatch(int pattern, int start);
+	}
+
+	private static final int[] NO_OUTPUT = new int[0];
+
+	private final int[] patternLengths;
+	// Character classes: 0 is reserved for characters that appear in no pattern
+	private final int[] asciiClasses = new int[128];
+	private final char[] otherChars;
+	private final int[] otherClasses;
+	private final int width;
+	// Full transition table, indexed by state * width + class
+	private final int[] transitions;
+	private final int[][] outputs;
+
+	/**
+	 * @param patterns non-empty literal patterns, duplicates are reported once per occurrence in the list
+	 */
+	public AhoCorasick(List<String> patterns)
+	{
+		patternLengths = new int[patterns.size()];
+
+		TreeSet<Character> alphabet = new TreeSet<>();
+		for (int i = 0; i < patterns.size(); i++)
+		{
+			String pattern = patterns.get(i);
+			if (pattern.isEmpty())
+			{
+				throw new IllegalArgumentException("Empty pattern at index " + i);
+			}
+			patternLengths[i] = pattern.length();
+			for (int j = 0; j < pattern.length(); j++)
+			{
+				alphabet.add(pattern.charAt(j));
+			}
+		}
+
+		int nextClass = 1;
+		List<Character> other = new ArrayList<>();
+		for (char c : alphabet)
+		{
+			if (c < asciiClasses.length)
+			{
+				asciiClasses[c] = nextClass++;
+			}
+			else
+			{
+				other.add(c);
+			}
+		}
+		otherChars = new char[other.size()];
+		otherClasses = new int[other.size()];
+		for (int i = 0; i < other.size(); i++)
+		{
+			otherChars[i] = other.get(i);
+			otherClasses[i] = nextClass++;
+		}
+		width = nextClass;
+
+		// Build the trie, -1 marks a missing edge
+		List<int[]> trie = new ArrayList<>();
+		List<List<Integer>> trieOutputs = new ArrayList<>();
+		trie.add(newState());
+		trieOutputs.add(new ArrayList<>());
+		for (int i = 0; i < patterns.size(); i++)
+		{
+			String pattern = patterns.get(i);
+			int state = 0;
+			for (int j = 0; j < pattern.length(); j++)
+			{
+				int cls = classOf(pattern.charAt(j));
+				int next = trie.get(state)[cls];
+				if (next < 0)
+				{
+					next = trie.size();
+					trie.get(state)[cls] = next;
+					trie.add(newState());
+					trieOutputs.add(new ArrayList<>());
+				}
+				state = next;
+			}
+			trieOutputs.get(state).add(i);
+		}
+
+		// Breadth-first construction of failure links, folded directly into a complete transition table
+		int states = trie.size();
+		transitions = new int[states * width];
+		outputs = new int[states][];
+		int[] failure = new int[states];
+		Deque<Integer> queue = new ArrayDeque<>();
+
+		outputs[0] = NO_OUTPUT;
+		for (int cls = 0; cls < width; cls++)
+		{
+			int next = trie.get(0)[cls];
+			if (next < 0)
+			{
+				transitions[cls] = 0;
+			}
+			else
+			{
+				transitions[cls] = next;
+				failure[next] = 0;
+				queue.add(next);
+			}
+		}
+
+		while (!queue.isEmpty())
+		{
+			int state = queue.poll();
+			outputs[state] = mergeOutputs(trieOutputs.get(state), outputs[failure[state]]);
+
+			for (int cls = 0; cls < width; cls++)
+			{
+				int next = trie.get(state)[cls];
+				if (next < 0)
+				{
+					transitions[state * width + cls] = transitions[failure[state] * width + cls];
+				}
+				else
+				{
+					transitions[state * width + cls] = next;
+					failure[next] = transitions[failure[state] * width + cls];
+					queue.add(next);
+				}
+			}
+		}
+	}
+
+	private int[] newState()
+	{
+		int[] edges = new int[width];
+		Arrays.fill(edges, -1);
+		return edges;
+	}
+
+	private static int[] mergeOutputs(List<Integer> own, int[] inherited)
+	{
+		if (own.isEmpty())
+		{
+			return inherited;
+		}
+
+		int[] merged = new int[own.size() + inherited.length];
+		for (int i = 0; i < own.size(); i++)
+		{
+			merged[i] = own.get(i);
+		}
+		System.arraycopy(inherited, 0, merged, own.size(), inherited.length);
+		return merged;
+	}
+
+	private int classOf(char c)
+	{
+		if (c < asciiClasses.length)
+		{
+			return asciiClasses[c];
+		}
+		int index = Arrays.binarySearch(otherChars, c);
+		return index >= 0 ? otherClasses[index] : 0;
+	}
+
+	/**
+	 * Scan the input once, reporting every pattern occurrence to the listener.
+	 */
+	public void scan(CharSequence input, MatchListener listener)
+	{
+		int state = 0;
+		for (int i = 0; i < input.length(); i++)
+		{
+			state = transitions[state * width + classOf(input.charAt(i))];
+			for (int pattern : outputs[state])
+			{
+				listener.onMatch(pattern, i - patternLengths[pattern] + 1);
+			}
+		}
+	}
+}
@@ -0,0 +1,150 @@
+package com.fauxbingo.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Pre-processed form of a configured bingo item list.
+ * Config entries are normalized, pluralized and wildcard-compiled once so that matching an item
+ * is a hash lookup, a single automaton pass for wildcards and an indexed fuzzy lookup.
+ * Produces the same results as {@link LootMatcher#matchesAny}.
+ */
+public final class CompiledBingoList
+{
+	public static final CompiledBingoList EMPTY = new CompiledBingoList(Collections.emptyList());
+
+	private static final Pattern ITEM_SEPARATOR = Pattern.compile("[\n,]");
+
+	private final List<String> items;
+
+	// Normalized non-wildcard config candidates along with their plural forms
+	private final Set<String> exactCandidates = new HashSet<>();
+	// Normalized non-wildcard config candidates, used to match pluralized item names
+	private final Set<String> singularCandidates = new HashSet<>();
+	private final WildcardMatcher wildcards = new WildcardMatcher();
+	private final FuzzyIndex fuzzyCandidates = new FuzzyIndex();
+
+	private CompiledBingoList(List<String> items)
+	{
+		this.items = Collections.unmodifiableList(items);
+
+		for (String item : items)
+		{
+			String normalized = LootMatcher.normalize(item);
+			addCandidate(normalized);
+			addCandidate(LootMatcher.normalizePossessive(normalized));
+		}
+		wildcards.compile();
+	}
+
+	/**
+	 * Parse a raw config value (comma or newline separated) into a compiled list.
+	 */
+	public static CompiledBingoList parse(String configValue)
+	{
+		if (configValue == null || configValue.isEmpty())
+		{
+			return EMPTY;
+		}
+
+		List<String> items = new ArrayList<>();
+		for (String item : ITEM_SEPARATOR.split(configValue))
+		{
+			String trimmed = item.trim();
+			if (!trimmed.isEmpty())
+			{
+				items.add(trimmed);
+			}
+		}
+		return of(items);
+	}
+
+	public static CompiledBingoList of(List<String> items)
+	{
+		if (items == null || items.isEmpty())
+		{
+			return EMPTY;
+		}
+		return new CompiledBingoList(new ArrayList<>(items));
+	}
+
+	private void addCandidate(String candidate)
+	{
+		if (candidate.contains("*"))
+		{
+			wildcards.add(candidate);
+			return;
+		}
+
+		if (!singularCandidates.add(candidate))
+		{
+			return;
+		}
+
+		exactCandidates.add(candidate);
+		if (!candidate.isEmpty())
+		{
+			exactCandidates.add(LootMatcher.pluralize(candidate));
+		}
+
+		if (candidate.length() >= LootMatcher.FUZZY_MIN_LENGTH)
+		{
+			fuzzyCandidates.add(candidate);
+		}
+	}
+
+	/**
+	 * Check whether the item name matches any entry in this list.
+	 */
+	public boolean matches(String itemName)
+	{
+		if (itemName == null || items.isEmpty())
+		{
+			return false;
+		}
+
+		String normalized = LootMatcher.normalize(itemName);
+		String possessive = LootMatcher.normalizePossessive(normalized);
+		boolean distinct = !possessive.equals(normalized);
+
+		if (matchesExact(normalized) || (distinct && matchesExact(possessive)))
+		{
+			return true;
+		}
+
+		if (wildcards.matchesAny(normalized) || (distinct && wildcards.matchesAny(possessive)))
+		{
+			return true;
+		}
+
+		return matchesFuzzy(normalized) || (distinct && matchesFuzzy(possessive));
+	}
+
+	private boolean matchesExact(String candidate)
+	{
+		if (exactCandidates.contains(candidate))
+		{
+			return true;
+		}
+		return !candidate.isEmpty() && singularCandidates.contains(LootMatcher.pluralize(candidate));
+	}
+
+	private boolean matchesFuzzy(String candidate)
+	{
+		return candidate.length() >= LootMatcher.FUZZY_MIN_LENGTH && fuzzyCandidates.containsWithinOneEdit(candidate);
+	}
+
+	public boolean isEmpty()
+	{
+		return items.isEmpty();
+	}
+
+	public List<String> getItems()
+	{
+		return items;
+	}
+}
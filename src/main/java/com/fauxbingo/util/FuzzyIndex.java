@@ -0,0 +1,97 @@
+package com.fauxbingo.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deletion-neighbourhood index for edit distance 1 lookups.
+ * Every indexed term is stored under itself and each of its single-character deletions, so a query only
+ * needs to probe its own deletion neighbourhood, which is independent of the number of indexed terms.
+ * Probe hits are verified with {@link LootMatcher#isEditDistanceAtMostOne}, so results are exact.
+ */
+final class FuzzyIndex
+{
+	private final Map<String, List<String>> index = new HashMap<>();
+
+	void add(String term)
+	{
+		put(term, term);
+		for (int i = 0; i < term.length(); i++)
+		{
+			put(deleteAt(term, i), term);
+		}
+	}
+
+	private void put(String key, String term)
+	{
+		List<String> terms = index.computeIfAbsent(key, k -> new ArrayList<>(1));
+		// Repeated letters produce the same deletion more than once
+		if (terms.isEmpty() || !terms.get(terms.size() - 1).equals(term))
+		{
+			terms.add(term);
+		}
+	}
+
+	boolean isEmpty()
+	{
+		return index.isEmpty();
+	}
+
+	/**
+	 * Check whether any indexed term is within edit distance 1 of the query.
+	 */
+	boolean containsWithinOneEdit(String query)
+	{
+		if (index.isEmpty())
+		{
+			return false;
+		}
+
+		if (probe(query, query))
+		{
+			return true;
+		}
+
+		for (int i = 0; i < query.length(); i++)
+		{
+			// Deleting either of two equal adjacent letters gives the same key
+			if (i > 0 && query.charAt(i) == query.charAt(i - 1))
+			{
+				continue;
+			}
+			if (probe(deleteAt(query, i), query))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean probe(String key, String query)
+	{
+		List<String> terms = index.get(key);
+		if (terms == null)
+		{
+			return false;
+		}
+
+		for (String term : terms)
+		{
+			if (LootMatcher.isEditDistanceAtMostOne(query, term))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static String deleteAt(String term, int index)
+	{
+		return new StringBuilder(term.length() - 1)
+			.append(term, 0, index)
+			.append(term, index + 1, term.length())
+			.toString();
+	}
+}
@@ -0,0 +1,111 @@
+package com.fauxbingo.util;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from item ID to an int bit mask, with no boxing.
+ * Not thread-safe; intended to be read and written from the client thread only.
+ */
+public final class ItemMatchCache
+{
+	public static final int MISSING = -1;
+
+	private static final int EMPTY_KEY = Integer.MIN_VALUE;
+	private static final int INITIAL_CAPACITY = 256;
+
+	private int[] keys;
+	private int[] values;
+	private int size;
+
+	public ItemMatchCache()
+	{
+		allocate(INITIAL_CAPACITY);
+	}
+
+	private void allocate(int capacity)
+	{
+		keys = new int[capacity];
+		values = new int[capacity];
+		Arrays.fill(keys, EMPTY_KEY);
+		size = 0;
+	}
+
+	/**
+	 * @return the cached mask for the item, or {@link #MISSING} if the item has not been cached
+	 */
+	public int get(int itemId)
+	{
+		int mask = keys.length - 1;
+		int slot = mix(itemId) & mask;
+		while (true)
+		{
+			int key = keys[slot];
+			if (key == itemId)
+			{
+				return values[slot];
+			}
+			if (key == EMPTY_KEY)
+			{
+				return MISSING;
+			}
+			slot = (slot + 1) & mask;
+		}
+	}
+
+	/**
+	 * @param value a non-negative mask
+	 */
+	public void put(int itemId, int value)
+	{
+		if (itemId == EMPTY_KEY || value < 0)
+		{
+			throw new IllegalArgumentException("Cannot cache item " + itemId + " with value " + value);
+		}
+
+		int mask = keys.length - 1;
+		int slot = mix(itemId) & mask;
+		while (keys[slot] != EMPTY_KEY && keys[slot] != itemId)
+		{
+			slot = (slot + 1) & mask;
+		}
+
+		if (keys[slot] == EMPTY_KEY)
+		{
+			keys[slot] = itemId;
+			size++;
+		}
+		values[slot] = value;
+
+		// Keep the load factor at or below one half so probe sequences stay short
+		if (size * 2 > keys.length)
+		{
+			rehash();
+		}
+	}
+
+	private void rehash()
+	{
+		int[] oldKeys = keys;
+		int[] oldValues = values;
+		allocate(oldKeys.length * 2);
+		for (int i = 0; i < oldKeys.length; i++)
+		{
+			if (oldKeys[i] != EMPTY_KEY)
+			{
+				put(oldKeys[i], oldValues[i]);
+			}
+		}
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	private static int mix(int itemId)
+	{
+		// Item IDs are sequential, spread them so neighbouring IDs do not cluster
+		int h = itemId * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
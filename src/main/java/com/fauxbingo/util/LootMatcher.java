@@ -7,6 +7,11 @@ import java.util.regex.Pattern;
 
 public class LootMatcher
 {
+	static final int FUZZY_MIN_LENGTH = 4;
+
+	private static final Pattern PLURAL_POSSESSIVE = Pattern.compile("s'(?=\\s|$)");
+	private static final Pattern SINGULAR_POSSESSIVE = Pattern.compile("'s(?=\\s|$)");
+
 	public static boolean matches(String itemName, String configItem)
 	{
 		if (itemName == null || configItem == null)
@@ -84,15 +89,19 @@ public class LootMatcher
 		return candidates;
 	}
 
-	private static String normalize(String input)
+	static String normalize(String input)
 	{
 		return input == null ? "" : input.toLowerCase().trim();
 	}
 
-	private static String normalizePossessive(String input)
+	static String normalizePossessive(String input)
 	{
-		String withoutPluralPossessive = input.replaceAll("s'(?=\\s|$)", "s");
-		return withoutPluralPossessive.replaceAll("'s(?=\\s|$)", "");
+		if (input.indexOf('\'') < 0)
+		{
+			return input;
+		}
+		String withoutPluralPossessive = PLURAL_POSSESSIVE.matcher(input).replaceAll("s");
+		return SINGULAR_POSSESSIVE.matcher(withoutPluralPossessive).replaceAll("");
 	}
 
 	private static boolean matchesWithPluralRules(String item, String config)
@@ -112,7 +121,7 @@ public class LootMatcher
 		return !itemPlural.isEmpty() && config.equals(itemPlural);
 	}
 
-	private static String pluralize(String input)
+	static String pluralize(String input)
 	{
 		if (input.isEmpty())
 		{
@@ -169,7 +178,7 @@ public class LootMatcher
 		return Pattern.matches(regex, input);
 	}
 
-	private static String wildcardToRegex(String wildcard)
+	static String wildcardToRegex(String wildcard)
 	{
 		String[] parts = wildcard.split("\\*", -1);
 		StringBuilder regex = new StringBuilder("^");
@@ -187,14 +196,14 @@ public class LootMatcher
 
 	private static boolean isFuzzyMatch(String item, String config)
 	{
-		if (item.length() < 4 || config.length() < 4)
+		if (item.length() < FUZZY_MIN_LENGTH || config.length() < FUZZY_MIN_LENGTH)
 		{
 			return false;
 		}
 		return isEditDistanceAtMostOne(item, config);
 	}
 
-	private static boolean isEditDistanceAtMostOne(String left, String right)
+	static boolean isEditDistanceAtMostOne(String left, String right)
 	{
 		int lengthDiff = Math.abs(left.length() - right.length());
 		if (lengthDiff > 1)
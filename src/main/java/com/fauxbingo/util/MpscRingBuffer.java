@@ -0,0 +1,98 @@
+package com.fauxbingo.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free queue for many producer threads and a single consumer thread.
+ * Producers claim a slot by advancing the producer index and then publish their element into it; the consumer takes
+ * elements in claim order and frees each slot before moving on. An element whose producer has claimed its slot but not
+ * yet published it holds up the elements behind it, so that producer must notify the consumer once it has offered.
+ */
+public final class MpscRingBuffer<E>
+{
+	private final AtomicReferenceArray<E> slots;
+	private final int mask;
+	private final AtomicLong producerIndex = new AtomicLong();
+	// Only written by the consumer, read by producers to tell whether the buffer is full
+	private final AtomicLong consumerIndex = new AtomicLong();
+
+	/**
+	 * @param capacity most elements held at once, rounded up to a power of two
+	 */
+	public MpscRingBuffer(int capacity)
+	{
+		if (capacity < 1 || capacity > 1 << 30)
+		{
+			throw new IllegalArgumentException("Capacity out of range: " + capacity);
+		}
+
+		int size = Integer.highestOneBit(capacity);
+		if (size < capacity)
+		{
+			size <<= 1;
+		}
+		slots = new AtomicReferenceArray<>(size);
+		mask = size - 1;
+	}
+
+	/**
+	 * Add an element, safe to call from any thread.
+	 *
+	 * @return false if the buffer is full
+	 */
+	public boolean offer(E element)
+	{
+		if (element == null)
+		{
+			throw new NullPointerException();
+		}
+
+		long index;
+		do
+		{
+			index = producerIndex.get();
+			if (index - consumerIndex.get() >= slots.length())
+			{
+				return false;
+			}
+		}
+		while (!producerIndex.compareAndSet(index, index + 1));
+
+		slots.lazySet((int) index & mask, element);
+		return true;
+	}
+
+	/**
+	 * Take the oldest element, only to be called from the consumer thread.
+	 *
+	 * @return the element, or null if the buffer is empty or the oldest element is not published yet
+	 */
+	public E poll()
+	{
+		long index = consumerIndex.get();
+		int slot = (int) index & mask;
+		E element = slots.get(slot);
+		if (element == null)
+		{
+			return null;
+		}
+
+		slots.lazySet(slot, null);
+		consumerIndex.lazySet(index + 1);
+		return element;
+	}
+
+	public int capacity()
+	{
+		return slots.length();
+	}
+
+	/**
+	 * @return the number of elements claimed but not yet taken, only exact while no other thread is using the buffer
+	 */
+	public int size()
+	{
+		return (int) Math.max(0, producerIndex.get() - consumerIndex.get());
+	}
+}
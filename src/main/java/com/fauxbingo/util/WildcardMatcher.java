@@ -0,0 +1,248 @@
+package com.fauxbingo.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Matches an input against a set of {@code *} wildcard patterns in a single pass.
+ * The literal segments of all patterns are compiled into one {@link AhoCorasick} automaton. Only patterns whose
+ * segments all occur in the input are then verified for anchoring and segment order, so the cost for an item
+ * does not grow with the number of wildcard patterns. Equivalent to matching {@link LootMatcher#wildcardToRegex}.
+ */
+final class WildcardMatcher
+{
+	private final List<String> segments = new ArrayList<>();
+	private final Map<String, Integer> segmentIds = new HashMap<>();
+	private final List<List<Integer>> patternsBySegment = new ArrayList<>();
+	private final List<int[]> patternSegments = new ArrayList<>();
+	// Whether each pattern must match at the start and end of the input, i.e. does not begin or end with a star
+	private final List<boolean[]> patternAnchors = new ArrayList<>();
+	private boolean matchesEverything;
+
+	// Populated by compile()
+	private AhoCorasick automaton;
+	private int[] segmentLengths;
+	private int[][] segmentPatterns;
+	private int[] distinctSegmentCounts;
+	private boolean[] anchoredStart;
+	private boolean[] anchoredEnd;
+
+	void add(String wildcard)
+	{
+		String[] parts = wildcard.split("\\*", -1);
+		List<Integer> ids = new ArrayList<>();
+		for (String part : parts)
+		{
+			if (part.isEmpty())
+			{
+				continue;
+			}
+
+			Integer id = segmentIds.get(part);
+			if (id == null)
+			{
+				id = segments.size();
+				segments.add(part);
+				segmentIds.put(part, id);
+				patternsBySegment.add(new ArrayList<>());
+			}
+			ids.add(id);
+		}
+
+		if (ids.isEmpty())
+		{
+			// Only stars, e.g. "*"
+			matchesEverything = true;
+			return;
+		}
+
+		int pattern = patternSegments.size();
+		patternSegments.add(ids.stream().mapToInt(Integer::intValue).toArray());
+		patternAnchors.add(new boolean[]{!parts[0].isEmpty(), !parts[parts.length - 1].isEmpty()});
+		ids.stream().distinct().forEach(id -> patternsBySegment.get(id).add(pattern));
+	}
+
+	/**
+	 * Build the automaton. Must be called once all patterns have been added and before matching.
+	 */
+	void compile()
+	{
+		int patterns = patternSegments.size();
+		distinctSegmentCounts = new int[patterns];
+		anchoredStart = new boolean[patterns];
+		anchoredEnd = new boolean[patterns];
+		for (int i = 0; i < patterns; i++)
+		{
+			distinctSegmentCounts[i] = (int) Arrays.stream(patternSegments.get(i)).distinct().count();
+			anchoredStart[i] = patternAnchors.get(i)[0];
+			anchoredEnd[i] = patternAnchors.get(i)[1];
+		}
+
+		segmentLengths = new int[segments.size()];
+		segmentPatterns = new int[segments.size()][];
+		for (int i = 0; i < segments.size(); i++)
+		{
+			segmentLengths[i] = segments.get(i).length();
+			segmentPatterns[i] = patternsBySegment.get(i).stream().mapToInt(Integer::intValue).toArray();
+		}
+
+		automaton = segments.isEmpty() ? null : new AhoCorasick(segments);
+	}
+
+	boolean isEmpty()
+	{
+		return !matchesEverything && patternSegments.isEmpty();
+	}
+
+	/**
+	 * Check whether the input matches any of the wildcard patterns.
+	 */
+	boolean matchesAny(String input)
+	{
+		if (matchesEverything)
+		{
+			return true;
+		}
+		if (automaton == null)
+		{
+			return false;
+		}
+
+		Occurrences occurrences = new Occurrences();
+		automaton.scan(input, occurrences);
+		if (occurrences.size == 0)
+		{
+			return false;
+		}
+		occurrences.sort();
+
+		// Collect patterns referenced by each hit segment, a pattern is a candidate once all its segments were hit
+		int[] candidates = new int[0];
+		int candidateCount = 0;
+		int previousSegment = -1;
+		for (int i = 0; i < occurrences.size; i++)
+		{
+			int segment = occurrences.segmentAt(i);
+			if (segment == previousSegment)
+			{
+				continue;
+			}
+			previousSegment = segment;
+
+			int[] patterns = segmentPatterns[segment];
+			if (candidateCount + patterns.length > candidates.length)
+			{
+				candidates = Arrays.copyOf(candidates, Math.max(candidates.length * 2, candidateCount + patterns.length));
+			}
+			System.arraycopy(patterns, 0, candidates, candidateCount, patterns.length);
+			candidateCount += patterns.length;
+		}
+
+		Arrays.sort(candidates, 0, candidateCount);
+		int runStart = 0;
+		for (int i = 1; i <= candidateCount; i++)
+		{
+			if (i < candidateCount && candidates[i] == candidates[runStart])
+			{
+				continue;
+			}
+
+			int pattern = candidates[runStart];
+			if (i - runStart == distinctSegmentCounts[pattern] && verify(pattern, input.length(), occurrences))
+			{
+				return true;
+			}
+			runStart = i;
+		}
+		return false;
+	}
+
+	private boolean verify(int pattern, int inputLength, Occurrences occurrences)
+	{
+		int[] ids = patternSegments.get(pattern);
+		int first = 0;
+		int end = ids.length;
+		int position = 0;
+
+		if (anchoredStart[pattern])
+		{
+			if (!occurrences.hasStartAt(ids[0], 0))
+			{
+				return false;
+			}
+			position = segmentLengths[ids[0]];
+			first = 1;
+		}
+
+		if (anchoredEnd[pattern])
+		{
+			end--;
+		}
+
+		// Leftmost placement of each middle segment leaves the most room for the rest
+		for (int i = first; i < end; i++)
+		{
+			int start = occurrences.firstStartAtOrAfter(ids[i], position);
+			if (start < 0)
+			{
+				return false;
+			}
+			position = start + segmentLengths[ids[i]];
+		}
+
+		if (anchoredEnd[pattern])
+		{
+			int last = ids[ids.length - 1];
+			int start = inputLength - segmentLengths[last];
+			return start >= position && occurrences.hasStartAt(last, start);
+		}
+		return true;
+	}
+
+	/**
+	 * Segment occurrences in the current input, packed as segment id in the high bits and start in the low bits.
+	 */
+	private static final class Occurrences implements AhoCorasick.MatchListener
+	{
+		private long[] hits = new long[8];
+		private int size;
+
+		@Override
+		public void onMatch(int segment, int start)
+		{
+			if (size == hits.length)
+			{
+				hits = Arrays.copyOf(hits, size * 2);
+			}
+			hits[size++] = ((long) segment << 32) | start;
+		}
+
+		void sort()
+		{
+			Arrays.sort(hits, 0, size);
+		}
+
+		int segmentAt(int index)
+		{
+			return (int) (hits[index] >>> 32);
+		}
+
+		int firstStartAtOrAfter(int segment, int position)
+		{
+			int index = Arrays.binarySearch(hits, 0, size, ((long) segment << 32) | position);
+			if (index < 0)
+			{
+				index = -index - 1;
+			}
+			return index < size && segmentAt(index) == segment ? (int) hits[index] : -1;
+		}
+
+		boolean hasStartAt(int segment, int position)
+		{
+			return Arrays.binarySearch(hits, 0, size, ((long) segment << 32) | position) >= 0;
+		}
+	}
+}
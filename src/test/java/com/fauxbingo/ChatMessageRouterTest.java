@@ -0,0 +1,133 @@
+package com.fauxbingo;
+
+import com.fauxbingo.handlers.ChatMessageFilter;
+import com.fauxbingo.handlers.ChatMessageHandler;
+import com.fauxbingo.handlers.EventHandler;
+import net.runelite.api.ChatMessageType;
+import net.runelite.api.events.ChatMessage;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ChatMessageRouterTest
+{
+	private static final ChatMessageFilter PREFIX_FILTER = ChatMessageFilter.builder()
+		.type(ChatMessageType.GAMEMESSAGE)
+		.prefix("New item added")
+		.build();
+
+	private static final ChatMessageFilter SUBSTRING_FILTER = ChatMessageFilter.builder()
+		.type(ChatMessageType.GAMEMESSAGE)
+		.type(ChatMessageType.FRIENDSCHATNOTIFICATION)
+		.substring(" - ")
+		.substring("Valuable drop: ")
+		.build();
+
+	private static final ChatMessageFilter TYPE_FILTER = ChatMessageFilter.builder()
+		.type(ChatMessageType.SPAM)
+		.build();
+
+	@Test
+	public void testRejectsUnwantedType()
+	{
+		ChatMessageRouter router = ChatMessageRouter.of(handlers(PREFIX_FILTER, SUBSTRING_FILTER));
+
+		assertEquals(0, router.route(message(ChatMessageType.PUBLICCHAT, "New item added - x")));
+	}
+
+	@Test
+	public void testPrefixOnlyMatchesAtStart()
+	{
+		ChatMessageRouter router = ChatMessageRouter.of(handlers(PREFIX_FILTER));
+
+		assertEquals(1, router.route(message(ChatMessageType.GAMEMESSAGE, "New item added to your collection log: Abyssal whip")));
+		assertEquals(0, router.route(message(ChatMessageType.GAMEMESSAGE, "<col=ff0000>New item added")));
+	}
+
+	@Test
+	public void testSubstringsAndTypes()
+	{
+		ChatMessageRouter router = ChatMessageRouter.of(handlers(PREFIX_FILTER, SUBSTRING_FILTER, TYPE_FILTER));
+
+		assertEquals(2, router.route(message(ChatMessageType.FRIENDSCHATNOTIFICATION, "TestPlayer - Twisted bow")));
+		assertEquals(2, router.route(message(ChatMessageType.GAMEMESSAGE, "<col=ef1020>Valuable drop: Dragon bones (2,500 coins)")));
+		assertEquals(3, router.route(message(ChatMessageType.GAMEMESSAGE, "New item added - x")));
+		assertEquals(4, router.route(message(ChatMessageType.SPAM, "You catch a shrimp.")));
+		assertEquals(0, router.route(message(ChatMessageType.GAMEMESSAGE, "You catch a shrimp.")));
+	}
+
+	@Test
+	public void testUnfilteredHandlerReceivesEverything()
+	{
+		RegisteredHandler[] handlers = {new RegisteredHandler(handler(PREFIX_FILTER)), new RegisteredHandler(plainHandler())};
+		ChatMessageRouter router = ChatMessageRouter.of(handlers);
+
+		assertEquals(2, router.route(message(ChatMessageType.PUBLICCHAT, "hello")));
+		assertEquals(3, router.route(message(ChatMessageType.GAMEMESSAGE, "New item added")));
+	}
+
+	@Test
+	public void testTooManyHandlers()
+	{
+		RegisteredHandler[] handlers = new RegisteredHandler[ChatMessageRouter.MAX_HANDLERS + 1];
+		for (int i = 0; i < handlers.length; i++)
+		{
+			handlers[i] = new RegisteredHandler(handler(TYPE_FILTER));
+		}
+
+		assertNull(ChatMessageRouter.of(handlers));
+	}
+
+	private static RegisteredHandler[] handlers(ChatMessageFilter... filters)
+	{
+		RegisteredHandler[] handlers = new RegisteredHandler[filters.length];
+		for (int i = 0; i < filters.length; i++)
+		{
+			handlers[i] = new RegisteredHandler(handler(filters[i]));
+		}
+		return handlers;
+	}
+
+	private static ChatMessageHandler handler(ChatMessageFilter filter)
+	{
+		return new ChatMessageHandler()
+		{
+			@Override
+			public void handle(ChatMessage event)
+			{
+			}
+
+			@Override
+			public ChatMessageFilter getFilter()
+			{
+				return filter;
+			}
+		};
+	}
+
+	private static EventHandler<ChatMessage> plainHandler()
+	{
+		return new EventHandler<ChatMessage>()
+		{
+			@Override
+			public void handle(ChatMessage event)
+			{
+			}
+
+			@Override
+			public Class<ChatMessage> getEventType()
+			{
+				return ChatMessage.class;
+			}
+		};
+	}
+
+	private static ChatMessage message(ChatMessageType type, String text)
+	{
+		ChatMessage message = new ChatMessage();
+		message.setType(type);
+		message.setMessage(text);
+		return message;
+	}
+}
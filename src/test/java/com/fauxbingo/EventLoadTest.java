@@ -0,0 +1,342 @@
+package com.fauxbingo;
+
+import com.fauxbingo.handlers.ChatClassifier;
+import com.fauxbingo.handlers.CollectionLogHandler;
+import com.fauxbingo.handlers.DeathHandler;
+import com.fauxbingo.handlers.LootEventHandler;
+import com.fauxbingo.handlers.PetChatHandler;
+import com.fauxbingo.handlers.RaidLootHandler;
+import com.fauxbingo.handlers.ValuableDropHandler;
+import com.fauxbingo.harness.MockDiscordServer;
+import com.fauxbingo.services.BingoItemRegistry;
+import com.fauxbingo.services.ImageEncoder;
+import com.fauxbingo.services.LogService;
+import com.fauxbingo.services.Outbox;
+import com.fauxbingo.services.ScreenshotService;
+import com.fauxbingo.services.WebhookCategoryMetrics;
+import com.fauxbingo.services.WebhookService;
+import com.google.gson.Gson;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+import net.runelite.api.ChatMessageType;
+import net.runelite.api.Client;
+import net.runelite.api.GameState;
+import net.runelite.api.Item;
+import net.runelite.api.ItemComposition;
+import net.runelite.api.ItemContainer;
+import net.runelite.api.NPC;
+import net.runelite.api.Player;
+import net.runelite.api.WorldType;
+import net.runelite.api.events.ActorDeath;
+import net.runelite.api.events.ChatMessage;
+import net.runelite.api.events.ItemContainerChanged;
+import net.runelite.client.events.NpcLootReceived;
+import net.runelite.client.game.ItemManager;
+import net.runelite.client.game.ItemStack;
+import okhttp3.OkHttpClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Replays synthetic loot, pet, raid and death events through the {@link EventProcessor} and the real handlers and
+ * services, against a {@link MockDiscordServer} standing in for Discord and the logging API, then reports delivered
+ * throughput and latency. Excluded from the regular test run, run it with ./gradlew loadTest, tuned with
+ * -PloadTest.events, -PloadTest.eventsPerSecond, -PloadTest.windowMillis, -PloadTest.latencyMillis and
+ * -PloadTest.screenshots.
+ */
+public class EventLoadTest
+{
+	private static final Logger log = LoggerFactory.getLogger(EventLoadTest.class);
+
+	private static final int EVENTS = Integer.getInteger("loadTest.events", 3000);
+	private static final int EVENTS_PER_SECOND = Integer.getInteger("loadTest.eventsPerSecond", 500);
+	// Discord allows 5 requests per 2 seconds, a shorter window keeps the run short
+	private static final long WINDOW_MILLIS = Long.getLong("loadTest.windowMillis", 250);
+	private static final long LATENCY_MILLIS = Long.getLong("loadTest.latencyMillis", 50);
+	private static final boolean SCREENSHOTS = Boolean.parseBoolean(System.getProperty("loadTest.screenshots", "true"));
+	private static final long TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+	private static final String PLAYER_NAME = "LoadTester";
+	private static final int DRAGON_BONES = 536;
+	private static final int TWISTED_BOW = 20997;
+	// Uniques dropped by the synthetic kills, with their prices
+	private static final Map<Integer, String> ITEM_NAMES = new HashMap<>();
+	private static final Map<Integer, Integer> ITEM_PRICES = new HashMap<>();
+
+	static
+	{
+		addItem(DRAGON_BONES, "Dragon bones", 2500);
+		addItem(TWISTED_BOW, "Twisted bow", 1_200_000_000);
+		addItem(11286, "Draconic visage", 5_000_000);
+		addItem(13576, "Dragon warhammer", 30_000_000);
+		addItem(4151, "Abyssal whip", 1_500_000);
+		addItem(13265, "Abyssal dagger", 1_200_000);
+	}
+
+	private static final int[] UNIQUES = {11286, 13576, 4151, 13265};
+
+	private MockDiscordServer server;
+	private ScheduledThreadPoolExecutor executor;
+	private OkHttpClient okHttpClient;
+	private ImageEncoder imageEncoder;
+	private Client client;
+	private Player player;
+	private NPC npc;
+	private ItemContainer raidChest;
+	private WebhookService webhookService;
+	private EventProcessor eventProcessor;
+	private BufferedImage frame;
+	private int frames;
+
+	private static void addItem(int id, String name, int price)
+	{
+		ITEM_NAMES.put(id, name);
+		ITEM_PRICES.put(id, price);
+	}
+
+	@Before
+	public void before() throws Exception
+	{
+		server = new MockDiscordServer(5, WINDOW_MILLIS, LATENCY_MILLIS);
+		server.start();
+		// Single threaded, as RuneLite's shared executor is
+		executor = new ScheduledThreadPoolExecutor(1);
+		okHttpClient = new OkHttpClient();
+		imageEncoder = new ImageEncoder();
+
+		client = mock(Client.class);
+		player = mock(Player.class);
+		when(player.getName()).thenReturn(PLAYER_NAME);
+		when(client.getLocalPlayer()).thenReturn(player);
+		when(client.getGameState()).thenReturn(GameState.LOGGED_IN);
+		when(client.getWorldType()).thenReturn(EnumSet.of(WorldType.MEMBERS));
+		// Collection log chat notifications are enabled
+		when(client.getVarbitValue(anyInt())).thenReturn(1);
+		npc = mock(NPC.class);
+		when(npc.getName()).thenReturn("Vorkath");
+		raidChest = mock(ItemContainer.class);
+		when(raidChest.getItems()).thenReturn(new Item[]{new Item(TWISTED_BOW, 1)});
+
+		FauxBingoConfig config = mock(FauxBingoConfig.class, withSettings().defaultAnswer(CALLS_REAL_METHODS));
+		doReturn(server.webhookUrl("1")).when(config).webhookUrl();
+		doReturn(SCREENSHOTS).when(config).sendScreenshot();
+		doReturn(true).when(config).enableLoggingApi();
+		doReturn(server.apiUrl()).when(config).loggingApiUrl();
+
+		ItemManager itemManager = mock(ItemManager.class);
+		when(itemManager.getItemPrice(anyInt())).thenAnswer(invocation -> ITEM_PRICES.getOrDefault(invocation.<Integer>getArgument(0), 0));
+		for (Map.Entry<Integer, String> item : ITEM_NAMES.entrySet())
+		{
+			ItemComposition composition = mock(ItemComposition.class);
+			when(composition.getName()).thenReturn(item.getValue());
+			when(itemManager.getItemComposition(item.getKey())).thenReturn(composition);
+		}
+
+		// Hands out the current frame straight away, the real service would capture it on the next frame drawn
+		ScreenshotService screenshotService = mock(ScreenshotService.class);
+		doAnswer(invocation ->
+		{
+			if (frame == null)
+			{
+				frame = newFrame();
+			}
+			invocation.<Consumer<BufferedImage>>getArgument(0).accept(frame);
+			return null;
+		}).when(screenshotService).requestScreenshot(any());
+
+		Outbox outbox = Outbox.inMemory();
+		BingoItemRegistry bingoItemRegistry = new BingoItemRegistry(config, itemManager);
+		webhookService = new WebhookService(client, okHttpClient, executor, config, new Gson(), imageEncoder, outbox);
+		LogService logService = new LogService(client, config, okHttpClient, new Gson(), executor, outbox);
+
+		ChatClassifier chatClassifier = new ChatClassifier();
+		LootEventHandler lootEventHandler = new LootEventHandler(client, config, bingoItemRegistry, itemManager, webhookService, logService, screenshotService, executor);
+		PetChatHandler petChatHandler = new PetChatHandler(client, config, chatClassifier, webhookService, logService, screenshotService, executor);
+		CollectionLogHandler collectionLogHandler = new CollectionLogHandler(client, config, chatClassifier, webhookService, logService, screenshotService, executor);
+		ValuableDropHandler valuableDropHandler = new ValuableDropHandler(client, config, chatClassifier, bingoItemRegistry, webhookService, logService, screenshotService, executor);
+		RaidLootHandler raidLootHandler = new RaidLootHandler(client, config, chatClassifier, bingoItemRegistry, webhookService, logService, screenshotService, executor, itemManager);
+		DeathHandler deathHandler = new DeathHandler(client, logService);
+
+		eventProcessor = new EventProcessor();
+		eventProcessor.registerHandler(lootEventHandler.createNpcLootHandler());
+		eventProcessor.registerHandler(petChatHandler);
+		eventProcessor.registerHandler(collectionLogHandler.createChatHandler());
+		eventProcessor.registerHandler(valuableDropHandler);
+		eventProcessor.registerHandler(raidLootHandler.createChatHandler());
+		eventProcessor.registerHandler(raidLootHandler.createItemContainerHandler());
+		eventProcessor.registerHandler(deathHandler.createActorDeathHandler());
+	}
+
+	@After
+	public void after() throws Exception
+	{
+		executor.shutdownNow();
+		imageEncoder.shutDown();
+		okHttpClient.dispatcher().executorService().shutdown();
+		server.close();
+	}
+
+	@Test
+	public void testThroughput() throws Exception
+	{
+		Random random = new Random(42);
+		long start = System.currentTimeMillis();
+		int events = 0;
+		while (events < EVENTS)
+		{
+			events += replayNext(random);
+
+			// Hold the replay to the configured rate
+			long due = start + events * 1000L / EVENTS_PER_SECOND;
+			long now = System.currentTimeMillis();
+			if (due > now)
+			{
+				Thread.sleep(due - now);
+			}
+		}
+		long replayMillis = System.currentTimeMillis() - start;
+
+		// Screenshot handlers send from the executor, so wait for it to take every webhook
+		executor.submit(() -> { }).get();
+		long queued = total(WebhookCategoryMetrics::getQueued);
+		log.info("Replayed {} events in {} ms, {} webhooks queued", events, replayMillis, queued);
+
+		long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+		while (total(metrics -> metrics.getDelivered() + metrics.getFailed() + metrics.getDropped()) < queued)
+		{
+			assertTrue("Webhooks were still pending after " + TIMEOUT_MILLIS + " ms", System.currentTimeMillis() < deadline);
+			Thread.sleep(50);
+		}
+		long elapsedMillis = System.currentTimeMillis() - start;
+
+		List<MockDiscordServer.Delivery> deliveries = server.getDeliveries();
+		long delivered = total(WebhookCategoryMetrics::getDelivered);
+		long bytes = deliveries.stream().mapToLong(MockDiscordServer.Delivery::getBytes).sum();
+		log.info("Delivered {} of {} webhooks in {} requests ({} embeds, {} KiB) over {} ms: {} webhooks/s, {} requests rate limited",
+			delivered, queued, deliveries.size(), server.getEmbedCount(), bytes / 1024, elapsedMillis,
+			String.format("%.1f", delivered * 1000.0 / elapsedMillis), server.getRateLimitedCount());
+		log.info("Logging API received {} log entries and {} deaths", server.getLogEntryCount(), server.getDeathCount());
+		webhookService.getMetrics().logMetrics();
+		eventProcessor.logHandlerMetrics();
+
+		assertEquals("Requests over Discord's limits", 0, server.getRejectedCount());
+		for (WebhookCategoryMetrics metrics : webhookService.getMetrics().getCategoryMetrics())
+		{
+			assertEquals(metrics.getCategory() + " webhooks failed", 0, metrics.getFailed());
+			if (!metrics.getCategory().isSheddable())
+			{
+				assertEquals(metrics.getCategory() + " webhooks dropped", 0, metrics.getDropped());
+			}
+		}
+		assertTrue(delivered > 0);
+	}
+
+	/**
+	 * Replay one synthetic game occurrence.
+	 *
+	 * @return the number of events it took
+	 */
+	private int replayNext(Random random)
+	{
+		// Screenshots of one occurrence share a frame, as the screenshot service's reuse window makes them
+		frame = null;
+
+		int roll = random.nextInt(100);
+		if (roll < 60)
+		{
+			// A common kill, logged but below the webhook threshold
+			eventProcessor.processEvent(new NpcLootReceived(npc, Collections.singletonList(new ItemStack(DRAGON_BONES, 100, null))));
+			return 1;
+		}
+		if (roll < 80)
+		{
+			// A unique that is also a valuable drop and a new collection log slot, bundled into one embed
+			int unique = UNIQUES[random.nextInt(UNIQUES.length)];
+			String name = ITEM_NAMES.get(unique);
+			eventProcessor.processEvent(new NpcLootReceived(npc, Collections.singletonList(new ItemStack(unique, 1, null))));
+			eventProcessor.processEvent(chat(ChatMessageType.GAMEMESSAGE, String.format("Valuable drop: %s (%,d coins)", name, ITEM_PRICES.get(unique))));
+			eventProcessor.processEvent(chat(ChatMessageType.GAMEMESSAGE, "New item added to your collection log: " + name));
+			return 3;
+		}
+		if (roll < 90)
+		{
+			int unique = UNIQUES[random.nextInt(UNIQUES.length)];
+			eventProcessor.processEvent(chat(ChatMessageType.GAMEMESSAGE,
+				String.format("Valuable drop: %s (%,d coins)", ITEM_NAMES.get(unique), ITEM_PRICES.get(unique))));
+			return 1;
+		}
+		if (roll < 95)
+		{
+			eventProcessor.processEvent(chat(ChatMessageType.GAMEMESSAGE, "You have a funny feeling like you're being followed."));
+			return 1;
+		}
+		if (roll < 99)
+		{
+			eventProcessor.processEvent(new ActorDeath(player));
+			return 1;
+		}
+
+		// Only the first chest of the run is sent, the raid handler waits a minute for the next reward widget
+		eventProcessor.processEvent(chat(ChatMessageType.GAMEMESSAGE, "Your completed Chambers of Xeric count is: 100."));
+		eventProcessor.processEvent(chat(ChatMessageType.FRIENDSCHATNOTIFICATION, PLAYER_NAME + " - Twisted bow"));
+		eventProcessor.processEvent(new ItemContainerChanged(581, raidChest));
+		return 3;
+	}
+
+	private static ChatMessage chat(ChatMessageType type, String message)
+	{
+		ChatMessage event = new ChatMessage();
+		event.setType(type);
+		event.setMessage(message);
+		return event;
+	}
+
+	/**
+	 * A frame the size of the fixed mode client, drawn differently each time so encodes are not trivially small.
+	 */
+	private BufferedImage newFrame()
+	{
+		BufferedImage image = new BufferedImage(765, 503, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = image.createGraphics();
+		int seed = frames++;
+		for (int i = 0; i < 12; i++)
+		{
+			graphics.setColor(new Color((seed * 37 + i * 53) & 0xFFFFFF));
+			graphics.fillRect((seed * 13 + i * 61) % 700, (i * 41) % 450, 64, 48);
+		}
+		graphics.setColor(Color.WHITE);
+		graphics.drawString("Frame " + seed, 10, 20);
+		graphics.dispose();
+		return image;
+	}
+
+	private long total(ToLongFunction<WebhookCategoryMetrics> count)
+	{
+		return webhookService.getMetrics().getCategoryMetrics().stream().mapToLong(count).sum();
+	}
+}
@@ -0,0 +1,180 @@
+package com.fauxbingo;
+
+import com.fauxbingo.handlers.ChatMessageFilter;
+import com.fauxbingo.handlers.ChatMessageHandler;
+import com.fauxbingo.handlers.EventHandler;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import net.runelite.api.ChatMessageType;
+import net.runelite.api.events.ChatMessage;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class EventProcessorTest
+{
+	private EventProcessor eventProcessor;
+	private List<String> received;
+
+	@Before
+	public void before()
+	{
+		eventProcessor = new EventProcessor();
+		received = new ArrayList<>();
+	}
+
+	@Test
+	public void testDispatchInRegistrationOrder()
+	{
+		eventProcessor.registerHandler(handler(String.class, e -> received.add("first " + e)));
+		eventProcessor.registerHandler(handler(String.class, e -> received.add("second " + e)));
+		eventProcessor.registerHandler(handler(Integer.class, e -> received.add("int " + e)));
+
+		eventProcessor.processEvent("event");
+		eventProcessor.processEvent(1);
+		eventProcessor.processEvent(1L);
+
+		assertEquals(Arrays.asList("first event", "second event", "int 1"), received);
+	}
+
+	@Test
+	public void testUnregister()
+	{
+		EventHandler<String> first = handler(String.class, e -> received.add("first"));
+		EventHandler<String> second = handler(String.class, e -> received.add("second"));
+		eventProcessor.registerHandler(first);
+		eventProcessor.registerHandler(second);
+
+		eventProcessor.unregisterHandler(first);
+		eventProcessor.processEvent("event");
+		eventProcessor.unregisterHandler(second);
+		eventProcessor.processEvent("event");
+		eventProcessor.unregisterHandler(second);
+
+		assertEquals(Collections.singletonList("second"), received);
+	}
+
+	@Test
+	public void testHandlerErrorDoesNotStopDispatch()
+	{
+		eventProcessor.registerHandler(handler(String.class, e ->
+		{
+			throw new IllegalStateException("boom");
+		}));
+		eventProcessor.registerHandler(handler(String.class, e -> received.add(e)));
+
+		eventProcessor.processEvent("event");
+
+		assertEquals(Collections.singletonList("event"), received);
+	}
+
+	@Test
+	public void testRegistrationDuringDispatchAppliesToNextEvent()
+	{
+		eventProcessor.registerHandler(handler(String.class, e ->
+		{
+			received.add("outer " + e);
+			eventProcessor.registerHandler(handler(String.class, inner -> received.add("inner " + inner)));
+		}));
+
+		eventProcessor.processEvent("a");
+		eventProcessor.clearHandlers();
+		eventProcessor.processEvent("b");
+
+		assertEquals(Collections.singletonList("outer a"), received);
+	}
+
+	@Test
+	public void testChatMessagesRoutedByFilter()
+	{
+		ChatMessageFilter filter = ChatMessageFilter.builder()
+			.type(ChatMessageType.GAMEMESSAGE)
+			.substring("Valuable drop: ")
+			.build();
+		eventProcessor.registerHandler(handler(ChatMessage.class, e -> received.add("all " + e.getMessage())));
+		eventProcessor.registerHandler(chatHandler(filter, e -> received.add("filtered " + e.getMessage())));
+
+		eventProcessor.processEvent(chatMessage(ChatMessageType.GAMEMESSAGE, "Valuable drop: Dragon bones"));
+		eventProcessor.processEvent(chatMessage(ChatMessageType.SPAM, "Valuable drop: Dragon bones"));
+		eventProcessor.processEvent(chatMessage(ChatMessageType.GAMEMESSAGE, "You catch a shrimp."));
+
+		assertEquals(Arrays.asList(
+			"all Valuable drop: Dragon bones",
+			"filtered Valuable drop: Dragon bones",
+			"all Valuable drop: Dragon bones",
+			"all You catch a shrimp."), received);
+	}
+
+	@Test
+	public void testHandlerMetrics()
+	{
+		eventProcessor.registerHandler(handler(String.class, e -> received.add(e)));
+		eventProcessor.registerHandler(handler(Integer.class, e ->
+		{
+			throw new IllegalStateException("boom");
+		}));
+
+		eventProcessor.processEvent("a");
+		eventProcessor.processEvent("b");
+		eventProcessor.processEvent(1);
+
+		List<HandlerMetrics> metrics = eventProcessor.getHandlerMetrics();
+		assertEquals(2, metrics.size());
+		for (HandlerMetrics handlerMetrics : metrics)
+		{
+			boolean stringHandler = handlerMetrics.getName().endsWith("(String)");
+			assertEquals(stringHandler ? 2 : 1, handlerMetrics.getInvocations());
+			assertTrue(handlerMetrics.getName().startsWith("EventProcessorTest"));
+			assertTrue(handlerMetrics.getMaxNanos() <= handlerMetrics.getTotalNanos());
+		}
+	}
+
+	private static ChatMessageHandler chatHandler(ChatMessageFilter filter, Consumer<ChatMessage> action)
+	{
+		return new ChatMessageHandler()
+		{
+			@Override
+			public void handle(ChatMessage event)
+			{
+				action.accept(event);
+			}
+
+			@Override
+			public ChatMessageFilter getFilter()
+			{
+				return filter;
+			}
+		};
+	}
+
+	private static ChatMessage chatMessage(ChatMessageType type, String text)
+	{
+		ChatMessage message = new ChatMessage();
+		message.setType(type);
+		message.setMessage(text);
+		return message;
+	}
+
+	private static <T> EventHandler<T> handler(Class<T> type, Consumer<T> action)
+	{
+		return new EventHandler<T>()
+		{
+			@Override
+			public void handle(T event)
+			{
+				action.accept(event);
+			}
+
+			@Override
+			public Class<T> getEventType()
+			{
+				return type;
+			}
+		};
+	}
+}
@@ -0,0 +1,145 @@
+package com.fauxbingo.handlers;
+
+import net.runelite.api.ChatMessageType;
+import net.runelite.api.events.ChatMessage;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ChatClassifierTest
+{
+	private ChatClassifier chatClassifier;
+
+	@Before
+	public void before()
+	{
+		chatClassifier = new ChatClassifier();
+	}
+
+	@Test
+	public void testCollectionLog()
+	{
+		ChatClassification classification = chatClassifier.classify("New item added to your collection log: <col=ef1020>Abyssal whip</col>");
+
+		assertEquals(ChatClassification.Kind.COLLECTION_LOG, classification.getKind());
+		assertEquals("Abyssal whip", classification.getItemName());
+	}
+
+	@Test
+	public void testPet()
+	{
+		assertEquals(ChatClassification.Kind.PET,
+			chatClassifier.classify("You have a funny feeling like you're being followed.").getKind());
+		assertEquals(ChatClassification.Kind.NONE, chatClassifier.classify("You catch a shrimp.").getKind());
+	}
+
+	@Test
+	public void testValuableDrop()
+	{
+		ChatClassification classification = chatClassifier.classify("<col=ef1020>Valuable drop: 30 x Chaos rune (1,680 coins)</col>");
+
+		assertEquals(ChatClassification.Kind.VALUABLE_DROP, classification.getKind());
+		assertEquals("30 x Chaos rune", classification.getItemName());
+		assertEquals("1,680", classification.getValue());
+	}
+
+	@Test
+	public void testValuableDropNameEndsAtFirstParenthesis()
+	{
+		ChatClassification classification = chatClassifier.classify("Valuable drop: Scythe of vitur (uncharged) (300,000,000 coins)");
+
+		assertEquals("Scythe of vitur", classification.getItemName());
+		assertEquals("300,000,000", classification.getValue());
+	}
+
+	@Test
+	public void testMalformedValuableDrop()
+	{
+		assertEquals(ChatClassification.Kind.NONE, chatClassifier.classify("Valuable drop: Dragon bones (lots of coins)").getKind());
+		assertEquals(ChatClassification.Kind.NONE, chatClassifier.classify("Valuable drop: Dragon bones (1,,000 coins)").getKind());
+		assertEquals(ChatClassification.Kind.NONE, chatClassifier.classify("Valuable drop: (1,000 coins)").getKind());
+	}
+
+	@Test
+	public void testRaidCompletion()
+	{
+		assertCompletion("Your completed Chambers of Xeric count is: <col=ff0000>100</col>.", RaidType.COX, 100);
+		assertCompletion("Your completed Theatre of Blood: Hard Mode count is: 12.", RaidType.TOB_HM, 12);
+		assertCompletion("Your completed Theatre of Blood count is: 50.", RaidType.TOB, 50);
+		assertCompletion("Your Tombs of Amascut: Expert Mode completion count is 3.", RaidType.TOA_EXPERT, 3);
+		assertCompletion("Your Tombs of Amascut: Normal Mode completion count is 10.", RaidType.TOA_NORMAL, 10);
+	}
+
+	@Test
+	public void testRaidCompletionWithoutCount()
+	{
+		// Still a completion, resetting the raid, and not checked for a unique drop
+		assertCompletion("Your completed Theatre of Blood count is: unknown.", null, null);
+		assertCompletion("Your completed Chambers of Xeric count is: - Twisted bow", null, null);
+	}
+
+	@Test
+	public void testRaidUniques()
+	{
+		assertUnique("TestPlayer - Twisted bow", "TestPlayer", "Twisted bow");
+		assertUnique("Loot recipient: Teammate - Tumeken's shadow (uncharged)", "Teammate", "Tumeken's shadow (uncharged)");
+		assertUnique("<col=ef20ff>TestPlayer found something special: Scythe of vitur (uncharged)</col>", "TestPlayer", "Scythe of vitur (uncharged)");
+		// The separator is matched at its last occurrence, as with the greedy patterns this replaces
+		assertUnique("A - B - Dexterous prayer scroll", "A - B", "Dexterous prayer scroll");
+	}
+
+	@Test
+	public void testTaggedRaidUniques()
+	{
+		// Parsed with tags removed, so the item name does not keep the closing tag
+		assertUnique("<col=ef20ff>TestPlayer - Twisted bow</col>", "TestPlayer", "Twisted bow");
+		assertUnique("<col=ef20ff>Loot recipient: Teammate - Masori mask</col>", "Teammate", "Masori mask");
+	}
+
+	@Test
+	public void testRaidRecipients()
+	{
+		ChatClassification dust = chatClassifier.classify("Dust recipients: TestPlayer");
+		ChatClassification kit = chatClassifier.classify("Twisted Kit recipients: TestPlayer, Teammate");
+
+		assertEquals(ChatClassification.Kind.RAID_DUST, dust.getKind());
+		assertEquals("Dust recipients: TestPlayer", dust.getCleanMessage());
+		assertEquals(ChatClassification.Kind.RAID_KIT, kit.getKind());
+	}
+
+	@Test
+	public void testEventClassifiedOnce()
+	{
+		ChatMessage event = new ChatMessage();
+		event.setType(ChatMessageType.GAMEMESSAGE);
+		event.setMessage("Dust recipients: TestPlayer");
+
+		ChatClassification first = chatClassifier.classify(event);
+		assertSame(first, chatClassifier.classify(event));
+
+		event.setMessage("TestPlayer - Twisted bow");
+		assertEquals(ChatClassification.Kind.RAID_UNIQUE, chatClassifier.classify(event).getKind());
+	}
+
+	private void assertCompletion(String message, RaidType raidType, Integer killCount)
+	{
+		ChatClassification classification = chatClassifier.classify(message);
+
+		assertEquals(ChatClassification.Kind.RAID_COMPLETION, classification.getKind());
+		assertEquals(raidType, classification.getRaidType());
+		assertEquals(killCount, classification.getKillCount());
+	}
+
+	private void assertUnique(String message, String recipient, String itemName)
+	{
+		ChatClassification classification = chatClassifier.classify(message);
+
+		assertEquals(ChatClassification.Kind.RAID_UNIQUE, classification.getKind());
+		assertEquals(recipient, classification.getRecipient());
+		assertEquals(itemName, classification.getItemName());
+		assertNull(classification.getValue());
+	}
+}
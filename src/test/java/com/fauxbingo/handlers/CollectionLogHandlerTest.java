@@ -55,7 +55,7 @@ public class CollectionLogHandlerTest
 	@Before
 	public void before()
 	{
-		collectionLogHandler = new CollectionLogHandler(client, config, webhookService, logService, screenshotService, executor);
+		collectionLogHandler = new CollectionLogHandler(client, config, new ChatClassifier(), webhookService, logService, screenshotService, executor);
 		when(client.getLocalPlayer()).thenReturn(player);
 		when(player.getName()).thenReturn("TestPlayer");
 		when(config.webhookUrl()).thenReturn("http://webhook");
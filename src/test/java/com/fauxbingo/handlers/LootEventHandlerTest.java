@@ -1,6 +1,7 @@
 package com.fauxbingo.handlers;
 
 import com.fauxbingo.FauxBingoConfig;
+import com.fauxbingo.services.BingoItemRegistry;
 import com.fauxbingo.services.LogService;
 import com.fauxbingo.services.ScreenshotService;
 import com.fauxbingo.services.WebhookService;
@@ -66,7 +67,7 @@ public class LootEventHandlerTest
 	@Before
 	public void before()
 	{
-		lootEventHandler = new LootEventHandler(client, config, itemManager, webhookService, logService, screenshotService, executor);
+		lootEventHandler = new LootEventHandler(client, config, new BingoItemRegistry(config, itemManager), itemManager, webhookService, logService, screenshotService, executor);
 		when(config.webhookUrl()).thenReturn("http://webhook");
 		when(config.minLootValue()).thenReturn(1000000);
 		when(config.sendScreenshot()).thenReturn(false);
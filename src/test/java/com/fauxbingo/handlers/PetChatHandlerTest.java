@@ -51,7 +51,7 @@ public class PetChatHandlerTest
 	@Before
 	public void before()
 	{
-		petChatHandler = new PetChatHandler(client, config, webhookService, logService, screenshotService, executor);
+		petChatHandler = new PetChatHandler(client, config, new ChatClassifier(), webhookService, logService, screenshotService, executor);
 		when(client.getLocalPlayer()).thenReturn(player);
 		when(player.getName()).thenReturn("TestPlayer");
 		when(config.webhookUrl()).thenReturn("http://webhook");
@@ -1,6 +1,7 @@
 package com.fauxbingo.handlers;
 
 import com.fauxbingo.FauxBingoConfig;
+import com.fauxbingo.services.BingoItemRegistry;
 import com.fauxbingo.services.LogService;
 import com.fauxbingo.services.ScreenshotService;
 import com.fauxbingo.services.WebhookService;
@@ -75,7 +76,7 @@ public class RaidLootHandlerTest
 	@Before
 	public void before()
 	{
-		raidLootHandler = new RaidLootHandler(client, config, webhookService, logService, screenshotService, executor, itemManager);
+		raidLootHandler = new RaidLootHandler(client, config, new ChatClassifier(), new BingoItemRegistry(config, itemManager), webhookService, logService, screenshotService, executor, itemManager);
 		when(client.getLocalPlayer()).thenReturn(player);
 		when(player.getName()).thenReturn("TestPlayer");
 		when(config.webhookUrl()).thenReturn("http://webhook");
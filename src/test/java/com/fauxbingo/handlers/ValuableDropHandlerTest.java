@@ -1,6 +1,7 @@
 package com.fauxbingo.handlers;
 
 import com.fauxbingo.FauxBingoConfig;
+import com.fauxbingo.services.BingoItemRegistry;
 import com.fauxbingo.services.LogService;
 import com.fauxbingo.services.ScreenshotService;
 import com.fauxbingo.services.WebhookService;
@@ -9,6 +10,7 @@ import net.runelite.api.ChatMessageType;
 import net.runelite.api.Client;
 import net.runelite.api.Player;
 import net.runelite.api.events.ChatMessage;
+import net.runelite.client.game.ItemManager;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -42,6 +44,9 @@ public class ValuableDropHandlerTest
 	@Mock
 	private ScheduledExecutorService executor;
 
+	@Mock
+	private ItemManager itemManager;
+
 	@Mock
 	private Player player;
 
@@ -50,7 +55,7 @@ public class ValuableDropHandlerTest
 	@Before
 	public void before()
 	{
-		valuableDropHandler = new ValuableDropHandler(client, config, webhookService, logService, screenshotService, executor);
+		valuableDropHandler = new ValuableDropHandler(client, config, new ChatClassifier(), new BingoItemRegistry(config, itemManager), webhookService, logService, screenshotService, executor);
 		when(client.getLocalPlayer()).thenReturn(player);
 		when(player.getName()).thenReturn("TestPlayer");
 		when(config.webhookUrl()).thenReturn("http://webhook");
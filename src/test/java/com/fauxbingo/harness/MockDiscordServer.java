@@ -0,0 +1,439 @@
+package com.fauxbingo.harness;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * In-process stand-in for Discord webhooks and the logging API, built on {@link MockWebServer}.
+ * Each webhook URL, /api/webhooks/{id}/{token}, has a bucket of {@code limit} requests per window and answers with
+ * Discord's rate limit headers, 429 once the bucket is used up, and 400 or 413 for requests over Discord's message
+ * limits. /api/logs and /api/deaths accept any JSON and count the entries they receive.
+ * Retry-After is sent in fractional seconds rather than Discord's whole seconds, so short windows keep tests fast.
+ */
+public class MockDiscordServer implements Closeable
+{
+	public static final int MAX_EMBEDS = 10;
+	public static final int MAX_FILES = 10;
+	public static final int MAX_EMBED_CHARACTERS = 6000;
+	public static final int MAX_DESCRIPTION_CHARACTERS = 4096;
+	public static final long MAX_UPLOAD_BYTES = 10 * 1024 * 1024;
+
+	private static final String WEBHOOKS_PATH = "/api/webhooks/";
+	private static final Pattern NAME = Pattern.compile("; name=\"([^\"]*)\"");
+	private static final Pattern FILE_NAME = Pattern.compile("; filename=\"([^\"]*)\"");
+
+	/**
+	 * A webhook request that was accepted.
+	 */
+	public static final class Delivery
+	{
+		private final String webhookId;
+		private final long receivedAt;
+		private final List<String> descriptions;
+		private final int files;
+		private final long bytes;
+
+		private Delivery(String webhookId, long receivedAt, List<String> descriptions, int files, long bytes)
+		{
+			this.webhookId = webhookId;
+			this.receivedAt = receivedAt;
+			this.descriptions = descriptions;
+			this.files = files;
+			this.bytes = bytes;
+		}
+
+		public String getWebhookId()
+		{
+			return webhookId;
+		}
+
+		public long getReceivedAt()
+		{
+			return receivedAt;
+		}
+
+		/**
+		 * @return the description of every embed that has one, embeds holding only a further image have none
+		 */
+		public List<String> getDescriptions()
+		{
+			return descriptions;
+		}
+
+		public int getFiles()
+		{
+			return files;
+		}
+
+		/**
+		 * @return the size of the request body
+		 */
+		public long getBytes()
+		{
+			return bytes;
+		}
+	}
+
+	private static class Bucket
+	{
+		private int remaining;
+		private long resetAt;
+	}
+
+	private static class Part
+	{
+		private final String name;
+		private final String fileName;
+		private final byte[] content;
+
+		private Part(String name, String fileName, byte[] content)
+		{
+			this.name = name;
+			this.fileName = fileName;
+			this.content = content;
+		}
+	}
+
+	private final MockWebServer server = new MockWebServer();
+	private final Gson gson = new Gson();
+	private final int limit;
+	private final long windowMillis;
+	private final long latencyMillis;
+
+	// Guarded by this, requests are dispatched from the server's threads
+	private final Map<String, Bucket> buckets = new HashMap<>();
+	private final List<Delivery> deliveries = new ArrayList<>();
+	private int forcedRateLimits;
+	private int rateLimited;
+	private int rejected;
+	private int logEntries;
+	private int deaths;
+
+	/**
+	 * @param limit requests each webhook URL accepts per window
+	 * @param windowMillis length of a rate limit window
+	 * @param latencyMillis delay before every response, to stand in for the network and Discord
+	 */
+	public MockDiscordServer(int limit, long windowMillis, long latencyMillis)
+	{
+		this.limit = limit;
+		this.windowMillis = windowMillis;
+		this.latencyMillis = latencyMillis;
+		server.setDispatcher(new Dispatcher()
+		{
+			@Override
+			public MockResponse dispatch(RecordedRequest request)
+			{
+				return MockDiscordServer.this.dispatch(request)
+					.setHeadersDelay(MockDiscordServer.this.latencyMillis, TimeUnit.MILLISECONDS);
+			}
+		});
+	}
+
+	/**
+	 * Discord's limit of 5 requests per 2 seconds for each webhook, answered without delay.
+	 */
+	public MockDiscordServer()
+	{
+		this(5, 2000, 0);
+	}
+
+	public void start() throws IOException
+	{
+		server.start();
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		server.shutdown();
+	}
+
+	public String webhookUrl(String id)
+	{
+		return server.url(WEBHOOKS_PATH + id + "/token-" + id).toString();
+	}
+
+	/**
+	 * @return the base URL of the logging API
+	 */
+	public String apiUrl()
+	{
+		return server.url("/").toString();
+	}
+
+	/**
+	 * Answer the next webhook requests with 429 whatever their bucket holds.
+	 */
+	public synchronized void rateLimitNext(int requests)
+	{
+		forcedRateLimits += requests;
+	}
+
+	public synchronized List<Delivery> getDeliveries()
+	{
+		return new ArrayList<>(deliveries);
+	}
+
+	public synchronized int getEmbedCount()
+	{
+		return deliveries.stream().mapToInt(delivery -> delivery.getDescriptions().size()).sum();
+	}
+
+	public synchronized int getRateLimitedCount()
+	{
+		return rateLimited;
+	}
+
+	/**
+	 * @return the webhook requests refused for breaking Discord's message limits
+	 */
+	public synchronized int getRejectedCount()
+	{
+		return rejected;
+	}
+
+	public synchronized int getLogEntryCount()
+	{
+		return logEntries;
+	}
+
+	public synchronized int getDeathCount()
+	{
+		return deaths;
+	}
+
+	/**
+	 * Wait until at least {@code count} embeds with a description were delivered.
+	 *
+	 * @return false if they were not delivered in time
+	 */
+	public boolean awaitEmbeds(int count, long timeoutMillis) throws InterruptedException
+	{
+		long deadline = System.currentTimeMillis() + timeoutMillis;
+		while (getEmbedCount() < count)
+		{
+			if (System.currentTimeMillis() >= deadline)
+			{
+				return false;
+			}
+			Thread.sleep(10);
+		}
+		return true;
+	}
+
+	private synchronized MockResponse dispatch(RecordedRequest request)
+	{
+		String path = request.getPath();
+		if (!"POST".equals(request.getMethod()) || path == null)
+		{
+			return new MockResponse().setResponseCode(405);
+		}
+
+		if (path.startsWith(WEBHOOKS_PATH))
+		{
+			return dispatchWebhook(path.substring(WEBHOOKS_PATH.length()).split("/")[0], request);
+		}
+		if (path.equals("/api/logs"))
+		{
+			JsonElement body = gson.fromJson(request.getBody().readUtf8(), JsonElement.class);
+			logEntries += body.isJsonArray() ? body.getAsJsonArray().size() : 1;
+			return new MockResponse().setResponseCode(200);
+		}
+		if (path.equals("/api/deaths"))
+		{
+			gson.fromJson(request.getBody().readUtf8(), JsonObject.class);
+			deaths++;
+			return new MockResponse().setResponseCode(200);
+		}
+		return new MockResponse().setResponseCode(404);
+	}
+
+	private MockResponse dispatchWebhook(String id, RecordedRequest request)
+	{
+		long now = System.currentTimeMillis();
+		Bucket bucket = buckets.computeIfAbsent(id, k -> new Bucket());
+		if (now >= bucket.resetAt)
+		{
+			bucket.remaining = limit;
+			bucket.resetAt = now + windowMillis;
+		}
+		String resetAfter = String.valueOf((bucket.resetAt - now) / 1000.0);
+
+		if (forcedRateLimits > 0 || bucket.remaining == 0)
+		{
+			if (forcedRateLimits > 0)
+			{
+				forcedRateLimits--;
+				resetAfter = String.valueOf(windowMillis / 1000.0);
+			}
+			rateLimited++;
+			return new MockResponse()
+				.setResponseCode(429)
+				.addHeader("Retry-After", resetAfter)
+				.addHeader("X-RateLimit-Limit", limit)
+				.addHeader("X-RateLimit-Remaining", 0)
+				.addHeader("X-RateLimit-Reset-After", resetAfter)
+				.addHeader("X-RateLimit-Bucket", id)
+				.addHeader("X-RateLimit-Scope", "user")
+				.addHeader("Content-Type", "application/json")
+				.setBody("{\"message\": \"You are being rate limited.\", \"retry_after\": " + resetAfter + ", \"global\": false}");
+		}
+
+		bucket.remaining--;
+		MockResponse response = new MockResponse()
+			.addHeader("X-RateLimit-Limit", limit)
+			.addHeader("X-RateLimit-Remaining", bucket.remaining)
+			.addHeader("X-RateLimit-Reset-After", resetAfter)
+			.addHeader("X-RateLimit-Bucket", id);
+
+		long bytes = request.getBodySize();
+		String error = validate(id, now, request, bytes);
+		if (error != null)
+		{
+			rejected++;
+			return response
+				.setResponseCode(bytes > MAX_UPLOAD_BYTES ? 413 : 400)
+				.addHeader("Content-Type", "application/json")
+				.setBody("{\"message\": \"" + error + "\", \"code\": 50035}");
+		}
+		return response.setResponseCode(204);
+	}
+
+	/**
+	 * Check a webhook request against Discord's limits, recording it as delivered if it passes.
+	 *
+	 * @return why the request was refused, or null if it was accepted
+	 */
+	private String validate(String id, long now, RecordedRequest request, long bytes)
+	{
+		if (bytes > MAX_UPLOAD_BYTES)
+		{
+			return "Request entity too large";
+		}
+
+		List<Part> parts = parseMultipart(request);
+		if (parts == null)
+		{
+			return "Expected a multipart body";
+		}
+
+		JsonObject payload = null;
+		Set<String> fileNames = new HashSet<>();
+		for (Part part : parts)
+		{
+			if ("payload_json".equals(part.name))
+			{
+				payload = gson.fromJson(new String(part.content, StandardCharsets.UTF_8), JsonObject.class);
+			}
+			else if (part.fileName != null && !fileNames.add(part.fileName))
+			{
+				return "Duplicate attachment " + part.fileName;
+			}
+		}
+		if (payload == null)
+		{
+			return "Missing payload_json";
+		}
+		if (fileNames.size() > MAX_FILES)
+		{
+			return "Too many attachments: " + fileNames.size();
+		}
+
+		JsonArray embeds = payload.has("embeds") ? payload.getAsJsonArray("embeds") : new JsonArray();
+		if (embeds.size() > MAX_EMBEDS)
+		{
+			return "Too many embeds: " + embeds.size();
+		}
+
+		List<String> descriptions = new ArrayList<>();
+		int characters = 0;
+		for (JsonElement element : embeds)
+		{
+			JsonObject embed = element.getAsJsonObject();
+			if (embed.has("description"))
+			{
+				String description = embed.get("description").getAsString();
+				if (description.length() > MAX_DESCRIPTION_CHARACTERS)
+				{
+					return "Embed description too long: " + description.length();
+				}
+				characters += description.length();
+				descriptions.add(description);
+			}
+			if (embed.has("image"))
+			{
+				String url = embed.getAsJsonObject("image").get("url").getAsString();
+				if (url.startsWith("attachment://") && !fileNames.contains(url.substring("attachment://".length())))
+				{
+					return "Embed references a missing attachment " + url;
+				}
+			}
+		}
+		if (characters > MAX_EMBED_CHARACTERS)
+		{
+			return "Embeds too long: " + characters;
+		}
+
+		deliveries.add(new Delivery(id, now, descriptions, fileNames.size(), bytes));
+		return null;
+	}
+
+	/**
+	 * @return the parts of a multipart/form-data body, or null if the body is not multipart
+	 */
+	private static List<Part> parseMultipart(RecordedRequest request)
+	{
+		String contentType = request.getHeader("Content-Type");
+		int boundaryAt = contentType != null ? contentType.indexOf("boundary=") : -1;
+		if (boundaryAt < 0)
+		{
+			return null;
+		}
+		String boundary = contentType.substring(boundaryAt + "boundary=".length()).replace("\"", "");
+
+		// Latin-1 maps every byte to one char, so offsets in the string are offsets in the body
+		String body = new String(request.getBody().readByteArray(), StandardCharsets.ISO_8859_1);
+		String delimiter = "--" + boundary;
+		List<Part> parts = new ArrayList<>();
+		int at = body.indexOf(delimiter);
+		while (at >= 0 && !body.startsWith("--", at + delimiter.length()))
+		{
+			int headersStart = at + delimiter.length() + 2;
+			int headersEnd = body.indexOf("\r\n\r\n", headersStart);
+			int next = body.indexOf("\r\n" + delimiter, headersEnd);
+			if (headersEnd < 0 || next < 0)
+			{
+				return null;
+			}
+
+			String headers = body.substring(headersStart, headersEnd);
+			Matcher name = NAME.matcher(headers);
+			Matcher fileName = FILE_NAME.matcher(headers);
+			parts.add(new Part(
+				name.find() ? name.group(1) : null,
+				fileName.find() ? fileName.group(1) : null,
+				body.substring(headersEnd + 4, next).getBytes(StandardCharsets.ISO_8859_1)));
+			at = next + 2;
+		}
+		return parts;
+	}
+}
@@ -0,0 +1,135 @@
+package com.fauxbingo.services;
+
+import com.fauxbingo.FauxBingoConfig;
+import com.fauxbingo.util.CompiledBingoList;
+import java.util.Arrays;
+import net.runelite.api.ItemComposition;
+import net.runelite.client.events.ConfigChanged;
+import net.runelite.client.game.ItemManager;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BingoItemRegistryTest
+{
+	@Mock
+	private FauxBingoConfig config;
+
+	@Mock
+	private ItemManager itemManager;
+
+	@Mock
+	private ItemComposition itemComposition;
+
+	private BingoItemRegistry bingoItemRegistry;
+
+	@Before
+	public void before()
+	{
+		bingoItemRegistry = new BingoItemRegistry(config, itemManager);
+	}
+
+	@Test
+	public void testParsedOnce()
+	{
+		when(config.otherBingoItems()).thenReturn("Dragon bones, Soul rune");
+
+		CompiledBingoList first = bingoItemRegistry.get(BingoItemRegistry.BingoList.OTHER);
+		CompiledBingoList second = bingoItemRegistry.get(BingoItemRegistry.BingoList.OTHER);
+
+		assertSame(first, second);
+		assertEquals(Arrays.asList("Dragon bones", "Soul rune"), first.getItems());
+		verify(config, times(1)).otherBingoItems();
+	}
+
+	@Test
+	public void testConfigChangedRecompiles()
+	{
+		when(config.coxBingoItems()).thenReturn("Dynamite");
+		assertTrue(bingoItemRegistry.get(BingoItemRegistry.BingoList.COX).matches("Dynamite"));
+
+		bingoItemRegistry.onConfigChanged(configChanged(FauxBingoConfig.GROUP, "coxBingoItems", "Prayer scroll"));
+
+		CompiledBingoList cox = bingoItemRegistry.get(BingoItemRegistry.BingoList.COX);
+		assertFalse(cox.matches("Dynamite"));
+		assertTrue(cox.matches("Prayer scroll"));
+		verify(config, times(1)).coxBingoItems();
+	}
+
+	@Test
+	public void testOtherGroupIgnored()
+	{
+		when(config.tobBingoItems()).thenReturn("Vial of blood");
+		CompiledBingoList tob = bingoItemRegistry.get(BingoItemRegistry.BingoList.TOB);
+
+		bingoItemRegistry.onConfigChanged(configChanged("otherplugin", "tobBingoItems", "Scythe of vitur"));
+
+		assertSame(tob, bingoItemRegistry.get(BingoItemRegistry.BingoList.TOB));
+	}
+
+	@Test
+	public void testResetToDefault()
+	{
+		bingoItemRegistry.onConfigChanged(configChanged(FauxBingoConfig.GROUP, "toaBingoItems", null));
+
+		assertTrue(bingoItemRegistry.get(BingoItemRegistry.BingoList.TOA).isEmpty());
+		verify(config, never()).toaBingoItems();
+	}
+
+	@Test
+	public void testItemIdMatchCached()
+	{
+		when(config.otherBingoItems()).thenReturn("Dragon bones");
+		when(config.coxBingoItems()).thenReturn("Dragon *");
+		when(itemManager.getItemComposition(536)).thenReturn(itemComposition);
+		when(itemComposition.getName()).thenReturn("Dragon bones");
+
+		assertTrue(bingoItemRegistry.matches(BingoItemRegistry.BingoList.OTHER, 536));
+		assertTrue(bingoItemRegistry.matches(BingoItemRegistry.BingoList.COX, 536));
+		assertFalse(bingoItemRegistry.matches(BingoItemRegistry.BingoList.TOB, 536));
+		assertTrue(bingoItemRegistry.matches(BingoItemRegistry.BingoList.OTHER, 536));
+
+		verify(itemManager, times(1)).getItemComposition(536);
+	}
+
+	@Test
+	public void testItemIdMatchEmptyListSkipsLookup()
+	{
+		assertFalse(bingoItemRegistry.matches(BingoItemRegistry.BingoList.OTHER, 536));
+
+		verify(itemManager, never()).getItemComposition(anyInt());
+	}
+
+	@Test
+	public void testItemIdMatchInvalidatedOnConfigChange()
+	{
+		when(config.otherBingoItems()).thenReturn("Soul rune");
+		when(itemManager.getItemComposition(536)).thenReturn(itemComposition);
+		when(itemComposition.getName()).thenReturn("Dragon bones");
+
+		assertFalse(bingoItemRegistry.matches(BingoItemRegistry.BingoList.OTHER, 536));
+
+		bingoItemRegistry.onConfigChanged(configChanged(FauxBingoConfig.GROUP, "otherBingoItems", "Dragon bones"));
+
+		assertTrue(bingoItemRegistry.matches(BingoItemRegistry.BingoList.OTHER, 536));
+		verify(itemManager, times(2)).getItemComposition(536);
+	}
+
+	private static ConfigChanged configChanged(String group, String key, String newValue)
+	{
+		ConfigChanged event = new ConfigChanged();
+		event.setGroup(group);
+		event.setKey(key);
+		event.setNewValue(newValue);
+		return event;
+	}
+}
@@ -0,0 +1,190 @@
+package com.fauxbingo.services;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import javax.imageio.ImageIO;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ImageEncoderTest
+{
+	@Test
+	public void testEncodesPng() throws IOException
+	{
+		BufferedImage image = new BufferedImage(12, 8, BufferedImage.TYPE_INT_RGB);
+		image.setRGB(3, 4, 0xFF0000);
+
+		EncodedImage encoded = new ImageEncoder(Runnable::run).encode(image, ImageEncodingProfile.PNG).join();
+
+		assertEquals(ScreenshotFormat.PNG, encoded.getFormat());
+		assertEquals("screenshot-0.png", encoded.getFileName(0));
+		BufferedImage decoded = decode(encoded);
+		assertEquals(12, decoded.getWidth());
+		assertEquals(8, decoded.getHeight());
+		assertEquals(0xFF0000, decoded.getRGB(3, 4) & 0xFFFFFF);
+	}
+
+	@Test
+	public void testEncodesOnWorkerPool()
+	{
+		ImageEncoder imageEncoder = new ImageEncoder();
+		try
+		{
+			EncodedImage encoded = imageEncoder.encode(new BufferedImage(4, 4, BufferedImage.TYPE_INT_ARGB), ImageEncodingProfile.PNG).join();
+
+			assertNotNull(encoded);
+		}
+		finally
+		{
+			imageEncoder.shutDown();
+		}
+	}
+
+	@Test
+	public void testWaitsWhenQueuedRastersAreOverBudget()
+	{
+		List<Runnable> queued = new ArrayList<>();
+		BufferedImage image = new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB);
+		long rasterBytes = ImageEncoder.rasterBytes(image);
+		ImageEncoder imageEncoder = new ImageEncoder(queued::add, rasterBytes, rasterBytes);
+
+		CompletableFuture<EncodedImage> first = imageEncoder.encode(image, ImageEncodingProfile.PNG);
+		CompletableFuture<EncodedImage> second = imageEncoder.encode(image, ImageEncodingProfile.PNG);
+
+		assertEquals(1, queued.size());
+		assertEquals(400, imageEncoder.getQueuedRasterBytes());
+		assertEquals(400, imageEncoder.getWaitingRasterBytes());
+
+		queued.get(0).run();
+
+		// The waiting screenshot is handed to the pool once the first is encoded
+		assertNotNull(first.join());
+		assertFalse(second.isDone());
+		assertEquals(2, queued.size());
+		assertEquals(0, imageEncoder.getWaitingRasterBytes());
+
+		queued.get(1).run();
+
+		assertNotNull(second.join());
+		assertEquals(0, imageEncoder.getQueuedRasterBytes());
+	}
+
+	@Test
+	public void testSkipsImageWhenBacklogIsFull()
+	{
+		List<Runnable> queued = new ArrayList<>();
+		BufferedImage image = new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB);
+		long rasterBytes = ImageEncoder.rasterBytes(image);
+		ImageEncoder imageEncoder = new ImageEncoder(queued::add, rasterBytes, rasterBytes);
+
+		imageEncoder.encode(image, ImageEncodingProfile.PNG);
+		CompletableFuture<EncodedImage> waiting = imageEncoder.encode(image, ImageEncodingProfile.PNG);
+		CompletableFuture<EncodedImage> skipped = imageEncoder.encode(image, ImageEncodingProfile.PNG);
+
+		assertFalse(waiting.isDone());
+		assertNull(skipped.join());
+
+		imageEncoder.shutDown();
+
+		assertNull(waiting.join());
+		assertEquals(0, imageEncoder.getWaitingRasterBytes());
+	}
+
+	@Test
+	public void testSkipsImageWhenPoolRejects()
+	{
+		ImageEncoder imageEncoder = new ImageEncoder(runnable ->
+		{
+			throw new RejectedExecutionException();
+		});
+
+		CompletableFuture<EncodedImage> encoded = imageEncoder.encode(new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB), ImageEncodingProfile.PNG);
+
+		assertNull(encoded.join());
+		assertEquals(0, imageEncoder.getQueuedRasterBytes());
+	}
+
+	@Test
+	public void testJpegWithAlpha() throws IOException
+	{
+		ImageEncodingProfile profile = ImageEncodingProfile.builder()
+			.format(ScreenshotFormat.JPEG)
+			.quality(50)
+			.build();
+
+		EncodedImage encoded = ImageEncoder.encodeWithinBudget(new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB), profile);
+
+		assertEquals(ScreenshotFormat.JPEG, encoded.getFormat());
+		assertEquals("screenshot-0.jpg", encoded.getFileName(0));
+		assertEquals(16, decode(encoded).getWidth());
+	}
+
+	@Test
+	public void testDownscaleKeepsAspectRatio()
+	{
+		BufferedImage image = new BufferedImage(3840, 2160, BufferedImage.TYPE_INT_RGB);
+
+		BufferedImage scaled = ImageEncoder.downscale(image, 1280);
+
+		assertEquals(1280, scaled.getWidth());
+		assertEquals(720, scaled.getHeight());
+		assertSame(image, ImageEncoder.downscale(image, 0));
+		assertSame(image, ImageEncoder.downscale(image, 4000));
+	}
+
+	@Test
+	public void testFallsBackToFitBudget() throws IOException
+	{
+		BufferedImage image = noise(1200, 800);
+		ImageEncodingProfile profile = ImageEncodingProfile.builder()
+			.maxBytes(100 * 1024)
+			.build();
+
+		EncodedImage encoded = ImageEncoder.encodeWithinBudget(image, profile);
+
+		assertEquals(ScreenshotFormat.JPEG, encoded.getFormat());
+		assertTrue(encoded.getBytes().length <= profile.getMaxBytes());
+		assertNotNull(decode(encoded));
+	}
+
+	@Test
+	public void testGivesUpWhenBudgetCannotBeMet() throws IOException
+	{
+		ImageEncodingProfile profile = ImageEncodingProfile.builder()
+			.maxBytes(16)
+			.build();
+
+		assertNull(ImageEncoder.encodeWithinBudget(noise(640, 480), profile));
+	}
+
+	private static BufferedImage noise(int width, int height)
+	{
+		Random random = new Random(42);
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		for (int y = 0; y < height; y++)
+		{
+			for (int x = 0; x < width; x++)
+			{
+				image.setRGB(x, y, random.nextInt());
+			}
+		}
+		return image;
+	}
+
+	private static BufferedImage decode(EncodedImage encoded) throws IOException
+	{
+		return ImageIO.read(new ByteArrayInputStream(encoded.getBytes()));
+	}
+}
@@ -3,27 +3,38 @@ package com.fauxbingo.services;
 import com.fauxbingo.FauxBingoConfig;
 import com.fauxbingo.services.data.DeathRecord;
 import com.google.gson.Gson;
+import java.io.File;
+import java.io.IOException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import net.runelite.api.Client;
 import net.runelite.api.GameState;
 import net.runelite.api.Player;
 import okhttp3.Call;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
+import okio.Buffer;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
 @RunWith(MockitoJUnitRunner.class)
 public class LogServiceTest
 {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     @Mock
     private Client client;
 
@@ -54,7 +65,7 @@ public class LogServiceTest
         when(player.getName()).thenReturn("TestPlayer");
         when(client.getGameState()).thenReturn(GameState.LOGGED_IN);
 
-        logService = new LogService(client, config, okHttpClient, gson, executor);
+        logService = new LogService(client, config, okHttpClient, gson, executor, Outbox.inMemory());
     }
 
     @Test
@@ -98,4 +109,48 @@ public class LogServiceTest
 
         verify(okHttpClient, never()).newCall(any());
     }
+
+    @Test
+    public void testShutDownCancelsFlushAndStopsLogging()
+    {
+        ScheduledFuture<?> flushTask = mock(ScheduledFuture.class);
+        doReturn(flushTask).when(executor).scheduleAtFixedRate(any(Runnable.class), anyLong(), anyLong(), any());
+        LogService service = new LogService(client, config, okHttpClient, gson, executor, Outbox.inMemory());
+
+        service.shutDown();
+        service.log("DEATH", DeathRecord.builder().regionId(12893).killer("Elvarg").build());
+
+        verify(flushTask).cancel(false);
+        verify(okHttpClient, never()).newCall(any());
+    }
+
+    @Test
+    public void testReplaysJournaledEntries() throws IOException
+    {
+        File directory = folder.newFolder();
+        try (Outbox outbox = Outbox.open(directory))
+        {
+            new LogService(client, config, okHttpClient, gson, executor, outbox).log("TEST", "data");
+        }
+
+        when(okHttpClient.newCall(any(Request.class))).thenReturn(httpCall);
+        try (Outbox outbox = Outbox.open(directory))
+        {
+            new LogService(client, config, okHttpClient, gson, executor, outbox);
+
+            // The flush task of the service created last
+            ArgumentCaptor<Runnable> flushCaptor = ArgumentCaptor.forClass(Runnable.class);
+            verify(executor, times(3)).scheduleAtFixedRate(flushCaptor.capture(), anyLong(), anyLong(), any());
+            flushCaptor.getValue().run();
+        }
+
+        ArgumentCaptor<Request> captor = ArgumentCaptor.forClass(Request.class);
+        verify(okHttpClient).newCall(captor.capture());
+        assertEquals("http://api/api/logs", captor.getValue().url().toString());
+
+        Buffer buffer = new Buffer();
+        captor.getValue().body().writeTo(buffer);
+        String body = buffer.readUtf8();
+        assertTrue(body.startsWith("[{") && body.contains("\"type\":\"TEST\"") && body.contains("\"data\":\"data\""));
+    }
 }
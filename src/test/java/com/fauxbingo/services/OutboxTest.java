@@ -0,0 +1,198 @@
+package com.fauxbingo.services;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class OutboxTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testReplaysUnacknowledgedEntries() throws IOException
+	{
+		File directory = folder.getRoot();
+		long first;
+		long third;
+		try (Outbox outbox = Outbox.open(directory))
+		{
+			first = outbox.append(Outbox.Channel.LOG, bytes("first"));
+			long second = outbox.append(Outbox.Channel.LOG, bytes("second"));
+			third = outbox.append(Outbox.Channel.LOG, bytes("third"));
+			outbox.ack(second);
+		}
+
+		try (Outbox outbox = Outbox.open(directory))
+		{
+			List<Outbox.Entry> pending = outbox.pending(Outbox.Channel.LOG);
+
+			assertEquals(2, pending.size());
+			assertEquals(first, pending.get(0).getId());
+			assertArrayEquals(bytes("first"), pending.get(0).getPayload());
+			assertEquals(third, pending.get(1).getId());
+			assertArrayEquals(bytes("third"), pending.get(1).getPayload());
+
+			// Ids keep increasing past the replayed entries
+			assertTrue(outbox.append(Outbox.Channel.LOG, bytes("fourth")) > third);
+		}
+	}
+
+	@Test
+	public void testChannelsAreSeparate() throws IOException
+	{
+		try (Outbox outbox = Outbox.open(folder.getRoot()))
+		{
+			outbox.append(Outbox.Channel.WEBHOOK, bytes("webhook"));
+			outbox.append(Outbox.Channel.DEATH, bytes("death"));
+
+			assertEquals(1, outbox.pending(Outbox.Channel.WEBHOOK).size());
+			assertEquals(1, outbox.pending(Outbox.Channel.DEATH).size());
+			assertEquals(0, outbox.pending(Outbox.Channel.LOG).size());
+		}
+	}
+
+	@Test
+	public void testCompactsAcknowledgedEntries() throws IOException
+	{
+		File directory = folder.getRoot();
+		byte[] payload = new byte[64 * 1024];
+		long kept;
+		try (Outbox outbox = Outbox.open(directory))
+		{
+			kept = outbox.append(Outbox.Channel.WEBHOOK, bytes("kept"));
+			for (int i = 0; i < 4; i++)
+			{
+				outbox.ack(outbox.append(Outbox.Channel.WEBHOOK, payload));
+			}
+
+			assertEquals(2, outbox.getGeneration());
+			assertEquals(1, outbox.pending(Outbox.Channel.WEBHOOK).size());
+		}
+
+		try (Outbox outbox = Outbox.open(directory))
+		{
+			List<Outbox.Entry> pending = outbox.pending(Outbox.Channel.WEBHOOK);
+
+			assertEquals(2, outbox.getGeneration());
+			assertEquals(1, pending.size());
+			assertEquals(kept, pending.get(0).getId());
+		}
+	}
+
+	@Test
+	public void testCompactsOnExecutor() throws IOException
+	{
+		File directory = folder.getRoot();
+		byte[] payload = new byte[64 * 1024];
+		List<Runnable> compactions = new ArrayList<>();
+		long kept;
+		long appended;
+		try (Outbox outbox = Outbox.open(directory, compactions::add))
+		{
+			kept = outbox.append(Outbox.Channel.WEBHOOK, bytes("kept"));
+			for (int i = 0; i < 4; i++)
+			{
+				outbox.ack(outbox.append(Outbox.Channel.WEBHOOK, payload));
+			}
+			outbox.ack(outbox.append(Outbox.Channel.WEBHOOK, payload));
+
+			// Scheduled once, the acknowledging thread does not compact
+			assertEquals(1, compactions.size());
+			assertEquals(1, outbox.getGeneration());
+
+			appended = outbox.append(Outbox.Channel.WEBHOOK, bytes("appended"));
+			compactions.get(0).run();
+
+			assertEquals(2, outbox.getGeneration());
+			assertEquals(2, outbox.pending(Outbox.Channel.WEBHOOK).size());
+		}
+
+		try (Outbox outbox = Outbox.open(directory))
+		{
+			List<Outbox.Entry> pending = outbox.pending(Outbox.Channel.WEBHOOK);
+
+			assertEquals(2, outbox.getGeneration());
+			assertEquals(2, pending.size());
+			assertEquals(kept, pending.get(0).getId());
+			assertEquals(appended, pending.get(1).getId());
+			assertArrayEquals(bytes("appended"), pending.get(1).getPayload());
+		}
+	}
+
+	@Test
+	public void testGrowsPastInitialCapacity() throws IOException
+	{
+		File directory = folder.getRoot();
+		byte[] payload = new byte[Outbox.INITIAL_CAPACITY / 4];
+		try (Outbox outbox = Outbox.open(directory))
+		{
+			for (int i = 0; i < 6; i++)
+			{
+				payload[0] = (byte) i;
+				outbox.append(Outbox.Channel.WEBHOOK, payload);
+			}
+		}
+
+		try (Outbox outbox = Outbox.open(directory))
+		{
+			List<Outbox.Entry> pending = outbox.pending(Outbox.Channel.WEBHOOK);
+
+			assertEquals(6, pending.size());
+			assertEquals(5, pending.get(5).getPayload()[0]);
+		}
+	}
+
+	@Test
+	public void testStopsAtCorruptEntry() throws IOException
+	{
+		File directory = folder.getRoot();
+		try (Outbox outbox = Outbox.open(directory))
+		{
+			outbox.append(Outbox.Channel.LOG, bytes("intact"));
+			outbox.append(Outbox.Channel.LOG, bytes("corrupt"));
+			outbox.append(Outbox.Channel.LOG, bytes("after"));
+		}
+
+		try (RandomAccessFile file = new RandomAccessFile(new File(directory, Outbox.FILE_NAMES[0]), "rw"))
+		{
+			// First payload byte of the second entry
+			file.seek(Outbox.HEADER_SIZE + Outbox.ENTRY_HEADER_SIZE + bytes("intact").length + Outbox.ENTRY_HEADER_SIZE);
+			file.write('X');
+		}
+
+		try (Outbox outbox = Outbox.open(directory))
+		{
+			List<Outbox.Entry> pending = outbox.pending(Outbox.Channel.LOG);
+
+			assertEquals(1, pending.size());
+			assertArrayEquals(bytes("intact"), pending.get(0).getPayload());
+		}
+	}
+
+	@Test
+	public void testInMemory()
+	{
+		Outbox outbox = Outbox.inMemory();
+		long id = outbox.append(Outbox.Channel.LOG, bytes("entry"));
+		outbox.ack(id);
+
+		assertTrue(outbox.append(Outbox.Channel.LOG, bytes("entry")) > id);
+		assertEquals(0, outbox.pending(Outbox.Channel.LOG).size());
+	}
+
+	private static byte[] bytes(String text)
+	{
+		return text.getBytes(StandardCharsets.UTF_8);
+	}
+}
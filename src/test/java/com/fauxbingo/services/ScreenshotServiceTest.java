@@ -0,0 +1,106 @@
+package com.fauxbingo.services;
+
+import com.fauxbingo.FauxBingoConfig;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import net.runelite.api.Client;
+import net.runelite.client.callback.ClientThread;
+import net.runelite.client.ui.DrawManager;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ScreenshotServiceTest
+{
+	@Mock
+	private Client client;
+
+	@Mock
+	private ClientThread clientThread;
+
+	@Mock
+	private DrawManager drawManager;
+
+	@Mock
+	private FauxBingoConfig config;
+
+	private final AtomicLong now = new AtomicLong(1000000);
+	private final List<BufferedImage> received = new ArrayList<>();
+	private ScreenshotService screenshotService;
+
+	@Before
+	public void before()
+	{
+		screenshotService = new ScreenshotService(client, clientThread, drawManager, config, now::get);
+	}
+
+	@Test
+	public void testCoalescesPendingRequests()
+	{
+		screenshotService.requestScreenshot(received::add);
+		screenshotService.requestScreenshot(received::add);
+		screenshotService.requestScreenshot(received::add);
+
+		BufferedImage frame = new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB);
+		deliverFrame(1, frame);
+
+		assertEquals(3, received.size());
+		for (BufferedImage image : received)
+		{
+			assertSame(frame, image);
+		}
+	}
+
+	@Test
+	public void testReusesFrameWithinTick()
+	{
+		BufferedImage frame = new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB);
+		screenshotService.requestScreenshot(received::add);
+		deliverFrame(1, frame);
+
+		now.addAndGet(ScreenshotService.REUSE_MILLIS);
+		screenshotService.requestScreenshot(received::add);
+
+		assertEquals(2, received.size());
+		assertSame(frame, received.get(1));
+		verify(clientThread, times(1)).invokeLater(any(Runnable.class));
+
+		now.addAndGet(1);
+		screenshotService.requestScreenshot(received::add);
+
+		BufferedImage nextFrame = new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB);
+		deliverFrame(2, nextFrame);
+
+		assertEquals(3, received.size());
+		assertSame(nextFrame, received.get(2));
+	}
+
+	/**
+	 * Run the latest of the given number of capture requests and draw a frame.
+	 */
+	@SuppressWarnings("unchecked")
+	private void deliverFrame(int captures, BufferedImage frame)
+	{
+		ArgumentCaptor<Runnable> captureCaptor = ArgumentCaptor.forClass(Runnable.class);
+		verify(clientThread, times(captures)).invokeLater(captureCaptor.capture());
+		captureCaptor.getValue().run();
+
+		ArgumentCaptor<Consumer<Image>> frameCaptor = ArgumentCaptor.forClass(Consumer.class);
+		verify(drawManager, times(captures)).requestNextFrameListener(frameCaptor.capture());
+		frameCaptor.getValue().accept(frame);
+	}
+}
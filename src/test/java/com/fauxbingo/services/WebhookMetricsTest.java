@@ -0,0 +1,64 @@
+package com.fauxbingo.services;
+
+import java.util.List;
+import okhttp3.HttpUrl;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class WebhookMetricsTest
+{
+	private static final HttpUrl WEBHOOK = HttpUrl.parse("https://discord.com/api/webhooks/123/secret-token");
+
+	@Test
+	public void testLabelLeavesOutToken()
+	{
+		assertEquals("discord.com/123", WebhookMetrics.label(WEBHOOK));
+		assertFalse(WebhookMetrics.label(WEBHOOK).contains("secret-token"));
+		assertEquals("example.com", WebhookMetrics.label(HttpUrl.parse("https://example.com/hook?token=secret")));
+	}
+
+	@Test
+	public void testCategoryCounts()
+	{
+		WebhookMetrics metrics = new WebhookMetrics();
+		metrics.recordQueued(WebhookService.WebhookCategory.PET);
+		metrics.recordQueued(WebhookService.WebhookCategory.PET);
+		metrics.recordQueued(WebhookService.WebhookCategory.PET);
+		metrics.recordDelivered(WebhookService.WebhookCategory.PET, 100);
+		metrics.recordDelivered(WebhookService.WebhookCategory.PET, 2000);
+		metrics.recordFailed(WebhookService.WebhookCategory.PET);
+		metrics.recordScreenshotDropped(WebhookService.WebhookCategory.PET);
+
+		WebhookCategoryMetrics pet = metrics.getCategoryMetrics().get(WebhookService.WebhookCategory.PET.ordinal());
+		assertEquals(WebhookService.WebhookCategory.PET, pet.getCategory());
+		assertEquals(3, pet.getQueued());
+		assertEquals(2, pet.getDelivered());
+		assertEquals(1, pet.getFailed());
+		assertEquals(1, pet.getScreenshotsDropped());
+		assertEquals(2000, pet.getMaxMillis());
+	}
+
+	@Test
+	public void testUrlCounts()
+	{
+		WebhookMetrics metrics = new WebhookMetrics();
+		metrics.recordAttempt(WEBHOOK);
+		metrics.recordAttempt(WEBHOOK);
+		metrics.recordRequest(WEBHOOK, WebhookOutcome.DELIVERED, 1000, 300);
+		metrics.recordAttempt(WEBHOOK);
+		metrics.recordRequest(WEBHOOK, WebhookOutcome.SHED, 500, 0);
+
+		List<WebhookUrlMetrics> urls = metrics.getUrlMetrics();
+		assertEquals(1, urls.size());
+		WebhookUrlMetrics url = urls.get(0);
+		assertEquals("discord.com/123", url.getLabel());
+		assertEquals(2, url.getRequests());
+		assertEquals(3, url.getAttempts());
+		assertEquals(1, url.getDelivered());
+		assertEquals(1, url.getShed());
+		assertEquals(1000, url.getBytesSent());
+		assertEquals(300, url.getMaxMillis());
+	}
+}
@@ -0,0 +1,314 @@
+package com.fauxbingo.services;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.longThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class WebhookRateLimiterTest
+{
+	private static final Request WEBHOOK = new Request.Builder().url("http://webhook").build();
+	private static final Request OTHER_WEBHOOK = new Request.Builder().url("http://other-webhook").build();
+
+	@Mock
+	private OkHttpClient okHttpClient;
+
+	@Mock
+	private ScheduledExecutorService executor;
+
+	@Mock
+	private Call call;
+
+	@Mock
+	private ScheduledFuture<?> scheduledFuture;
+
+	private final AtomicLong now = new AtomicLong(1000000);
+	private WebhookRateLimiter rateLimiter;
+
+	@Before
+	public void before()
+	{
+		rateLimiter = new WebhookRateLimiter(okHttpClient, executor, now::get, new WebhookMetrics());
+		lenient().when(okHttpClient.newCall(any())).thenReturn(call);
+	}
+
+	@Test
+	public void testBurstLimitedBeforeFirstResponse()
+	{
+		doReturn(scheduledFuture).when(executor).schedule(any(Runnable.class), anyLong(), any());
+
+		for (int i = 0; i <= WebhookRateLimiter.DEFAULT_LIMIT; i++)
+		{
+			rateLimiter.send(WEBHOOK);
+		}
+
+		verify(okHttpClient, times(WebhookRateLimiter.DEFAULT_LIMIT)).newCall(WEBHOOK);
+		verify(executor).schedule(any(Runnable.class), eq(WebhookRateLimiter.DEFAULT_WINDOW_MILLIS), eq(TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	public void testHonoursRateLimitHeaders() throws IOException
+	{
+		doReturn(scheduledFuture).when(executor).schedule(any(Runnable.class), anyLong(), any());
+
+		rateLimiter.send(WEBHOOK);
+		respond(1, 204, "X-RateLimit-Limit", "5", "X-RateLimit-Remaining", "0", "X-RateLimit-Reset-After", "1.5");
+		rateLimiter.send(WEBHOOK);
+
+		verify(okHttpClient, times(1)).newCall(WEBHOOK);
+		ArgumentCaptor<Runnable> drainCaptor = ArgumentCaptor.forClass(Runnable.class);
+		verify(executor).schedule(drainCaptor.capture(), eq(1500L), eq(TimeUnit.MILLISECONDS));
+
+		now.addAndGet(1500);
+		drainCaptor.getValue().run();
+
+		verify(okHttpClient, times(2)).newCall(WEBHOOK);
+	}
+
+	@Test
+	public void testRateLimitedUrlDoesNotBlockOthers() throws IOException
+	{
+		doReturn(scheduledFuture).when(executor).schedule(any(Runnable.class), anyLong(), any());
+
+		rateLimiter.send(WEBHOOK);
+		respond(1, 204, "X-RateLimit-Remaining", "0", "X-RateLimit-Reset-After", "2");
+		rateLimiter.send(WEBHOOK);
+		rateLimiter.send(OTHER_WEBHOOK);
+
+		verify(okHttpClient, times(1)).newCall(WEBHOOK);
+		verify(okHttpClient, times(1)).newCall(OTHER_WEBHOOK);
+	}
+
+	@Test
+	public void testRetriesAfterTooManyRequests() throws IOException
+	{
+		doReturn(scheduledFuture).when(executor).schedule(any(Runnable.class), anyLong(), any());
+
+		rateLimiter.send(WEBHOOK);
+		respond(1, 429, "Retry-After", "3");
+
+		ArgumentCaptor<Runnable> drainCaptor = ArgumentCaptor.forClass(Runnable.class);
+		verify(executor).schedule(drainCaptor.capture(),
+			longThat(delay -> delay >= 3000 && delay <= 3000 + WebhookRateLimiter.RETRY_AFTER_JITTER_MILLIS),
+			eq(TimeUnit.MILLISECONDS));
+		verify(okHttpClient, times(1)).newCall(WEBHOOK);
+
+		now.addAndGet(3000 + WebhookRateLimiter.RETRY_AFTER_JITTER_MILLIS);
+		drainCaptor.getValue().run();
+
+		verify(okHttpClient, times(2)).newCall(WEBHOOK);
+	}
+
+	@Test
+	public void testRetriesServerErrorsWithBackoff() throws IOException
+	{
+		doReturn(scheduledFuture).when(executor).schedule(any(Runnable.class), anyLong(), any());
+
+		rateLimiter.send(WEBHOOK);
+		respond(1, 502);
+
+		ArgumentCaptor<Runnable> retryCaptor = ArgumentCaptor.forClass(Runnable.class);
+		verify(executor).schedule(retryCaptor.capture(),
+			longThat(delay -> delay >= WebhookRateLimiter.BASE_BACKOFF_MILLIS / 2 && delay <= WebhookRateLimiter.BASE_BACKOFF_MILLIS),
+			eq(TimeUnit.MILLISECONDS));
+
+		retryCaptor.getValue().run();
+
+		verify(okHttpClient, times(2)).newCall(WEBHOOK);
+	}
+
+	@Test
+	public void testClientErrorsAreNotRetried() throws IOException
+	{
+		CompletableFuture<WebhookOutcome> result = rateLimiter.send(WEBHOOK);
+		respond(1, 404);
+
+		verify(executor, never()).schedule(any(Runnable.class), anyLong(), any());
+		verify(okHttpClient, times(1)).newCall(WEBHOOK);
+		// Settled, so the webhook is not kept for a later retry
+		assertEquals(WebhookOutcome.REJECTED, result.getNow(null));
+	}
+
+	@Test
+	public void testCompletesOutsideLock() throws IOException
+	{
+		doReturn(scheduledFuture).when(executor).schedule(any(Runnable.class), anyLong(), any());
+
+		CompletableFuture<Boolean> delivered = rateLimiter.send(WEBHOOK).thenApply(outcome -> Thread.holdsLock(rateLimiter));
+		respond(1, 204, "X-RateLimit-Remaining", "0", "X-RateLimit-Reset-After", "1");
+		List<CompletableFuture<Boolean>> loot = new ArrayList<>();
+		for (int i = 0; i <= WebhookRateLimiter.MAX_PENDING; i++)
+		{
+			loot.add(rateLimiter.send(WEBHOOK, 6, true).thenApply(outcome -> Thread.holdsLock(rateLimiter)));
+		}
+
+		assertFalse(delivered.getNow(true));
+		assertFalse(loot.get(loot.size() - 1).getNow(true));
+	}
+
+	@Test
+	public void testSendsHigherPriorityFirst() throws IOException
+	{
+		doReturn(scheduledFuture).when(executor).schedule(any(Runnable.class), anyLong(), any());
+		Request loot = new Request.Builder().url("http://webhook").build();
+		Request pet = new Request.Builder().url("http://webhook").build();
+
+		rateLimiter.send(WEBHOOK);
+		respond(1, 204, "X-RateLimit-Remaining", "0", "X-RateLimit-Reset-After", "1");
+		rateLimiter.send(loot, 6, true);
+		rateLimiter.send(pet, 1, false);
+
+		ArgumentCaptor<Runnable> drainCaptor = ArgumentCaptor.forClass(Runnable.class);
+		verify(executor).schedule(drainCaptor.capture(), eq(1000L), eq(TimeUnit.MILLISECONDS));
+		now.addAndGet(1000);
+		drainCaptor.getValue().run();
+
+		InOrder inOrder = inOrder(okHttpClient);
+		inOrder.verify(okHttpClient).newCall(pet);
+		inOrder.verify(okHttpClient).newCall(loot);
+	}
+
+	@Test
+	public void testShedsLowPriorityBacklog() throws IOException
+	{
+		doReturn(scheduledFuture).when(executor).schedule(any(Runnable.class), anyLong(), any());
+
+		rateLimiter.send(WEBHOOK);
+		respond(1, 204, "X-RateLimit-Remaining", "0", "X-RateLimit-Reset-After", "1");
+
+		List<CompletableFuture<WebhookOutcome>> loot = new ArrayList<>();
+		for (int i = 0; i < WebhookRateLimiter.MAX_PENDING; i++)
+		{
+			loot.add(rateLimiter.send(WEBHOOK, 6, true));
+		}
+		CompletableFuture<WebhookOutcome> pet = rateLimiter.send(WEBHOOK, 1, false);
+
+		// The newest loot webhook is dropped to make room, and counts as settled
+		CompletableFuture<WebhookOutcome> shed = loot.get(loot.size() - 1);
+		assertEquals(WebhookOutcome.SHED, shed.getNow(null));
+		assertFalse(loot.get(0).isDone());
+		assertFalse(pet.isDone());
+	}
+
+	@Test
+	public void testNeverShedsImportantWebhooks() throws IOException
+	{
+		doReturn(scheduledFuture).when(executor).schedule(any(Runnable.class), anyLong(), any());
+
+		rateLimiter.send(WEBHOOK);
+		respond(1, 204, "X-RateLimit-Remaining", "0", "X-RateLimit-Reset-After", "1");
+
+		List<CompletableFuture<WebhookOutcome>> pets = new ArrayList<>();
+		for (int i = 0; i <= WebhookRateLimiter.MAX_PENDING; i++)
+		{
+			pets.add(rateLimiter.send(WEBHOOK, 1, false));
+		}
+
+		assertTrue(pets.stream().noneMatch(CompletableFuture::isDone));
+	}
+
+	@Test
+	public void testShutDownFailsWaitingRequests() throws IOException
+	{
+		doReturn(scheduledFuture).when(executor).schedule(any(Runnable.class), anyLong(), any());
+
+		CompletableFuture<WebhookOutcome> sent = rateLimiter.send(WEBHOOK);
+		respond(1, 204, "X-RateLimit-Remaining", "0", "X-RateLimit-Reset-After", "1");
+		CompletableFuture<WebhookOutcome> waiting = rateLimiter.send(WEBHOOK);
+
+		rateLimiter.shutDown();
+
+		assertEquals(WebhookOutcome.DELIVERED, sent.getNow(null));
+		// Not settled, so the outbox replays it on the next start
+		assertEquals(WebhookOutcome.FAILED, waiting.getNow(null));
+		verify(scheduledFuture).cancel(false);
+		assertEquals(WebhookOutcome.FAILED, rateLimiter.send(WEBHOOK).getNow(null));
+		verify(okHttpClient, times(1)).newCall(WEBHOOK);
+	}
+
+	@Test
+	public void testAwaitInFlightStopsAtDeadline() throws IOException
+	{
+		CompletableFuture<WebhookOutcome> sent = rateLimiter.send(WEBHOOK);
+
+		rateLimiter.shutDown();
+		long start = System.currentTimeMillis();
+		rateLimiter.awaitInFlight(start + 50);
+
+		// Still being sent, shutdown did not wait past the deadline for it
+		assertTrue(System.currentTimeMillis() - start < 1000);
+		assertFalse(sent.isDone());
+
+		respond(1, 204);
+		rateLimiter.awaitInFlight(System.currentTimeMillis() + 1000);
+
+		assertEquals(WebhookOutcome.DELIVERED, sent.getNow(null));
+	}
+
+	@Test
+	public void testBackoffIsBounded()
+	{
+		for (int attempt = 1; attempt < 20; attempt++)
+		{
+			long ceiling = Math.min(WebhookRateLimiter.MAX_BACKOFF_MILLIS, WebhookRateLimiter.BASE_BACKOFF_MILLIS << Math.min(attempt - 1, 16));
+			long backoff = WebhookRateLimiter.backoffMillis(attempt);
+
+			assertTrue(backoff >= ceiling / 2 && backoff <= ceiling);
+		}
+	}
+
+	/**
+	 * Complete the latest of the given number of enqueued calls with a response.
+	 */
+	private void respond(int calls, int code, String... headers) throws IOException
+	{
+		ArgumentCaptor<Callback> callbackCaptor = ArgumentCaptor.forClass(Callback.class);
+		verify(call, times(calls)).enqueue(callbackCaptor.capture());
+
+		Response.Builder response = new Response.Builder()
+			.request(WEBHOOK)
+			.protocol(Protocol.HTTP_1_1)
+			.code(code)
+			.message("Status " + code)
+			.body(ResponseBody.create(null, ""));
+		for (int i = 0; i < headers.length; i += 2)
+		{
+			response.header(headers[i], headers[i + 1]);
+		}
+
+		callbackCaptor.getValue().onResponse(call, response.build());
+	}
+}
@@ -0,0 +1,176 @@
+package com.fauxbingo.services;
+
+import com.fauxbingo.FauxBingoConfig;
+import com.fauxbingo.harness.MockDiscordServer;
+import com.google.gson.Gson;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import net.runelite.api.Client;
+import net.runelite.api.GameState;
+import net.runelite.api.Player;
+import net.runelite.api.WorldType;
+import okhttp3.OkHttpClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Sends webhooks and logs over real HTTP to a {@link MockDiscordServer}.
+ */
+public class WebhookServiceIntegrationTest
+{
+	private static final long TIMEOUT_MILLIS = 15000;
+
+	private MockDiscordServer server;
+	private ScheduledExecutorService executor;
+	private OkHttpClient okHttpClient;
+	private ImageEncoder imageEncoder;
+	private Client client;
+	private FauxBingoConfig config;
+	private WebhookService webhookService;
+
+	@Before
+	public void before() throws Exception
+	{
+		server = new MockDiscordServer(5, 500, 0);
+		server.start();
+		// Single threaded, as RuneLite's shared executor is
+		executor = new ScheduledThreadPoolExecutor(1);
+		okHttpClient = new OkHttpClient();
+		imageEncoder = new ImageEncoder();
+
+		client = mock(Client.class);
+		Player player = mock(Player.class);
+		when(player.getName()).thenReturn("TestPlayer");
+		when(client.getLocalPlayer()).thenReturn(player);
+		when(client.getGameState()).thenReturn(GameState.LOGGED_IN);
+		when(client.getWorldType()).thenReturn(EnumSet.of(WorldType.MEMBERS));
+
+		// Every option at its default unless stubbed
+		config = mock(FauxBingoConfig.class, withSettings().defaultAnswer(CALLS_REAL_METHODS));
+		doReturn(server.webhookUrl("1")).when(config).webhookUrl();
+
+		webhookService = new WebhookService(client, okHttpClient, executor, config, new Gson(), imageEncoder, Outbox.inMemory());
+	}
+
+	@After
+	public void after() throws Exception
+	{
+		executor.shutdownNow();
+		imageEncoder.shutDown();
+		okHttpClient.dispatcher().executorService().shutdown();
+		server.close();
+	}
+
+	@Test
+	public void testBundlesIntoOneRequest() throws Exception
+	{
+		webhookService.sendWebhook(config.webhookUrl(), "Valuable drop: Fang", frame(Color.RED), "Fang", WebhookService.WebhookCategory.VALUABLE_DROP);
+		webhookService.sendWebhook(config.webhookUrl(), "Collection log: Fang", frame(Color.BLUE), "Fang", WebhookService.WebhookCategory.COLLECTION_LOG);
+		webhookService.sendWebhook(config.webhookUrl(), "Pet: Olmlet", frame(Color.GREEN), "Olmlet", WebhookService.WebhookCategory.PET);
+
+		assertTrue(server.awaitEmbeds(2, TIMEOUT_MILLIS));
+		List<MockDiscordServer.Delivery> deliveries = server.getDeliveries();
+		assertEquals(1, deliveries.size());
+		assertEquals(3, deliveries.get(0).getFiles());
+		assertTrue(deliveries.get(0).getDescriptions().get(0).startsWith("Pet: Olmlet"));
+		assertEquals(0, server.getRejectedCount());
+	}
+
+	@Test
+	public void testRetriesRateLimitedWebhook() throws Exception
+	{
+		server.rateLimitNext(1);
+
+		webhookService.sendWebhook(config.webhookUrl(), "Pet: Olmlet", null, null, WebhookService.WebhookCategory.PET);
+
+		assertTrue(server.awaitEmbeds(1, TIMEOUT_MILLIS));
+		assertEquals(1, server.getRateLimitedCount());
+		WebhookUrlMetrics url = awaitUrlMetrics();
+		assertEquals(1, url.getDelivered());
+		assertEquals(2, url.getAttempts());
+	}
+
+	@Test
+	public void testLargeBacklogStaysWithinLimits() throws Exception
+	{
+		// More than the bucket's 5 requests of 10 embeds in one window
+		int webhooks = 60;
+		for (int i = 0; i < webhooks; i++)
+		{
+			webhookService.sendWebhook(config.webhookUrl(), "Valuable drop: Item " + i, frame(new Color(i * 4, 0, 0)), "Item " + i,
+				WebhookService.WebhookCategory.VALUABLE_DROP);
+		}
+
+		assertTrue(server.awaitEmbeds(webhooks, TIMEOUT_MILLIS));
+		assertEquals(0, server.getRejectedCount());
+		for (MockDiscordServer.Delivery delivery : server.getDeliveries())
+		{
+			assertTrue(delivery.getDescriptions().size() <= MockDiscordServer.MAX_EMBEDS);
+			assertTrue(delivery.getFiles() <= MockDiscordServer.MAX_FILES);
+		}
+		// The later requests wait for the bucket to reset instead of being refused
+		assertEquals(0, server.getRateLimitedCount());
+	}
+
+	@Test
+	public void testLogsReachApi() throws Exception
+	{
+		doReturn(true).when(config).enableLoggingApi();
+		doReturn(server.apiUrl()).when(config).loggingApiUrl();
+		LogService logService = new LogService(client, config, okHttpClient, new Gson(), executor, Outbox.inMemory());
+
+		// A full batch is sent straight away, deaths on their own
+		for (int i = 0; i < 10; i++)
+		{
+			logService.log("LOOT", "Item " + i);
+		}
+		logService.log("DEATH", "Killed");
+
+		long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+		while ((server.getLogEntryCount() < 10 || server.getDeathCount() < 1) && System.currentTimeMillis() < deadline)
+		{
+			Thread.sleep(10);
+		}
+		assertEquals(10, server.getLogEntryCount());
+		assertEquals(1, server.getDeathCount());
+	}
+
+	/**
+	 * The URL metrics are recorded once the response is handled, which may be just after the server counted it.
+	 */
+	private WebhookUrlMetrics awaitUrlMetrics() throws InterruptedException
+	{
+		long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+		while (webhookService.getMetrics().getUrlMetrics().isEmpty()
+			|| webhookService.getMetrics().getUrlMetrics().get(0).getRequests() == 0)
+		{
+			assertTrue(System.currentTimeMillis() < deadline);
+			Thread.sleep(10);
+		}
+		return webhookService.getMetrics().getUrlMetrics().get(0);
+	}
+
+	private static BufferedImage frame(Color color)
+	{
+		BufferedImage image = new BufferedImage(64, 48, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = image.createGraphics();
+		graphics.setColor(color);
+		graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+		graphics.dispose();
+		return image;
+	}
+}
@@ -2,20 +2,29 @@ package com.fauxbingo.services;
 
 import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import okhttp3.Call;
+import okhttp3.Callback;
 import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
 import okio.Buffer;
 import net.runelite.api.Client;
 import net.runelite.api.GameState;
 import net.runelite.api.WorldType;
 import com.fauxbingo.FauxBingoConfig;
+import com.google.gson.Gson;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -24,10 +33,12 @@ import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.longThat;
 import static org.mockito.Mockito.*;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -56,9 +67,15 @@ public class WebhookServiceTest
     @Before
     public void before()
     {
-        webhookService = new WebhookService(client, okHttpClient, executor, config);
+        webhookService = new WebhookService(client, okHttpClient, executor, config, new Gson(), new ImageEncoder(Runnable::run), Outbox.inMemory());
         when(okHttpClient.newCall(any())).thenReturn(call);
         doReturn(scheduledFuture).when(executor).schedule(any(Runnable.class), anyLong(), any());
+        // Drain submitted webhooks straight away
+        lenient().doAnswer(invocation ->
+        {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(executor).execute(any(Runnable.class));
         when(client.getGameState()).thenReturn(GameState.LOGGED_IN);
         when(client.getWorldType()).thenReturn(EnumSet.of(WorldType.MEMBERS));
         when(config.funnyGameModeMessages()).thenReturn(false);
@@ -81,10 +98,55 @@ public class WebhookServiceTest
         webhookService.sendWebhook("http://webhook", "Manual", null);
         
         // Should be scheduled even if not logged in
-        verify(executor).schedule(any(Runnable.class), eq(3L), eq(TimeUnit.SECONDS));
+        verify(executor).schedule(any(Runnable.class), eq(WebhookService.MIN_LINGER_MILLIS), eq(TimeUnit.MILLISECONDS));
         verify(client, never()).getGameState();
     }
 
+    @Test
+    public void testSubmittedOnExecutor()
+    {
+        doNothing().when(executor).execute(any(Runnable.class));
+
+        webhookService.sendWebhook("http://webhook", "Message 1", null);
+        webhookService.sendWebhook("http://webhook", "Message 2", null);
+
+        // The sender only hands the webhooks over, one drain picks both up
+        ArgumentCaptor<Runnable> drainCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(executor, times(1)).execute(drainCaptor.capture());
+        verify(executor, never()).schedule(any(Runnable.class), anyLong(), any());
+
+        drainCaptor.getValue().run();
+
+        verify(executor).schedule(any(Runnable.class), eq(WebhookService.MIN_LINGER_MILLIS), eq(TimeUnit.MILLISECONDS));
+        verify(executor).schedule(any(Runnable.class),
+            longThat(delay -> delay > WebhookService.MIN_LINGER_MILLIS && delay <= WebhookService.QUIET_MILLIS),
+            eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testLingerExtendsWhileEventsArrive()
+    {
+        webhookService.sendWebhook("http://webhook", "Valuable drop: Fang", null, "Fang", WebhookService.WebhookCategory.VALUABLE_DROP);
+        webhookService.sendWebhook("http://webhook", "Collection log: Fang", null, "Fang", WebhookService.WebhookCategory.COLLECTION_LOG);
+
+        verify(executor).schedule(any(Runnable.class), eq(WebhookService.MIN_LINGER_MILLIS), eq(TimeUnit.MILLISECONDS));
+        verify(scheduledFuture).cancel(false);
+        verify(executor).schedule(any(Runnable.class),
+            longThat(delay -> delay > WebhookService.MIN_LINGER_MILLIS && delay <= WebhookService.QUIET_MILLIS),
+            eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testFlushesEarlyWhenRequestIsFull()
+    {
+        for (int i = 0; i < WebhookService.MAX_EMBEDS; i++)
+        {
+            webhookService.sendWebhook("http://webhook", "Item " + i, null, "Item " + i, WebhookService.WebhookCategory.LOOT);
+        }
+
+        verify(executor).schedule(any(Runnable.class), eq(0L), eq(TimeUnit.MILLISECONDS));
+    }
+
     @Test
     public void testBundling()
     {
@@ -96,7 +158,7 @@ public class WebhookServiceTest
 
         // Verify scheduled task
         ArgumentCaptor<Runnable> runnableCaptor = ArgumentCaptor.forClass(Runnable.class);
-        verify(executor).schedule(runnableCaptor.capture(), eq(3L), eq(TimeUnit.SECONDS));
+        verify(executor, atLeastOnce()).schedule(runnableCaptor.capture(), anyLong(), eq(TimeUnit.MILLISECONDS));
 
         // Run the task
         runnableCaptor.getValue().run();
@@ -112,7 +174,7 @@ public class WebhookServiceTest
     }
 
     @Test
-    public void testDifferentItems()
+    public void testDifferentItems() throws IOException
     {
         String urls = "http://webhook";
         
@@ -120,13 +182,77 @@ public class WebhookServiceTest
         webhookService.sendWebhook(urls, "Item 2", null, "Item 2", WebhookService.WebhookCategory.LOOT);
 
         ArgumentCaptor<Runnable> runnableCaptor = ArgumentCaptor.forClass(Runnable.class);
-        verify(executor).schedule(runnableCaptor.capture(), eq(3L), eq(TimeUnit.SECONDS));
+        verify(executor, atLeastOnce()).schedule(runnableCaptor.capture(), anyLong(), eq(TimeUnit.MILLISECONDS));
+        runnableCaptor.getValue().run();
+
+        // Both items are sent as separate embeds of one request
+        ArgumentCaptor<Request> requestCaptor = ArgumentCaptor.forClass(Request.class);
+        verify(okHttpClient, times(1)).newCall(requestCaptor.capture());
+
+        String body = readBody(requestCaptor.getValue());
+        assertTrue("Body should contain the first item", body.contains("\"description\":\"Item 1\""));
+        assertTrue("Body should contain the second item", body.contains("\"description\":\"Item 2\""));
+    }
+
+    @Test
+    public void testHigherPriorityFirst() throws IOException
+    {
+        String urls = "http://webhook";
+
+        webhookService.sendWebhook(urls, "Loot: Bones", null, "Bones", WebhookService.WebhookCategory.LOOT);
+        webhookService.sendWebhook(urls, "Pet: Baby mole", null, "Baby mole", WebhookService.WebhookCategory.PET);
+
+        ArgumentCaptor<Runnable> runnableCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(executor, atLeastOnce()).schedule(runnableCaptor.capture(), anyLong(), eq(TimeUnit.MILLISECONDS));
+        runnableCaptor.getValue().run();
+
+        ArgumentCaptor<Request> requestCaptor = ArgumentCaptor.forClass(Request.class);
+        verify(okHttpClient).newCall(requestCaptor.capture());
+
+        String body = readBody(requestCaptor.getValue());
+        assertTrue("Pet should be the first embed", body.indexOf("Pet: Baby mole") < body.indexOf("Loot: Bones"));
+    }
+
+    @Test
+    public void testSplitsAtEmbedLimit()
+    {
+        String urls = "http://webhook";
+        for (int i = 0; i <= WebhookService.MAX_EMBEDS; i++)
+        {
+            webhookService.sendWebhook(urls, "Item " + i, null, "Item " + i, WebhookService.WebhookCategory.LOOT);
+        }
+
+        ArgumentCaptor<Runnable> runnableCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(executor, atLeastOnce()).schedule(runnableCaptor.capture(), anyLong(), eq(TimeUnit.MILLISECONDS));
         runnableCaptor.getValue().run();
 
-        // Verify two calls were made
         verify(okHttpClient, times(2)).newCall(any());
     }
 
+    @Test
+    public void testBundleKeepsEveryImage() throws IOException
+    {
+        String urls = "http://webhook";
+
+        webhookService.sendWebhook(urls, "Valuable drop: Fang", new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB), "Fang", WebhookService.WebhookCategory.VALUABLE_DROP);
+        webhookService.sendWebhook(urls, "Collection log: Fang", new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB), "Fang", WebhookService.WebhookCategory.COLLECTION_LOG);
+        webhookService.sendWebhook(urls, "Pet", new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB), null, WebhookService.WebhookCategory.PET);
+
+        ArgumentCaptor<Runnable> runnableCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(executor, atLeastOnce()).schedule(runnableCaptor.capture(), anyLong(), eq(TimeUnit.MILLISECONDS));
+        runnableCaptor.getValue().run();
+
+        ArgumentCaptor<Request> requestCaptor = ArgumentCaptor.forClass(Request.class);
+        verify(okHttpClient, times(1)).newCall(requestCaptor.capture());
+
+        String body = readBody(requestCaptor.getValue());
+        for (int i = 0; i < 3; i++)
+        {
+            assertTrue("Body should attach screenshot " + i, body.contains("filename=\"screenshot-" + i + ".png\""));
+            assertTrue("Embeds should reference screenshot " + i, body.contains("attachment://screenshot-" + i + ".png"));
+        }
+    }
+
     @Test
     public void testBingoBundling()
     {
@@ -136,7 +262,7 @@ public class WebhookServiceTest
         webhookService.sendWebhook(urls, "Special item: 100 x Soul rune", null, "Soul rune", WebhookService.WebhookCategory.BINGO_LOOT);
 
         ArgumentCaptor<Runnable> runnableCaptor = ArgumentCaptor.forClass(Runnable.class);
-        verify(executor).schedule(runnableCaptor.capture(), eq(3L), eq(TimeUnit.SECONDS));
+        verify(executor, atLeastOnce()).schedule(runnableCaptor.capture(), anyLong(), eq(TimeUnit.MILLISECONDS));
         runnableCaptor.getValue().run();
 
         // BINGO_LOOT (3) has higher priority than LOOT (6), so BINGO_LOOT should be primary
@@ -155,7 +281,7 @@ public class WebhookServiceTest
         webhookService.sendWebhook(urls, "Message", null);
 
         ArgumentCaptor<Runnable> runnableCaptor = ArgumentCaptor.forClass(Runnable.class);
-        verify(executor).schedule(runnableCaptor.capture(), eq(3L), eq(TimeUnit.SECONDS));
+        verify(executor, atLeastOnce()).schedule(runnableCaptor.capture(), anyLong(), eq(TimeUnit.MILLISECONDS));
         runnableCaptor.getValue().run();
 
         // Should be 4 separate calls
@@ -171,6 +297,205 @@ public class WebhookServiceTest
         assertEquals("http://url4/", requests.get(3).url().toString());
     }
 
+    @Test
+    public void testSharedFrameUploadedOnce() throws IOException
+    {
+        String urls = "http://webhook";
+        BufferedImage frame = new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB);
+
+        webhookService.sendWebhook(urls, "Valuable drop: Fang", frame, "Fang", WebhookService.WebhookCategory.VALUABLE_DROP);
+        webhookService.sendWebhook(urls, "Collection log: Fang", frame, "Fang", WebhookService.WebhookCategory.COLLECTION_LOG);
+        webhookService.sendWebhook(urls, "Pet", frame, null, WebhookService.WebhookCategory.PET);
+
+        ArgumentCaptor<Runnable> runnableCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(executor, atLeastOnce()).schedule(runnableCaptor.capture(), anyLong(), eq(TimeUnit.MILLISECONDS));
+        runnableCaptor.getValue().run();
+
+        ArgumentCaptor<Request> requestCaptor = ArgumentCaptor.forClass(Request.class);
+        verify(okHttpClient, times(1)).newCall(requestCaptor.capture());
+
+        String body = readBody(requestCaptor.getValue());
+        assertTrue("Body should attach the frame", body.contains("filename=\"screenshot-0.png\""));
+        assertTrue("Frame should be attached once", !body.contains("screenshot-1.png"));
+    }
+
+    @Test
+    public void testPackCountsSharedFrameOnce()
+    {
+        // Three times over the attachment size limit if counted per bundle
+        CompletableFuture<EncodedImage> frame = CompletableFuture.completedFuture(new EncodedImage(new byte[4 * 1024 * 1024], ScreenshotFormat.PNG));
+        List<WebhookService.Bundle> bundles = new ArrayList<>();
+        for (int i = 0; i < 3; i++)
+        {
+            bundles.add(new WebhookService.Bundle("Drop " + i, WebhookService.WebhookCategory.VALUABLE_DROP,
+                Collections.singletonList(frame), Collections.emptyList()));
+        }
+
+        assertEquals(1, WebhookService.pack(bundles).size());
+    }
+
+    @Test
+    public void testOverMemoryLimitDropsImage() throws IOException
+    {
+        String body = sendOverMemoryLimit(WebhookOverflowPolicy.DROP_IMAGE);
+
+        assertTrue("Body should keep both messages", body.contains("Valuable drop: A") && body.contains("Loot: B"));
+        assertTrue("Body should keep the higher priority screenshot", body.contains("screenshot-0.png"));
+        assertTrue("Body should drop the lower priority screenshot", !body.contains("screenshot-1.png"));
+        assertEquals(1, webhookService.getDegradedCount());
+    }
+
+    @Test
+    public void testOverMemoryLimitDropsLowestPriority() throws IOException
+    {
+        String body = sendOverMemoryLimit(WebhookOverflowPolicy.DROP_LOWEST_PRIORITY);
+
+        assertTrue("Body should keep the higher priority webhook", body.contains("Valuable drop: A"));
+        assertTrue("Body should drop the lower priority webhook", !body.contains("Loot: B"));
+        assertEquals(1, webhookService.getDroppedCount());
+    }
+
+    @Test
+    public void testOverMemoryLimitSpillsToDisk() throws IOException
+    {
+        String body = sendOverMemoryLimit(WebhookOverflowPolicy.SPILL_TO_DISK);
+
+        assertTrue("Body should keep the higher priority webhook", body.contains("Valuable drop: A"));
+        assertTrue("Body should leave the lower priority webhook for later", !body.contains("Loot: B"));
+        assertEquals(1, webhookService.getSpilledCount());
+    }
+
+    @Test
+    public void testSharedFrameCountsOnceAgainstMemoryLimit() throws IOException
+    {
+        when(config.webhookMemoryLimit()).thenReturn(1);
+        lenient().when(config.webhookOverflowPolicy()).thenReturn(WebhookOverflowPolicy.DROP_IMAGE);
+
+        // Three times over the limit if counted per webhook
+        BufferedImage frame = noise(450, 450);
+        webhookService.sendWebhook("http://webhook", "Valuable drop: A", frame, "A", WebhookService.WebhookCategory.VALUABLE_DROP);
+        webhookService.sendWebhook("http://webhook", "Loot: B", frame, "B", WebhookService.WebhookCategory.LOOT);
+        webhookService.sendWebhook("http://webhook", "Loot: C", frame, "C", WebhookService.WebhookCategory.LOOT);
+
+        ArgumentCaptor<Runnable> runnableCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(executor, atLeastOnce()).schedule(runnableCaptor.capture(), anyLong(), eq(TimeUnit.MILLISECONDS));
+        runnableCaptor.getValue().run();
+
+        ArgumentCaptor<Request> requestCaptor = ArgumentCaptor.forClass(Request.class);
+        verify(okHttpClient).newCall(requestCaptor.capture());
+        String body = readBody(requestCaptor.getValue());
+
+        assertTrue("Body should keep the shared screenshot", body.contains("screenshot-0.png"));
+        assertEquals(0, webhookService.getDegradedCount());
+    }
+
+    @Test
+    public void testDeliveryMetrics() throws IOException
+    {
+        webhookService.sendWebhook("https://discord.com/api/webhooks/123/token", "Pet: Olmlet", null, null, WebhookService.WebhookCategory.PET);
+
+        ArgumentCaptor<Runnable> runnableCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(executor, atLeastOnce()).schedule(runnableCaptor.capture(), anyLong(), eq(TimeUnit.MILLISECONDS));
+        runnableCaptor.getValue().run();
+
+        ArgumentCaptor<Request> requestCaptor = ArgumentCaptor.forClass(Request.class);
+        verify(okHttpClient).newCall(requestCaptor.capture());
+        ArgumentCaptor<Callback> callbackCaptor = ArgumentCaptor.forClass(Callback.class);
+        verify(call).enqueue(callbackCaptor.capture());
+        callbackCaptor.getValue().onResponse(call, new Response.Builder()
+            .request(requestCaptor.getValue())
+            .protocol(Protocol.HTTP_1_1)
+            .code(204)
+            .message("No Content")
+            .body(ResponseBody.create(null, ""))
+            .build());
+
+        WebhookCategoryMetrics pet = webhookService.getMetrics().getCategoryMetrics().get(WebhookService.WebhookCategory.PET.ordinal());
+        assertEquals(1, pet.getQueued());
+        assertEquals(1, pet.getDelivered());
+
+        List<WebhookUrlMetrics> urls = webhookService.getMetrics().getUrlMetrics();
+        assertEquals(1, urls.size());
+        assertEquals("discord.com/123", urls.get(0).getLabel());
+        assertEquals(1, urls.get(0).getDelivered());
+        assertTrue(urls.get(0).getBytesSent() > 0);
+    }
+
+    @Test
+    public void testInvalidUrlSkipped()
+    {
+        webhookService.sendWebhook("http://url1\nnot a url", "Message", null);
+
+        ArgumentCaptor<Runnable> runnableCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(executor, atLeastOnce()).schedule(runnableCaptor.capture(), anyLong(), eq(TimeUnit.MILLISECONDS));
+        runnableCaptor.getValue().run();
+
+        ArgumentCaptor<Request> requestCaptor = ArgumentCaptor.forClass(Request.class);
+        verify(okHttpClient, times(1)).newCall(requestCaptor.capture());
+        assertEquals("http://url1/", requestCaptor.getValue().url().toString());
+    }
+
+    @Test
+    public void testImageAttachedForEveryUrl() throws IOException
+    {
+        BufferedImage image = new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB);
+        webhookService.sendWebhook("http://url1, http://url2", "Message", image);
+
+        ArgumentCaptor<Runnable> runnableCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(executor, atLeastOnce()).schedule(runnableCaptor.capture(), anyLong(), eq(TimeUnit.MILLISECONDS));
+        runnableCaptor.getValue().run();
+
+        ArgumentCaptor<Request> requestCaptor = ArgumentCaptor.forClass(Request.class);
+        verify(okHttpClient, times(2)).newCall(requestCaptor.capture());
+
+        for (Request request : requestCaptor.getAllValues())
+        {
+            String body = readBody(request);
+
+            assertTrue("Body should contain the screenshot", body.contains("filename=\"screenshot-0.png\""));
+            assertTrue("Screenshot should be a PNG", body.contains("PNG"));
+        }
+    }
+
+    @Test
+    public void testBodySharedBetweenUrls()
+    {
+        webhookService.sendWebhook("http://url1, http://url2", "Message", new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB));
+
+        ArgumentCaptor<Runnable> runnableCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(executor, atLeastOnce()).schedule(runnableCaptor.capture(), anyLong(), eq(TimeUnit.MILLISECONDS));
+        runnableCaptor.getValue().run();
+
+        ArgumentCaptor<Request> requestCaptor = ArgumentCaptor.forClass(Request.class);
+        verify(okHttpClient, times(2)).newCall(requestCaptor.capture());
+
+        List<Request> requests = requestCaptor.getAllValues();
+        assertSame(requests.get(0).body(), requests.get(1).body());
+    }
+
+    @Test
+    public void testScreenshotFormat() throws IOException
+    {
+        when(config.screenshotFormat()).thenReturn(ScreenshotFormat.JPEG);
+        when(config.screenshotQuality()).thenReturn(70);
+
+        webhookService.sendWebhook("http://webhook", "Message", new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB));
+
+        ArgumentCaptor<Runnable> runnableCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(executor, atLeastOnce()).schedule(runnableCaptor.capture(), anyLong(), eq(TimeUnit.MILLISECONDS));
+        runnableCaptor.getValue().run();
+
+        ArgumentCaptor<Request> requestCaptor = ArgumentCaptor.forClass(Request.class);
+        verify(okHttpClient).newCall(requestCaptor.capture());
+
+        Buffer buffer = new Buffer();
+        requestCaptor.getValue().body().writeTo(buffer);
+        String body = buffer.readUtf8();
+
+        assertTrue("Body should contain a JPEG screenshot", body.contains("filename=\"screenshot-0.jpg\""));
+        assertTrue("Body should contain the JPEG content type", body.contains("image/jpeg"));
+    }
+
     @Test
     public void testLeaguesGameModeSuffix() throws IOException
     {
@@ -180,7 +505,7 @@ public class WebhookServiceTest
         webhookService.sendWebhook("http://webhook", "Loot message", null);
 
         ArgumentCaptor<Runnable> runnableCaptor = ArgumentCaptor.forClass(Runnable.class);
-        verify(executor).schedule(runnableCaptor.capture(), eq(3L), eq(TimeUnit.SECONDS));
+        verify(executor, atLeastOnce()).schedule(runnableCaptor.capture(), anyLong(), eq(TimeUnit.MILLISECONDS));
         runnableCaptor.getValue().run();
 
         ArgumentCaptor<Request> requestCaptor = ArgumentCaptor.forClass(Request.class);
@@ -201,7 +526,7 @@ public class WebhookServiceTest
         webhookService.sendWebhook("http://webhook", "Loot message", null);
 
         ArgumentCaptor<Runnable> runnableCaptor = ArgumentCaptor.forClass(Runnable.class);
-        verify(executor).schedule(runnableCaptor.capture(), eq(3L), eq(TimeUnit.SECONDS));
+        verify(executor, atLeastOnce()).schedule(runnableCaptor.capture(), anyLong(), eq(TimeUnit.MILLISECONDS));
         runnableCaptor.getValue().run();
 
         ArgumentCaptor<Request> requestCaptor = ArgumentCaptor.forClass(Request.class);
@@ -222,7 +547,7 @@ public class WebhookServiceTest
         webhookService.sendWebhook("http://webhook", "Loot message", null);
 
         ArgumentCaptor<Runnable> runnableCaptor = ArgumentCaptor.forClass(Runnable.class);
-        verify(executor).schedule(runnableCaptor.capture(), eq(3L), eq(TimeUnit.SECONDS));
+        verify(executor, atLeastOnce()).schedule(runnableCaptor.capture(), anyLong(), eq(TimeUnit.MILLISECONDS));
         runnableCaptor.getValue().run();
 
         ArgumentCaptor<Request> requestCaptor = ArgumentCaptor.forClass(Request.class);
@@ -245,7 +570,7 @@ public class WebhookServiceTest
         webhookService.sendWebhook("http://webhook", "Loot message", null);
 
         ArgumentCaptor<Runnable> runnableCaptor = ArgumentCaptor.forClass(Runnable.class);
-        verify(executor).schedule(runnableCaptor.capture(), eq(3L), eq(TimeUnit.SECONDS));
+        verify(executor, atLeastOnce()).schedule(runnableCaptor.capture(), anyLong(), eq(TimeUnit.MILLISECONDS));
         runnableCaptor.getValue().run();
 
         ArgumentCaptor<Request> requestCaptor = ArgumentCaptor.forClass(Request.class);
@@ -267,7 +592,7 @@ public class WebhookServiceTest
         webhookService.sendWebhook("http://webhook", "Loot message", null);
 
         ArgumentCaptor<Runnable> runnableCaptor = ArgumentCaptor.forClass(Runnable.class);
-        verify(executor).schedule(runnableCaptor.capture(), eq(3L), eq(TimeUnit.SECONDS));
+        verify(executor, atLeastOnce()).schedule(runnableCaptor.capture(), anyLong(), eq(TimeUnit.MILLISECONDS));
         runnableCaptor.getValue().run();
 
         ArgumentCaptor<Request> requestCaptor = ArgumentCaptor.forClass(Request.class);
@@ -306,7 +631,7 @@ public class WebhookServiceTest
         webhookService.sendWebhook("http://webhook", "Loot message", null);
 
         ArgumentCaptor<Runnable> runnableCaptor = ArgumentCaptor.forClass(Runnable.class);
-        verify(executor).schedule(runnableCaptor.capture(), eq(3L), eq(TimeUnit.SECONDS));
+        verify(executor, atLeastOnce()).schedule(runnableCaptor.capture(), anyLong(), eq(TimeUnit.MILLISECONDS));
         runnableCaptor.getValue().run();
 
         ArgumentCaptor<Request> requestCaptor = ArgumentCaptor.forClass(Request.class);
@@ -334,4 +659,48 @@ public class WebhookServiceTest
         }
         assertTrue("Body should contain one of the funny deadman messages", found);
     }
+
+    /**
+     * Queue two webhooks whose screenshots only fit a 1 MB limit together, flush, and return the request body.
+     */
+    private String sendOverMemoryLimit(WebhookOverflowPolicy policy) throws IOException
+    {
+        when(config.webhookMemoryLimit()).thenReturn(1);
+        when(config.webhookOverflowPolicy()).thenReturn(policy);
+
+        webhookService.sendWebhook("http://webhook", "Valuable drop: A", noise(450, 450), "A", WebhookService.WebhookCategory.VALUABLE_DROP);
+        webhookService.sendWebhook("http://webhook", "Loot: B", noise(450, 450), "B", WebhookService.WebhookCategory.LOOT);
+
+        ArgumentCaptor<Runnable> runnableCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(executor, atLeastOnce()).schedule(runnableCaptor.capture(), anyLong(), eq(TimeUnit.MILLISECONDS));
+        runnableCaptor.getValue().run();
+
+        ArgumentCaptor<Request> requestCaptor = ArgumentCaptor.forClass(Request.class);
+        verify(okHttpClient).newCall(requestCaptor.capture());
+        return readBody(requestCaptor.getValue());
+    }
+
+    /**
+     * An image that does not compress, so its encoded size is about three bytes per pixel.
+     */
+    private static BufferedImage noise(int width, int height)
+    {
+        Random random = new Random(width * 31 + height);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++)
+        {
+            for (int x = 0; x < width; x++)
+            {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+        return image;
+    }
+
+    private static String readBody(Request request) throws IOException
+    {
+        Buffer buffer = new Buffer();
+        request.body().writeTo(buffer);
+        return buffer.readUtf8();
+    }
 }
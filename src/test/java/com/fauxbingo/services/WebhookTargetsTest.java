@@ -0,0 +1,52 @@
+package com.fauxbingo.services;
+
+import java.util.Arrays;
+import java.util.Collections;
+import okhttp3.HttpUrl;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class WebhookTargetsTest
+{
+	@Test
+	public void testParse()
+	{
+		WebhookTargets targets = WebhookTargets.parse("http://url1, http://url2\nhttp://url3, \n http://url4");
+
+		assertEquals(Arrays.asList(
+			HttpUrl.parse("http://url1"),
+			HttpUrl.parse("http://url2"),
+			HttpUrl.parse("http://url3"),
+			HttpUrl.parse("http://url4")), targets.getUrls());
+		assertTrue(targets.getInvalidUrls().isEmpty());
+	}
+
+	@Test
+	public void testInvalidUrls()
+	{
+		WebhookTargets targets = WebhookTargets.parse("http://url1\nnot a url");
+
+		assertEquals(Collections.singletonList(HttpUrl.parse("http://url1")), targets.getUrls());
+		assertEquals(Collections.singletonList("not a url"), targets.getInvalidUrls());
+	}
+
+	@Test
+	public void testEmpty()
+	{
+		assertSame(WebhookTargets.EMPTY, WebhookTargets.parse(null));
+		assertSame(WebhookTargets.EMPTY, WebhookTargets.parse(""));
+		assertTrue(WebhookTargets.parse(" , \n").isEmpty());
+		assertTrue(WebhookTargets.parse("not a url").isEmpty());
+	}
+
+	@Test
+	public void testEqualityIgnoresFormatting()
+	{
+		assertEquals(WebhookTargets.parse("http://url1,http://url2"), WebhookTargets.parse(" http://url1\n http://url2\n"));
+		assertNotEquals(WebhookTargets.parse("http://url1,http://url2"), WebhookTargets.parse("http://url2,http://url1"));
+	}
+}
@@ -0,0 +1,57 @@
+package com.fauxbingo.util;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class AhoCorasickTest
+{
+	@Test
+	public void testReportsAllOccurrences()
+	{
+		AhoCorasick automaton = new AhoCorasick(Arrays.asList("he", "she", "his", "hers"));
+		List<String> matches = new ArrayList<>();
+		automaton.scan("ushers", (pattern, start) -> matches.add(pattern + "@" + start));
+
+		// "she" and "he" end at the same position, "hers" ends last
+		assertEquals(Arrays.asList("1@1", "0@2", "3@2"), matches);
+	}
+
+	@Test
+	public void testOverlappingAndRepeated()
+	{
+		AhoCorasick automaton = new AhoCorasick(Arrays.asList("aa"));
+		List<Integer> starts = new ArrayList<>();
+		automaton.scan("aaaa", (pattern, start) -> starts.add(start));
+
+		assertEquals(Arrays.asList(0, 1, 2), starts);
+	}
+
+	@Test
+	public void testNonAsciiCharacters()
+	{
+		AhoCorasick automaton = new AhoCorasick(Arrays.asList("été"));
+		List<Integer> starts = new ArrayList<>();
+		automaton.scan("l'été é", (pattern, start) -> starts.add(start));
+
+		assertEquals(Arrays.asList(2), starts);
+	}
+
+	@Test
+	public void testNoMatch()
+	{
+		AhoCorasick automaton = new AhoCorasick(Arrays.asList("rune", "bones"));
+		List<Integer> starts = new ArrayList<>();
+		automaton.scan("Dragon bone", (pattern, start) -> starts.add(start));
+
+		assertTrue(starts.isEmpty());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testEmptyPatternRejected()
+	{
+		new AhoCorasick(Arrays.asList("rune", ""));
+	}
+}
@@ -0,0 +1,74 @@
+package com.fauxbingo.util;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.Arrays;
+import java.util.List;
+
+public class CompiledBingoListTest
+{
+	@Test
+	public void testParse()
+	{
+		CompiledBingoList list = CompiledBingoList.parse("Soul rune, Dragon bone\n  Twisted bow ,,\n");
+		assertEquals(Arrays.asList("Soul rune", "Dragon bone", "Twisted bow"), list.getItems());
+	}
+
+	@Test
+	public void testEmpty()
+	{
+		assertTrue(CompiledBingoList.parse(null).isEmpty());
+		assertTrue(CompiledBingoList.parse("").isEmpty());
+		assertTrue(CompiledBingoList.parse(" , \n").isEmpty());
+		assertFalse(CompiledBingoList.EMPTY.matches("Soul rune"));
+	}
+
+	@Test
+	public void testExactAndPluralMatch()
+	{
+		CompiledBingoList list = CompiledBingoList.parse("Soul rune, Dragon berries, Knife, Dragon's bone");
+		assertTrue(list.matches("soul rune"));
+		assertTrue(list.matches("Soul runes"));
+		assertTrue(list.matches("Dragon berry"));
+		assertTrue(list.matches("Knives"));
+		assertTrue(list.matches("Dragon's bones"));
+		assertFalse(list.matches("Blood rune"));
+	}
+
+	@Test
+	public void testPossessiveMatch()
+	{
+		CompiledBingoList list = CompiledBingoList.parse("Scurrius' spine");
+		assertTrue(list.matches("Scurrius spine"));
+		assertTrue(list.matches("Scurrius' spine"));
+	}
+
+	@Test
+	public void testWildcardMatch()
+	{
+		CompiledBingoList list = CompiledBingoList.parse("*rune, zulrah's *");
+		assertTrue(list.matches("Blood rune"));
+		assertTrue(list.matches("Zulrah's scales"));
+		assertFalse(list.matches("Dragon bones"));
+	}
+
+	@Test
+	public void testFuzzyMatch()
+	{
+		CompiledBingoList list = CompiledBingoList.parse("Twisted bowz, Blod runes");
+		assertTrue(list.matches("Twisted bow"));
+		assertTrue(list.matches("Blood runes"));
+		assertFalse(list.matches("Twisted buckler"));
+	}
+
+	@Test
+	public void testSameResultsAsLootMatcher()
+	{
+		List<String> configItems = Arrays.asList("Soul rune", "Dragon bone", "Twisted bowz", "*oo*", "Scurrius' spine");
+		CompiledBingoList list = CompiledBingoList.of(configItems);
+		for (String item : Arrays.asList("Soul runes", "Dragon bone", "Twisted bow", "Blood rune", "Scurrius spine", "Coins", "Dragon bones"))
+		{
+			assertEquals(item, LootMatcher.matchesAny(item, configItems), list.matches(item));
+		}
+	}
+}
@@ -0,0 +1,50 @@
+package com.fauxbingo.util;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class FuzzyIndexTest
+{
+	@Test
+	public void testEmpty()
+	{
+		assertFalse(new FuzzyIndex().containsWithinOneEdit("twisted bow"));
+	}
+
+	@Test
+	public void testSingleEdits()
+	{
+		FuzzyIndex index = new FuzzyIndex();
+		index.add("twisted bow");
+		index.add("blood runes");
+
+		// Exact, insertion, deletion and substitution
+		assertTrue(index.containsWithinOneEdit("twisted bow"));
+		assertTrue(index.containsWithinOneEdit("twisted bows"));
+		assertTrue(index.containsWithinOneEdit("blod runes"));
+		assertTrue(index.containsWithinOneEdit("blood tunes"));
+	}
+
+	@Test
+	public void testRejectsTwoEdits()
+	{
+		FuzzyIndex index = new FuzzyIndex();
+		index.add("twisted bow");
+
+		assertFalse(index.containsWithinOneEdit("twisted bowzz"));
+		// Transpositions share a deletion but are two edits apart
+		assertFalse(index.containsWithinOneEdit("twisted bwo"));
+		assertFalse(index.containsWithinOneEdit("dragon bones"));
+	}
+
+	@Test
+	public void testRepeatedLetters()
+	{
+		FuzzyIndex index = new FuzzyIndex();
+		index.add("scroll");
+
+		assertTrue(index.containsWithinOneEdit("scrol"));
+		assertTrue(index.containsWithinOneEdit("scrolll"));
+		assertFalse(index.containsWithinOneEdit("scro"));
+	}
+}
@@ -0,0 +1,52 @@
+package com.fauxbingo.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ItemMatchCacheTest
+{
+	@Test
+	public void testMissing()
+	{
+		ItemMatchCache cache = new ItemMatchCache();
+		assertEquals(ItemMatchCache.MISSING, cache.get(536));
+		assertEquals(ItemMatchCache.MISSING, cache.get(0));
+	}
+
+	@Test
+	public void testPutAndOverwrite()
+	{
+		ItemMatchCache cache = new ItemMatchCache();
+		cache.put(0, 0);
+		cache.put(536, 5);
+		cache.put(536, 3);
+
+		assertEquals(0, cache.get(0));
+		assertEquals(3, cache.get(536));
+		assertEquals(2, cache.size());
+	}
+
+	@Test
+	public void testGrowsPastInitialCapacity()
+	{
+		ItemMatchCache cache = new ItemMatchCache();
+		for (int id = 0; id < 30000; id++)
+		{
+			cache.put(id, id & 0xF);
+		}
+
+		assertEquals(30000, cache.size());
+		for (int id = 0; id < 30000; id++)
+		{
+			assertEquals(id & 0xF, cache.get(id));
+		}
+		assertEquals(ItemMatchCache.MISSING, cache.get(30000));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRejectsNegativeValue()
+	{
+		new ItemMatchCache().put(536, -1);
+	}
+}
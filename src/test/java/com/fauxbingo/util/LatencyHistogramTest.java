@@ -0,0 +1,76 @@
+package com.fauxbingo.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest
+{
+	@Test
+	public void testEmpty()
+	{
+		LatencyHistogram histogram = new LatencyHistogram();
+
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getMean());
+		assertEquals(0, histogram.getValueAtPercentile(99));
+	}
+
+	@Test
+	public void testCountTotalMax()
+	{
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(100);
+		histogram.record(300);
+		histogram.record(-5);
+
+		assertEquals(3, histogram.getCount());
+		assertEquals(400, histogram.getTotal());
+		assertEquals(300, histogram.getMax());
+		assertEquals(133, histogram.getMean());
+	}
+
+	@Test
+	public void testPercentilesWithinBucketPrecision()
+	{
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (long value = 1; value <= 10000; value++)
+		{
+			histogram.record(value * 1000);
+		}
+
+		assertWithinPrecision(5_000_000, histogram.getValueAtPercentile(50));
+		assertWithinPrecision(9_900_000, histogram.getValueAtPercentile(99));
+		assertEquals(10_000_000, histogram.getValueAtPercentile(100));
+	}
+
+	@Test
+	public void testBucketsCoverRange()
+	{
+		for (long value : new long[]{0, 1, 7, 8, 9, 15, 16, 1000, 123456789, Long.MAX_VALUE})
+		{
+			int bucket = LatencyHistogram.bucketOf(value);
+			assertTrue(value + " above bucket", value <= LatencyHistogram.highestValueIn(bucket));
+			assertTrue(value + " below bucket", bucket == 0 || value > LatencyHistogram.highestValueIn(bucket - 1));
+		}
+		assertEquals(Long.MAX_VALUE, LatencyHistogram.highestValueIn(LatencyHistogram.bucketOf(Long.MAX_VALUE)));
+	}
+
+	@Test
+	public void testReset()
+	{
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(42);
+		histogram.reset();
+
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getMax());
+		assertEquals(0, histogram.getValueAtPercentile(50));
+	}
+
+	private static void assertWithinPrecision(long expected, long actual)
+	{
+		assertTrue("expected ~" + expected + " but was " + actual, Math.abs(actual - expected) <= expected / 8);
+	}
+}
@@ -0,0 +1,122 @@
+package com.fauxbingo.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MpscRingBufferTest
+{
+	@Test
+	public void testFifo()
+	{
+		MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(4);
+		buffer.offer(1);
+		buffer.offer(2);
+		buffer.offer(3);
+
+		assertEquals(3, buffer.size());
+		assertEquals(Integer.valueOf(1), buffer.poll());
+		assertEquals(Integer.valueOf(2), buffer.poll());
+		assertEquals(Integer.valueOf(3), buffer.poll());
+		assertNull(buffer.poll());
+	}
+
+	@Test
+	public void testRejectsWhenFull()
+	{
+		MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(3);
+		assertEquals(4, buffer.capacity());
+
+		for (int i = 0; i < 4; i++)
+		{
+			assertTrue(buffer.offer(i));
+		}
+		assertFalse(buffer.offer(4));
+
+		assertEquals(Integer.valueOf(0), buffer.poll());
+		assertTrue(buffer.offer(4));
+	}
+
+	@Test
+	public void testWrapsAround()
+	{
+		MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(2);
+		for (int i = 0; i < 100; i++)
+		{
+			assertTrue(buffer.offer(i));
+			assertEquals(Integer.valueOf(i), buffer.poll());
+		}
+		assertEquals(0, buffer.size());
+	}
+
+	@Test
+	public void testConcurrentProducers() throws InterruptedException
+	{
+		int producers = 4;
+		int perProducer = 20000;
+		MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(64);
+		CountDownLatch start = new CountDownLatch(1);
+
+		List<Thread> threads = new ArrayList<>();
+		for (int p = 0; p < producers; p++)
+		{
+			int producer = p;
+			Thread thread = new Thread(() ->
+			{
+				try
+				{
+					start.await();
+				}
+				catch (InterruptedException e)
+				{
+					return;
+				}
+				for (int i = 0; i < perProducer; i++)
+				{
+					while (!buffer.offer(producer * perProducer + i))
+					{
+						Thread.yield();
+					}
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+
+		start.countDown();
+		boolean[] seen = new boolean[producers * perProducer];
+		int[] lastSeen = new int[producers];
+		Arrays.fill(lastSeen, -1);
+		int received = 0;
+		while (received < seen.length)
+		{
+			Integer value = buffer.poll();
+			if (value == null)
+			{
+				Thread.yield();
+				continue;
+			}
+
+			assertFalse(seen[value]);
+			seen[value] = true;
+			// Each producer's elements arrive in the order it offered them
+			int producer = value / perProducer;
+			assertTrue(value % perProducer > lastSeen[producer]);
+			lastSeen[producer] = value % perProducer;
+			received++;
+		}
+
+		for (Thread thread : threads)
+		{
+			thread.join();
+		}
+		assertNull(buffer.poll());
+	}
+}
@@ -0,0 +1,63 @@
+package com.fauxbingo.util;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class WildcardMatcherTest
+{
+	private static WildcardMatcher compile(String... wildcards)
+	{
+		WildcardMatcher matcher = new WildcardMatcher();
+		for (String wildcard : wildcards)
+		{
+			matcher.add(wildcard);
+		}
+		matcher.compile();
+		return matcher;
+	}
+
+	@Test
+	public void testAnchoring()
+	{
+		WildcardMatcher matcher = compile("blood*", "*rune");
+		assertTrue(matcher.matchesAny("blood rune"));
+		assertTrue(matcher.matchesAny("blood"));
+		assertTrue(matcher.matchesAny("soul rune"));
+		assertFalse(matcher.matchesAny("soul runes"));
+		assertFalse(matcher.matchesAny("bad blood"));
+	}
+
+	@Test
+	public void testSegmentOrder()
+	{
+		WildcardMatcher matcher = compile("*dragon*bones*");
+		assertTrue(matcher.matchesAny("superior dragon bones"));
+		assertFalse(matcher.matchesAny("bones of a dragon"));
+	}
+
+	@Test
+	public void testSegmentsMustNotOverlap()
+	{
+		WildcardMatcher matcher = compile("ab*ab", "*aa*aa*");
+		assertFalse(matcher.matchesAny("ab"));
+		assertFalse(matcher.matchesAny("aba"));
+		assertTrue(matcher.matchesAny("abab"));
+		assertFalse(matcher.matchesAny("aaa"));
+		assertTrue(matcher.matchesAny("aaaa"));
+	}
+
+	@Test
+	public void testOnlyStars()
+	{
+		assertTrue(compile("*").matchesAny(""));
+		assertTrue(compile("**").matchesAny("anything"));
+	}
+
+	@Test
+	public void testEmpty()
+	{
+		WildcardMatcher matcher = compile();
+		assertTrue(matcher.isEmpty());
+		assertFalse(matcher.matchesAny("blood rune"));
+	}
+}